@@ -1,8 +1,10 @@
 import model.characters.*;
+import model.characters.Character;
 import model.items.*;
 import model.exceptions.*;
 import game.*;
 import utils.GameUtils;
+import utils.GameRandom;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Comparator;
@@ -34,6 +36,25 @@ public class TestProject {
         testShop();
         testDungeonMap();
         testSortingAndFiltering();
+        testBattleSimulator();
+        testPartyBattle();
+        testPackedActions();
+        testMonteCarloPlanner();
+        testBattleReplay();
+        testBattleRuntime();
+        testBattleListener();
+        testActionHistory();
+        testCombatMetrics();
+        testStatusEffects();
+        testCharacterStore();
+        testLoadoutOptimizer();
+        testBulkExperience();
+        testEnemyTemplates();
+        testReadOnlyViews();
+        testIndexedInventory();
+        testItemStacking();
+        testCarryWeight();
+        testInventoryListeners();
         
         // סיכום
         System.out.println("\n=================================");
@@ -239,6 +260,17 @@ public class TestProject {
             int defense = warrior.getTotalDefense();
             test("getTotalDefense", defense >= warrior.getBaseDefense());
             
+            // הנתונים הנגזרים מתעדכנים אחרי החלפת שריון ועליית רמה
+            double reduction = warrior.getDamageReduction();
+            Armor greatHelm = new Armor("Great Helm", "Test", 4, 120,
+                Item.ItemRarity.COMMON, 20, Armor.ArmorSlot.HEAD);
+            warrior.addItem(greatHelm);
+            warrior.equipArmor(greatHelm);
+            test("Derived stats refresh on equip", warrior.getTotalDefense() == defense + 10
+                && warrior.getDamageReduction() > reduction);
+            warrior.gainExperience(100);
+            test("Derived stats refresh on level up", warrior.getTotalDefense() == defense + 12);
+            
         } catch (InventoryFullException e) {
             test("Equipment (inventory full)", false);
         } catch (ItemNotFoundException e) {
@@ -295,6 +327,85 @@ public class TestProject {
         } catch (UnsupportedOperationException e) {
             testNotImplemented("BattleSystem sortActionsByPriority");
         }
+        
+        // Test ActionScheduler - עדיפות ואז מהירות נשק
+        try {
+            Warrior fast = new Warrior("Fast");
+            Warrior slow = new Warrior("Slow");
+            Weapon dagger = new Weapon("Quick Dagger", "Test", 1, 10,
+                Item.ItemRarity.COMMON, 1, 2, Weapon.WeaponType.DAGGER);
+            Weapon axe = new Weapon("Heavy Axe", "Test", 8, 10,
+                Item.ItemRarity.COMMON, 1, 2, Weapon.WeaponType.AXE);
+            fast.addItem(dagger);
+            fast.equipWeapon(dagger);
+            slow.addItem(axe);
+            slow.equipWeapon(axe);
+            
+            ActionScheduler scheduler = new ActionScheduler();
+            scheduler.add(new BattleAction(slow, fast, BattleAction.ActionType.ATTACK));
+            scheduler.add(new BattleAction(fast, slow, BattleAction.ActionType.ATTACK));
+            scheduler.add(new BattleAction(slow, fast, BattleAction.ActionType.FLEE));
+            test("ActionScheduler priority first",
+                scheduler.poll().getActionType() == BattleAction.ActionType.FLEE);
+            test("ActionScheduler initiative", scheduler.poll().getActor() == fast);
+            
+            BattleAction pending = new BattleAction(fast, slow, BattleAction.ActionType.DEFEND);
+            scheduler.add(pending);
+            boolean locked = false;
+            try {
+                pending.setPriority(1000);
+            } catch (IllegalStateException e) {
+                locked = true;
+            }
+            scheduler.poll();
+            pending.setPriority(1000);
+            test("ActionScheduler locks priority while queued", locked && pending.getPriority() == 1000);
+        } catch (Exception e) {
+            test("ActionScheduler (" + e.getMessage() + ")", false);
+        }
+        
+        // Test dead actor purge - בלי רקורסיה, גם עם הרבה פעולות של דמות מתה
+        try {
+            Warrior fallen = new Warrior("Fallen");
+            Warrior survivor = new Warrior("Survivor");
+            BattleSystem purgeBattle = new BattleSystem(survivor, fallen, new BattleLog(0), null, null);
+            for (int i = 0; i < 100_000; i++) {
+                purgeBattle.queueAction(new BattleAction(fallen, survivor, BattleAction.ActionType.ATTACK));
+            }
+            purgeBattle.queuePlayerAction(BattleAction.ActionType.ATTACK);
+            fallen.takeDamage(10_000);
+            BattleEvent survivorEvent = purgeBattle.processNextEvent();
+            test("dead actor actions purged",
+                survivorEvent != null && survivorEvent.getActorIndex() == BattleEvent.PLAYER
+                    && purgeBattle.isQueueEmpty());
+        } catch (Exception e) {
+            test("dead actor actions purged (" + e + ")", false);
+        }
+        
+        // Test processNextEvent
+        try {
+            BattleSystem eventBattle = new BattleSystem(new Warrior("EventHero"), new Mage("EventMage"),
+                new BattleLog(0), null, GameRandom.seeded(1));
+            eventBattle.queuePlayerAction(BattleAction.ActionType.ATTACK);
+            BattleEvent event = eventBattle.processNextEvent();
+            test("processNextEvent",
+                event != null && event.getActionType() == BattleAction.ActionType.ATTACK
+                    && event.getActorIndex() == BattleEvent.PLAYER && event.getTurn() == 1
+                    && event.isSuccess() && event.getAmount() > 0);
+            test("BattleEvent describe", event.describe(eventBattle.getPlayer(), eventBattle.getEnemy())
+                .equals("EventHero attacked EventMage for " + event.getAmount() + " damage."));
+        } catch (InvalidActionException e) {
+            test("processNextEvent (invalid)", false);
+        }
+        
+        // Test BattleLog ring buffer
+        BattleLog log = new BattleLog(3);
+        for (int i = 1; i <= 5; i++) {
+            log.add("message %d", i);
+        }
+        test("BattleLog bounded", log.size() == 3 && log.getDroppedCount() == 2);
+        test("BattleLog keeps newest",
+            log.get(0).equals("message 3") && log.getLast().equals("message 5"));
     }
     
     // ============================================================
@@ -478,6 +589,902 @@ public class TestProject {
         }
     }
     
+    // ============================================================
+    // בדיקות סימולטור קרבות
+    // ============================================================
+    
+    private static void testBattleSimulator() {
+        System.out.println("\n--- Testing Battle Simulator ---");
+        
+        BattleSimulator simulator = new BattleSimulator();
+        MatchupResult result = simulator.simulate(CharacterClass.WARRIOR, CharacterClass.ARCHER, 500);
+        
+        test("simulate battle count", result.getBattles() == 500);
+        test("simulate outcomes add up",
+            result.getWinsA() + result.getWinsB() + result.getDraws() == 500);
+        test("simulate mean turns", result.getMeanTurns() >= 1.0);
+        test("simulate damage histogram", result.getDamageByA().getCount() == 500);
+        test("simulate throughput", result.getBattlesPerSecond() > 0);
+        
+        // אותו seed - אותן תוצאות בדיוק
+        MatchupResult first = new BattleSimulator(42).simulate(CharacterClass.MAGE, CharacterClass.ARCHER, 300);
+        MatchupResult second = new BattleSimulator(42).simulate(CharacterClass.MAGE, CharacterClass.ARCHER, 300);
+        test("seeded simulation reproducible",
+            first.getWinsA() == second.getWinsA()
+                && first.getMeanTurns() == second.getMeanTurns()
+                && first.getDamageByB().getMean() == second.getDamageByB().getMean());
+        
+        Weapon dagger = new Weapon("Dagger", "Test", 1, 10,
+            Item.ItemRarity.COMMON, 1, 100, Weapon.WeaponType.DAGGER);
+        test("seeded weapon damage",
+            dagger.calculateDamage(GameRandom.seeded(7)) == dagger.calculateDamage(GameRandom.seeded(7)));
+        
+        Warrior veteran = new Warrior("Veteran");
+        java.util.random.RandomGenerator own = GameRandom.seeded(8);
+        veteran.setRandom(own);
+        try {
+            BattleSystem seededBattle = new BattleSystem(veteran, new Mage("Sparring"), new BattleLog(0), null,
+                GameRandom.seeded(9));
+            seededBattle.queuePlayerAction(BattleAction.ActionType.ATTACK);
+            seededBattle.processAllActions();
+        } catch (Exception e) {
+            test("seeded battle (exception: " + e + ")", false);
+        }
+        test("seeded battle leaves the character's generator alone", veteran.setRandom(null) == own);
+    }
+    
+    // ============================================================
+    // בדיקות קרב קבוצות
+    // ============================================================
+    
+    private static void testPartyBattle() {
+        System.out.println("\n--- Testing Party Battle ---");
+        
+        ArrayList<Character> party = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            party.add(new Warrior("Hero " + i));
+        }
+        ArrayList<Character> horde = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            horde.add(new Mage("Imp " + i));
+        }
+        
+        PartyBattle battle = new PartyBattle(party, horde,
+            PartyBattle.TargetPolicy.FRONT, PartyBattle.TargetPolicy.RANDOM, GameRandom.seeded(3));
+        int winner = battle.run(1000);
+        
+        test("PartyBattle has winner", winner == PartyBattle.PARTY || winner == PartyBattle.HORDE);
+        test("PartyBattle loser wiped out", battle.getAliveCount(1 - winner) == 0);
+        
+        int aliveHeroes = 0;
+        for (Character hero : party) {
+            if (hero.isAlive()) {
+                aliveHeroes++;
+            }
+        }
+        test("PartyBattle writes back health", aliveHeroes == battle.getAliveCount(PartyBattle.PARTY));
+    }
+    
+    private static void testPackedActions() {
+        System.out.println("\n--- Testing Packed Actions ---");
+        
+        try {
+            Warrior player = new Warrior("Packed Hero");
+            Mage enemy = new Mage("Packed Mage");
+            BattleSystem battle = new BattleSystem(player, enemy, new BattleLog(0), null, GameRandom.seeded(5));
+            
+            long code = battle.encodeAction(BattleEvent.PLAYER, BattleAction.ActionType.USE_ITEM, "Health Potion");
+            BattleAction decoded = battle.decodeAction(code);
+            test("Packed action round trip", decoded.getActor() == player && decoded.getTarget() == enemy
+                && decoded.getActionType() == BattleAction.ActionType.USE_ITEM
+                && "Health Potion".equals(decoded.getItemName()) && decoded.getPriority() == 60);
+            
+            PackedActionQueue queue = new PackedActionQueue(2);
+            queue.offer(battle.encodeAction(BattleEvent.ENEMY, BattleAction.ActionType.ATTACK, null));
+            queue.offer(battle.encodeAction(BattleEvent.PLAYER, BattleAction.ActionType.DEFEND, null));
+            queue.offer(battle.encodeAction(BattleEvent.PLAYER, BattleAction.ActionType.ATTACK, null));
+            test("Packed queue orders by priority", PackedActionQueue.typeOf(queue.poll())
+                == BattleAction.ActionType.DEFEND.ordinal());
+            test("Packed queue keeps FIFO on ties", PackedActionQueue.actorOf(queue.poll()) == BattleEvent.ENEMY);
+            
+            int turns = 0;
+            while (!battle.isBattleEnded() && turns < 500) {
+                turns++;
+                battle.queuePacked(battle.encodeAction(BattleEvent.PLAYER, BattleAction.ActionType.ATTACK, null));
+                battle.queuePacked(battle.generateEnemyActionCode());
+                battle.processAllPacked();
+            }
+            test("Packed battle finishes", battle.isBattleEnded() && battle.getWinner() != null);
+        } catch (Exception e) {
+            test("Packed actions (exception: " + e.getMessage() + ")", false);
+        }
+    }
+    
+    private static void testMonteCarloPlanner() {
+        System.out.println("\n--- Testing Monte Carlo Planner ---");
+        
+        // הקוסם יכול לסיים את הקרב בכדור אש אחד, והתקפה רגילה כמעט לא עושה נזק
+        Warrior player = new Warrior("Wounded Hero");
+        player.setCurrentHealth(25);
+        Mage enemy = new Mage("Planner Mage");
+        
+        CombatSnapshot snapshot = CombatSnapshot.capture(player, enemy);
+        CombatSnapshot copy = snapshot.copy();
+        copy.apply(BattleEvent.ENEMY, BattleAction.ActionType.SPECIAL, GameRandom.seeded(1));
+        test("Snapshot copy is independent", snapshot.getHealth(BattleEvent.PLAYER) == 25
+            && copy.getHealth(BattleEvent.PLAYER) == 0 && player.getCurrentHealth() == 25);
+        
+        MonteCarloPlanner planner = new MonteCarloPlanner();
+        BattleAction.ActionType choice = planner.choose(snapshot, BattleEvent.ENEMY);
+        test("Planner picks the finishing special", choice == BattleAction.ActionType.SPECIAL);
+        test("Planner stays near its time budget", planner.getLastRollouts() > 0
+            && planner.getLastElapsedNanos() < 10 * planner.getBudgetNanos());
+        
+        BattleSystem battle = new BattleSystem(player, enemy, false);
+        battle.setEnemyPlanner(planner);
+        test("BattleSystem uses enemy planner",
+            battle.generateEnemyAction().getActionType() == BattleAction.ActionType.SPECIAL);
+    }
+    
+    private static void testBattleReplay() {
+        System.out.println("\n--- Testing Battle Replay ---");
+        
+        try {
+            Archer player = new Archer("Replay Archer");
+            player.addItem(new Potion("Health Potion", "Heals", 10, Item.ItemRarity.COMMON,
+                Potion.PotionType.HEALTH, 30, 1));
+            Warrior enemy = new Warrior("Replay Warrior");
+            
+            java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+            BattleJournal journal = new BattleJournal(bytes, 77L);
+            BattleSystem battle = new BattleSystem(player, enemy, new BattleLog(0), null, journal.createRandom());
+            battle.setJournal(journal);
+            
+            boolean usedPotion = false;
+            while (!battle.isBattleEnded()) {
+                if (!usedPotion && player.getCurrentHealth() < 50) {
+                    battle.queuePlayerItemAction("Health Potion");
+                    usedPotion = true;
+                } else {
+                    battle.queuePlayerAction(BattleAction.ActionType.SPECIAL);
+                }
+                battle.queueAction(battle.generateEnemyAction());
+                battle.processAllActions();
+            }
+            journal.close();
+            test("Journal is compact", bytes.size() < 64 + 4 * battle.getTurn());
+            
+            Archer replayPlayer = new Archer("Replay Archer");
+            replayPlayer.addItem(new Potion("Health Potion", "Heals", 10, Item.ItemRarity.COMMON,
+                Potion.PotionType.HEALTH, 30, 1));
+            BattleReplay.Result result = BattleReplay.replay(
+                new java.io.ByteArrayInputStream(bytes.toByteArray()), replayPlayer, new Warrior("Replay Warrior"));
+            test("Replay reproduces the battle", result.matchesRecording()
+                && result.getActions() == battle.getTurn()
+                && replayPlayer.getCurrentHealth() == player.getCurrentHealth());
+            
+            boolean rejected = false;
+            try {
+                BattleReplay.replay(new java.io.ByteArrayInputStream(bytes.toByteArray()),
+                    new Mage("Wrong"), new Warrior("Replay Warrior"));
+            } catch (IllegalArgumentException e) {
+                rejected = true;
+            }
+            test("Replay rejects different combatants", rejected);
+            
+            boolean outOfRange = false;
+            try {
+                PackedActionQueue.encode(0, 1, BattleAction.ActionType.ATTACK, PackedActionQueue.MAX_PRIORITY + 1, 0,
+                    PackedActionQueue.NO_ITEM);
+            } catch (IllegalArgumentException e) {
+                outOfRange = true;
+            }
+            test("Priorities outside the packed range are rejected", outOfRange);
+            
+            Warrior mixedPlayer = new Warrior("Mixed Warrior");
+            java.io.ByteArrayOutputStream mixedBytes = new java.io.ByteArrayOutputStream();
+            BattleJournal mixedJournal = new BattleJournal(mixedBytes, 78L);
+            BattleSystem mixed = new BattleSystem(mixedPlayer, new Mage("Mixed Mage"), new BattleLog(0), null,
+                mixedJournal.createRandom());
+            mixed.setJournal(mixedJournal);
+            for (int i = 0; i < 60; i++) {
+                BattleAction attack = new BattleAction(mixedPlayer, mixed.getEnemy(), BattleAction.ActionType.ATTACK);
+                attack.setPriority(1000);
+                mixed.queueAction(attack);
+            }
+            while (mixed.processNextEvent() != null) {
+                if (!mixed.isBattleEnded()) {
+                    mixed.queuePacked(mixed.generateEnemyActionCode());
+                    mixed.processNextPacked();
+                }
+            }
+            mixedJournal.close();
+            BattleReplay.Result mixedResult = BattleReplay.replay(new java.io.ByteArrayInputStream(mixedBytes.toByteArray()),
+                new Warrior("Mixed Warrior"), new Mage("Mixed Mage"));
+            test("Mixed-queue journal with custom priority replays", mixed.isBattleEnded()
+                && mixed.getQueueSize() > 0 && mixedResult.matchesRecording());
+        } catch (Exception e) {
+            test("Battle replay (exception: " + e + ")", false);
+        }
+    }
+    
+    private static void testBattleRuntime() {
+        System.out.println("\n--- Testing Battle Runtime ---");
+        
+        try (BattleRuntime runtime = new BattleRuntime()) {
+            ArrayList<BattleRuntime.Session> sessions = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                sessions.add(runtime.startBattle(new Warrior("Runtime Hero " + i), new Mage("Runtime Mage " + i),
+                    GameRandom.stream(11, i)));
+            }
+            test("Runtime counts active battles", runtime.getActiveBattles() == 500);
+            
+            boolean running = true;
+            while (running) {
+                running = false;
+                for (BattleRuntime.Session session : sessions) {
+                    if (!session.isEnded()) {
+                        running = true;
+                        session.submit(BattleAction.ActionType.ATTACK, 1, java.util.concurrent.TimeUnit.SECONDS);
+                    }
+                }
+            }
+            boolean allFinished = true;
+            for (BattleRuntime.Session session : sessions) {
+                Character winner = session.getResult().get(5, java.util.concurrent.TimeUnit.SECONDS);
+                allFinished &= winner != null;
+            }
+            test("Runtime finishes all battles", allFinished && runtime.getActiveBattles() == 0
+                && runtime.getCompletedBattles() == 500);
+            test("Runtime records turn latency", runtime.getTurnLatency().getCount() == runtime.getTurnsProcessed()
+                && runtime.getTurnLatencyPercentile(0.99) >= runtime.getTurnLatencyPercentile(0.5));
+        } catch (Exception e) {
+            test("Battle runtime (exception: " + e + ")", false);
+        }
+        
+        // backpressure: המאגר תקוע, אז התור של הקרב מתמלא
+        java.util.concurrent.ExecutorService stalled = java.util.concurrent.Executors.newSingleThreadExecutor();
+        java.util.concurrent.CountDownLatch gate = new java.util.concurrent.CountDownLatch(1);
+        stalled.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        BattleRuntime runtime = new BattleRuntime(stalled, 2);
+        BattleRuntime.Session session = runtime.startBattle(new Warrior("Flooder"), new Mage("Target"), null);
+        boolean accepted = session.submit(BattleAction.ActionType.DEFEND) && session.submit(BattleAction.ActionType.DEFEND);
+        test("Runtime applies backpressure", accepted && !session.submit(BattleAction.ActionType.DEFEND)
+            && runtime.getRejectedCommands() == 1);
+        gate.countDown();
+        stalled.shutdown();
+        
+        try (BattleRuntime failing = new BattleRuntime()) {
+            Mage brittle = new Mage("Brittle") {
+                @Override
+                public void takeDamage(int damage) {
+                    throw new IllegalStateException("broken target");
+                }
+            };
+            BattleRuntime.Session broken = failing.startBattle(new Warrior("Breaker"), brittle, GameRandom.seeded(5));
+            for (int i = 0; i < 100 && !broken.isEnded(); i++) {
+                broken.submit(BattleAction.ActionType.ATTACK, 1, java.util.concurrent.TimeUnit.SECONDS);
+            }
+            boolean failed = false;
+            try {
+                broken.getResult().get(5, java.util.concurrent.TimeUnit.SECONDS);
+            } catch (java.util.concurrent.ExecutionException e) {
+                failed = e.getCause() instanceof IllegalStateException;
+            }
+            test("Runtime reports a failed battle", failed && failing.getActiveBattles() == 0
+                && !broken.submit(BattleAction.ActionType.ATTACK));
+        } catch (Exception e) {
+            test("Runtime failure (exception: " + e + ")", false);
+        }
+        
+        BattleRuntime closing = new BattleRuntime();
+        BattleRuntime.Session open = closing.startBattle(new Warrior("Waiting"), new Mage("Idle"), null);
+        closing.close();
+        test("Closing the runtime cancels open battles", open.getResult().isCancelled() && open.isEnded()
+            && !open.submit(BattleAction.ActionType.ATTACK) && closing.getActiveBattles() == 0);
+    }
+    
+    private static void testBattleListener() {
+        System.out.println("\n--- Testing Battle Listener ---");
+        
+        try {
+            Warrior player = new Warrior("Listener Hero");
+            Mage enemy = new Mage("Listener Mage");
+            BattleSystem battle = new BattleSystem(player, enemy, new BattleLog(0), null, GameRandom.seeded(9));
+            
+            ArrayList<BattleAction> batch = new ArrayList<>();
+            batch.add(new BattleAction(player, enemy, BattleAction.ActionType.ATTACK));
+            batch.add(new BattleAction(enemy, player, BattleAction.ActionType.DEFEND));
+            batch.add(new BattleAction(player, enemy, BattleAction.ActionType.ATTACK));
+            battle.queueActions(batch);
+            test("queueActions adds the whole batch", battle.getQueueSize() == 3);
+            
+            final ArrayList<BattleEvent> seen = new ArrayList<>();
+            int processed = battle.processAllActions(new BattleListener() {
+                @Override
+                public void onEvent(BattleEvent event) {
+                    seen.add(event);
+                }
+            });
+            test("Listener receives every event in order", processed == 3 && seen.size() == 3
+                && seen.get(0).getActionType() == BattleAction.ActionType.DEFEND);
+            
+            battle.queuePlayerAction(BattleAction.ActionType.ATTACK);
+            test("Drain without listener", battle.processAllActions(null) == 1 && battle.getTurn() == 4);
+            
+            player.takeDamage(1000);
+            battle.queueAction(new BattleAction(enemy, player, BattleAction.ActionType.ATTACK));
+            battle.processAllActions(null);
+            boolean rejected = false;
+            try {
+                battle.queueActions(batch);
+            } catch (InvalidActionException e) {
+                rejected = true;
+            }
+            test("queueActions rejects ended battle", rejected && battle.getQueueSize() == 0);
+        } catch (InvalidActionException e) {
+            test("Battle listener (exception: " + e.getMessage() + ")", false);
+        }
+    }
+    
+    private static void testActionHistory() {
+        System.out.println("\n--- Testing Action History ---");
+        
+        try {
+            Warrior player = new Warrior("History Hero");
+            Warrior enemy = new Warrior("History Foe");
+            BattleSystem battle = new BattleSystem(player, enemy, new BattleLog(0), null, GameRandom.seeded(4));
+            battle.setHistory(new ActionHistory());
+            
+            battle.queuePlayerAction(BattleAction.ActionType.DEFEND);
+            battle.queueAction(new BattleAction(enemy, player, BattleAction.ActionType.ATTACK));
+            battle.processAllActions(null);
+            battle.queuePacked(battle.encodeAction(BattleEvent.PLAYER, BattleAction.ActionType.ATTACK, null));
+            battle.queuePacked(battle.encodeAction(BattleEvent.ENEMY, BattleAction.ActionType.DEFEND, null));
+            battle.processAllPacked();
+            
+            ActionHistory history = battle.getHistory();
+            test("History records both queue paths", history.size() == 4);
+            test("History counts by type", history.countByType(BattleAction.ActionType.DEFEND) == 2
+                && history.countByType(BattleAction.ActionType.FLEE) == 0);
+            test("History by actor and type", history.count(player, BattleAction.ActionType.ATTACK) == 1
+                && history.getByActorAndType(enemy, BattleAction.ActionType.DEFEND).size() == 1
+                && history.getByActor(player).size() == 2);
+            test("History filter fallback", history.filter(new BattleSystem.ActionFilter() {
+                @Override
+                public boolean test(BattleAction action) {
+                    return action.getActor() == enemy;
+                }
+            }).size() == 2);
+        } catch (InvalidActionException e) {
+            test("Action history (exception: " + e.getMessage() + ")", false);
+        }
+    }
+    
+    private static void testCombatMetrics() {
+        System.out.println("\n--- Testing Combat Metrics ---");
+        
+        try {
+            CombatMetrics metrics = new CombatMetrics();
+            int enemyHealthLost = 0;
+            for (int i = 0; i < 2; i++) {
+                Warrior player = new Warrior("Metrics Hero");
+                Mage enemy = new Mage("Metrics Foe");
+                BattleSystem battle = new BattleSystem(player, enemy, new BattleLog(0), null, GameRandom.seeded(15 + i));
+                battle.setMetrics(metrics);
+                battle.queuePlayerAction(BattleAction.ActionType.FLEE);
+                battle.processAllActions(null);
+                while (!battle.isBattleEnded()) {
+                    battle.queuePlayerAction(BattleAction.ActionType.ATTACK);
+                    battle.processAllActions(null);
+                }
+                enemyHealthLost += enemy.getMaxHealth() - enemy.getCurrentHealth();
+            }
+            
+            CombatMetrics.Snapshot snapshot = metrics.snapshot();
+            long attacks = snapshot.get(CharacterClass.WARRIOR, CombatMetrics.Counter.ATTACKS);
+            test("Metrics count attacks across battles", attacks > 0 && snapshot.getHistogram(
+                CharacterClass.WARRIOR, CombatMetrics.Distribution.HIT_DAMAGE).getCount() == attacks);
+            test("Metrics damage dealt matches damage taken",
+                snapshot.get(CharacterClass.WARRIOR, CombatMetrics.Counter.DAMAGE_DEALT) == enemyHealthLost
+                && snapshot.get(CharacterClass.MAGE, CombatMetrics.Counter.DAMAGE_TAKEN) == enemyHealthLost);
+            test("Metrics count flee attempts", snapshot.get(CharacterClass.WARRIOR,
+                CombatMetrics.Counter.FLEE_ATTEMPTS) == 2);
+            long kills = snapshot.get(CharacterClass.WARRIOR, CombatMetrics.Counter.KILLS)
+                + snapshot.get(CharacterClass.WARRIOR, CombatMetrics.Counter.FLEE_SUCCESSES);
+            test("Metrics count each battle end once", kills == 2
+                && snapshot.get(CharacterClass.MAGE, CombatMetrics.Counter.DEATHS)
+                    == snapshot.get(CharacterClass.WARRIOR, CombatMetrics.Counter.KILLS));
+            HashMap<String, Long> exported = snapshot.toMap();
+            test("Metrics export", exported.get("warrior.attacks") == attacks
+                && exported.containsKey("warrior.turns_to_kill.p90"));
+        } catch (InvalidActionException e) {
+            test("Combat metrics (exception: " + e.getMessage() + ")", false);
+        }
+    }
+    
+    private static void testStatusEffects() {
+        System.out.println("\n--- Testing Status Effects ---");
+        
+        Warrior warrior = new Warrior("Buffed");
+        int strength = warrior.getStrength();
+        int defense = warrior.getTotalDefense();
+        warrior.addStatusEffect("Rage", StatusEffect.Stat.STRENGTH, 5, 1);
+        warrior.addStatusEffect("Might", StatusEffect.Stat.STRENGTH, 3, 2);
+        warrior.addStatusEffect("Shield", StatusEffect.Stat.DEFENSE, 10, 2);
+        test("Effects stack", warrior.getStrength() == strength + 8
+            && warrior.getTotalDefense() == defense + 10 && warrior.getStatusEffectCount() == 3);
+        test("Defense effect reduces damage", Math.abs(warrior.getDamageReduction() - 0.10) < 1e-9);
+        
+        warrior.tickStatusEffects();
+        test("Effect lasts its duration", warrior.getStrength() == strength + 8);
+        test("Shortest effect expires first", warrior.tickStatusEffects() == 1
+            && warrior.getStrength() == strength + 3);
+        warrior.tickStatusEffects();
+        test("All effects expire", warrior.getStrength() == strength
+            && warrior.getTotalDefense() == defense && warrior.getDamageReduction() == 0.0
+            && warrior.getStatusEffectCount() == 0);
+        
+        try {
+            Warrior player = new Warrior("Potion Drinker");
+            Warrior enemy = new Warrior("Dummy");
+            player.addItem(new Potion("Giant Strength", "+10 strength", 30, Item.ItemRarity.COMMON,
+                Potion.PotionType.STRENGTH, 10, 1));
+            BattleSystem battle = new BattleSystem(player, enemy, new BattleLog(0), null, GameRandom.seeded(16));
+            battle.queuePlayerItemAction("Giant Strength");
+            battle.processAllActions(null);
+            test("Strength potion applies effect", player.getStrength() == strength + 10);
+            for (int i = 0; i < Potion.EFFECT_DURATION - 1; i++) {
+                battle.queuePlayerAction(BattleAction.ActionType.DEFEND);
+            }
+            battle.processAllActions(null);
+            boolean activeBeforeLast = player.getStrength() == strength + 10;
+            battle.queuePlayerAction(BattleAction.ActionType.DEFEND);
+            battle.processAllActions(null);
+            test("Potion effect expires after its turns", activeBeforeLast && player.getStrength() == strength);
+        } catch (Exception e) {
+            test("Status effects in battle (exception: " + e.getMessage() + ")", false);
+        }
+    }
+    
+    private static void testCharacterStore() {
+        System.out.println("\n--- Testing Character Store ---");
+        
+        CharacterStore store = new CharacterStore(2);
+        Mage reference = new Mage("Reference");
+        reference.gainExperience(100 + 200);
+        int goblin = store.add(CharacterClass.MAGE, "Goblin Shaman", 3);
+        for (int i = 0; i < 100; i++) {
+            store.add(CharacterClass.WARRIOR, "Orc", 1 + i % 5);
+        }
+        CharacterStore.View view = store.view(goblin);
+        test("Store grows and keeps rows", store.size() == 101 && store.getCapacity() >= 101);
+        test("Store stats match leveled character", view.getLevel() == 3
+            && view.getMaxHealth() == reference.getMaxHealth() && view.getStrength() == reference.getBaseStrength()
+            && view.getDefense() == reference.getBaseDefense() && view.getMaxMana() == reference.getMaxMana());
+        
+        view.takeDamage(30);
+        store.view(1).takeDamage(10000);
+        store.regenerateHealth(10);
+        test("Bulk regeneration skips the dead", view.getCurrentHealth() == view.getMaxHealth() - 20
+            && !store.view(1).isAlive() && store.countAlive() == 100);
+        
+        Character materialized = store.toCharacter(goblin);
+        test("toCharacter copies the row", materialized instanceof Mage && materialized.getLevel() == 3
+            && materialized.getCurrentHealth() == view.getCurrentHealth()
+            && materialized.getBaseStrength() == view.getStrength());
+        materialized.addGold(25);
+        store.update(goblin, materialized);
+        test("update writes back", view.getGold() == 25);
+        
+        test("removeDead compacts", store.removeDead() == 1 && store.size() == 100
+            && store.view(1).getName().equals("Orc") && store.countAlive(CharacterClass.WARRIOR) == 99);
+        
+        CharacterStore leveled = new CharacterStore(2);
+        Mage storedMage = (Mage) leveled.toCharacter(leveled.add(CharacterClass.MAGE, "Archmage", 10));
+        Archer storedArcher = (Archer) leveled.toCharacter(leveled.add(CharacterClass.ARCHER, "Ranger", 10));
+        Mage directMage = (Mage) CharacterClass.MAGE.create("Archmage", 10);
+        Archer directArcher = (Archer) CharacterClass.ARCHER.create("Ranger", 10);
+        test("toCharacter scales class stats with level", storedMage.getSpellPower() == directMage.getSpellPower()
+            && storedArcher.getCriticalChance() == directArcher.getCriticalChance()
+            && storedMage.getMaxMana() == directMage.getMaxMana());
+    }
+    
+    private static void testLoadoutOptimizer() {
+        System.out.println("\n--- Testing Loadout Optimizer ---");
+        
+        java.util.random.RandomGenerator rnd = GameRandom.seeded(18);
+        ArrayList<Item> small = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Armor.ArmorSlot slot = Armor.ArmorSlot.values()[i % 2];
+            small.add(new Armor("Piece " + i, "", 1 + rnd.nextInt(10), 10, Item.ItemRarity.COMMON,
+                20 + rnd.nextInt(150), slot));
+        }
+        int maxWeight = 9;
+        LoadoutOptimizer.Loadout loadout = new LoadoutOptimizer(LoadoutOptimizer.Objective.DAMAGE_REDUCTION, maxWeight)
+            .optimize(small);
+        double bruteForce = 0;
+        for (Item head : withNone(small, Armor.ArmorSlot.HEAD)) {
+            for (Item chest : withNone(small, Armor.ArmorSlot.CHEST)) {
+                int weight = (head == null ? 0 : head.getWeight()) + (chest == null ? 0 : chest.getWeight());
+                if (weight <= maxWeight) {
+                    double reduction = (head == null ? 0 : ((Armor) head).calculateDamageReduction())
+                        + (chest == null ? 0 : ((Armor) chest).calculateDamageReduction());
+                    bruteForce = Math.max(bruteForce, 100 * Math.min(reduction, 0.75));
+                }
+            }
+        }
+        test("Optimizer matches brute force under weight limit", Math.abs(loadout.getScore() - bruteForce) < 1e-9
+            && loadout.getWeight() <= maxWeight);
+        
+        ArrayList<Item> bank = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            if (i % 6 == 0) {
+                int min = 1 + rnd.nextInt(20);
+                bank.add(new Weapon("Blade " + i, "", 1 + rnd.nextInt(15), 10, Item.ItemRarity.COMMON,
+                    min, min + rnd.nextInt(20), Weapon.WeaponType.SWORD));
+            } else {
+                bank.add(new Armor("Bank " + i, "", 1 + rnd.nextInt(15), 10, Item.ItemRarity.COMMON,
+                    5 + rnd.nextInt(60), Armor.ArmorSlot.values()[i % 5]));
+            }
+        }
+        LoadoutOptimizer.Loadout best = new LoadoutOptimizer(LoadoutOptimizer.Objective.BALANCED, 40).optimize(bank);
+        test("Optimizer handles bank-sized inventory", best.getWeapon() != null && best.getWeight() <= 40
+            && best.getElapsedNanos() < 1_000_000_000L);
+        
+        try {
+            Warrior warrior = new Warrior("Outfitted");
+            Weapon stick = new Weapon("Stick", "", 1, 1, Item.ItemRarity.COMMON, 1, 2, Weapon.WeaponType.SWORD);
+            Weapon axe = new Weapon("Axe", "", 3, 1, Item.ItemRarity.COMMON, 9, 12, Weapon.WeaponType.AXE);
+            Armor helm = new Armor("Helm", "", 2, 1, Item.ItemRarity.COMMON, 40, Armor.ArmorSlot.HEAD);
+            warrior.addItem(stick);
+            warrior.equipWeapon(stick);
+            warrior.addItem(axe);
+            warrior.addItem(helm);
+            new LoadoutOptimizer(LoadoutOptimizer.Objective.BALANCED).optimize(warrior).apply(warrior);
+            test("Optimizer equips the best loadout", warrior.getEquippedWeapon() == axe
+                && warrior.getEquippedArmor().get(Armor.ArmorSlot.HEAD) == helm
+                && warrior.getInventory().contains(stick));
+        } catch (Exception e) {
+            test("Loadout apply (exception: " + e.getMessage() + ")", false);
+        }
+    }
+    
+    private static ArrayList<Item> withNone(ArrayList<Item> items, Armor.ArmorSlot slot) {
+        ArrayList<Item> result = new ArrayList<>();
+        result.add(null);
+        for (Item item : items) {
+            if (((Armor) item).getSlot() == slot) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+    
+    private static void testBulkExperience() {
+        System.out.println("\n--- Testing Bulk Experience ---");
+        
+        Warrior warrior = new Warrior("Veteran");
+        warrior.gainExperience(350);
+        test("Bulk gain keeps leftover experience", warrior.getLevel() == 3 && warrior.getExperience() == 50
+            && warrior.getMaxHealth() == 150 + 2 * 20);
+        
+        boolean inverse = true;
+        for (int level = 1; level <= 3000; level++) {
+            long total = Character.cumulativeExperience(level);
+            inverse &= Character.levelForExperience(total) == level
+                && (level == 1 || Character.levelForExperience(total - 1) == level - 1);
+        }
+        test("Level curve inverse", inverse && Character.cumulativeExperience(50) == 100L * 50 * 49 / 2);
+        
+        Archer stepwise = new Archer("Stepwise");
+        for (int i = 0; i < 37; i++) {
+            stepwise.gainExperience(997);
+        }
+        Archer lump = new Archer("Lump");
+        lump.gainExperience(37 * 997);
+        test("Incremental and lump grants agree", stepwise.getLevel() == lump.getLevel()
+            && stepwise.getExperience() == lump.getExperience()
+            && stepwise.getMaxHealth() == lump.getMaxHealth() && stepwise.getBaseStrength() == lump.getBaseStrength());
+        
+        Character boss = CharacterClass.MAGE.create("Lich", 50);
+        test("Spawn at level", boss.getLevel() == 50 && boss.getExperience() == 0
+            && boss.getMaxMana() == new Mage("Base").getMaxMana() + 49 * 25
+            && boss.getCurrentHealth() == boss.getMaxHealth());
+    }
+    
+    private static void testEnemyTemplates() {
+        System.out.println("\n--- Testing Enemy Templates ---");
+        
+        EnemyTemplateRegistry registry = new EnemyTemplateRegistry(true);
+        ArrayList<Character> wave = registry.spawnWave(CharacterClass.ARCHER, 20, 50);
+        Character reference = CharacterClass.ARCHER.create("Reference", 20);
+        Character first = wave.get(0);
+        Character second = wave.get(1);
+        test("Spawned enemy matches leveled character", first instanceof Archer && first.getLevel() == 20
+            && first.getMaxHealth() == reference.getMaxHealth() && first.getBaseStrength() == reference.getBaseStrength());
+        test("Spawns share immutable parts", first != second && first.getName() == second.getName()
+            && first.getEquippedWeapon() != null && first.getEquippedWeapon() == second.getEquippedWeapon());
+        
+        first.takeDamage(40);
+        ((Archer) first).useSpecialAbility(second);
+        test("Spawns have independent state", second.getCurrentHealth() < second.getMaxHealth()
+            && first.getCurrentHealth() == first.getMaxHealth() - 40
+            && ((Archer) second).getArrows() == ((Archer) registry.spawn(CharacterClass.ARCHER, 20)).getArrows()
+            && ((Archer) first).getArrows() < ((Archer) second).getArrows());
+        
+        registry.spawn(CharacterClass.WARRIOR, 1);
+        registry.spawn(CharacterClass.WARRIOR, 1);
+        test("Templates are built once", registry.getTemplateCount() == 2);
+    }
+    
+    private static void testReadOnlyViews() {
+        System.out.println("\n--- Testing Read-Only Views ---");
+        
+        try {
+            Warrior warrior = new Warrior("Viewer");
+            java.util.List<Item> inventory = warrior.getInventoryView();
+            Potion potion = new Potion("Tonic", "", 5, Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 10, 1);
+            warrior.addItem(potion);
+            test("Inventory view is live", inventory.size() == 1 && warrior.findItem("Tonic") == potion
+                && warrior.findItem("Missing") == null);
+            boolean rejected = false;
+            try {
+                inventory.clear();
+            } catch (UnsupportedOperationException e) {
+                rejected = true;
+            }
+            test("Inventory view is read-only", rejected && warrior.getInventorySize() == 1);
+            
+            Armor helm = new Armor("View Helm", "", 2, 10, Item.ItemRarity.COMMON, 5, Armor.ArmorSlot.HEAD);
+            java.util.Map<Armor.ArmorSlot, Armor> armor = warrior.getEquippedArmorView();
+            warrior.addItem(helm);
+            warrior.equipArmor(helm);
+            test("Equipped armor view is live", armor.get(Armor.ArmorSlot.HEAD) == helm);
+            
+            DungeonMap map = new DungeonMap();
+            map.addLocation(new GameLocation("a", "A", "", 1));
+            map.addLocation(new GameLocation("b", "B", "", 2));
+            java.util.Map<String, GameLocation> locations = map.getLocationsView();
+            map.addLocation(new GameLocation("c", "C", "", 3));
+            map.connectLocations("a", "c");
+            test("Map and connection views are live", locations.size() == 3
+                && map.getLocation("a").getConnectedLocationIdsView().contains("c")
+                && map.getLocation("c").getConnectionCount() == 1);
+        } catch (Exception e) {
+            test("Read-only views (exception: " + e.getMessage() + ")", false);
+        }
+    }
+    
+    private static void testIndexedInventory() {
+        System.out.println("\n--- Testing Indexed Inventory ---");
+        
+        try {
+            Inventory inventory = new Inventory();
+            for (int i = 0; i < 20000; i++) {
+                Item.ItemRarity rarity = i % 2 == 0 ? Item.ItemRarity.COMMON : Item.ItemRarity.RARE;
+                if (i % 3 == 0) {
+                    inventory.add(new Potion("Potion " + i, "", 5, rarity, Potion.PotionType.HEALTH, 10, 1));
+                } else {
+                    inventory.add(new Weapon("Blade " + i, "", 1, 5, rarity, 1, 2, Weapon.WeaponType.SWORD));
+                }
+            }
+            test("Name lookup finds the item", inventory.findFirst("Blade 19999") != null
+                && inventory.findFirst("Blade 20000") == null);
+            test("Rarity and type buckets", inventory.countByRarity(Item.ItemRarity.RARE) == 10000
+                && inventory.findByType(Potion.class).size() == 6667
+                && inventory.findByType(Item.class).size() == 20000);
+            
+            for (int i = 0; i < 20000; i += 2) {
+                inventory.removeFirst(i % 3 == 0 ? "Potion " + i : "Blade " + i);
+            }
+            test("Removal keeps indexes in sync", inventory.size() == 10000
+                && inventory.countByRarity(Item.ItemRarity.COMMON) == 0
+                && !inventory.containsName("Blade 2") && inventory.containsName("Potion 3"));
+            test("Positions stay in insertion order", inventory.get(0).getName().equals("Blade 1")
+                && inventory.get(9999).getName().equals("Blade 19999"));
+            
+            inventory.removeFirst("Blade 1");
+            inventory.removeFirst("Potion 9");
+            int visited = 0;
+            boolean ordered = true;
+            java.util.Iterator<Item> open = inventory.iterator();
+            for (int i = 0; open.hasNext(); i++) {
+                Item next = open.next();
+                ordered &= next == inventory.get(i) && inventory.get(i / 2) != null;
+                visited++;
+            }
+            test("Positional reads do not disturb an open iterator", ordered && visited == 9998
+                && inventory.get(0).getName().equals("Potion 3"));
+            
+            boolean failFast = false;
+            try {
+                for (Item item : inventory) {
+                    inventory.remove(item);
+                }
+            } catch (java.util.ConcurrentModificationException e) {
+                failFast = true;
+            }
+            test("Iterator fails fast on modification", failFast && inventory.size() == 9997);
+        } catch (Exception e) {
+            test("Indexed inventory (exception: " + e.getMessage() + ")", false);
+        }
+    }
+    
+    private static void testItemStacking() {
+        System.out.println("\n--- Testing Item Stacking ---");
+        
+        try {
+            Warrior warrior = new Warrior("Stacker");
+            for (int i = 0; i < 10; i++) {
+                warrior.addItem(new Potion("Health Potion", "", 10, Item.ItemRarity.COMMON,
+                    Potion.PotionType.HEALTH, 20, 1));
+            }
+            warrior.addItem(new Potion("Health Potion", "", 10, Item.ItemRarity.RARE,
+                Potion.PotionType.HEALTH, 20, 1));
+            test("Identical potions share one slot", warrior.getInventorySize() == 2
+                && warrior.getItemCount("Health Potion") == 11
+                && warrior.getInventoryStacks().get(0).getCount() == 10);
+            
+            warrior.takeDamage(50);
+            Mage dummy = new Mage("Dummy");
+            BattleSystem battle = new BattleSystem(warrior, dummy);
+            battle.queueAction(new BattleAction(warrior, dummy, BattleAction.ActionType.USE_ITEM, "Health Potion"));
+            battle.processNextAction();
+            Potion stacked = (Potion) warrior.findItem("Health Potion");
+            test("Using a potion splits it off the stack", warrior.getItemCount("Health Potion") == 11
+                && warrior.getInventoryStacks().get(0).getCount() == 9
+                && stacked.getRemainingUses() == 1 && warrior.getInventorySize() == 3);
+            
+            ItemStack taken = warrior.removeItems("Health Potion", 4);
+            ItemStack rest = taken.split(1);
+            test("Split and merge stacks", taken.getCount() == 3 && rest.getCount() == 1
+                && rest.getItem() != taken.getItem() && warrior.getItemCount("Health Potion") == 7);
+            taken.merge(rest);
+            warrior.addItems(taken);
+            test("Merged stack rejoins its entry", taken.getCount() == 4
+                && warrior.getInventoryStacks().get(0).getCount() == 9);
+            
+            GameLocation cave = new GameLocation("cave", "Cave", "", 1);
+            Potion mana = new Potion("Mana Potion", "", 10, Item.ItemRarity.COMMON, Potion.PotionType.MANA, 20, 1);
+            cave.addLoot(mana, 5);
+            cave.addLoot(mana.copy());
+            cave.addLoot(new Weapon("Club", "", 3, 5, Item.ItemRarity.COMMON, 1, 3, Weapon.WeaponType.AXE));
+            java.util.ArrayList<Item> collected = cave.collectAllLoot();
+            test("Loot stacks and unpacks on collect", collected.size() == 7 && !cave.hasLoot()
+                && collected.get(0) != collected.get(1));
+            
+            Warrior seller = new Warrior("Seller");
+            seller.addItem(new Potion("Elixir", "", 10, Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 20, 1), 2);
+            Shop shop = new Shop("Apothecary");
+            shop.sellItem(seller, "Elixir");
+            seller.takeDamage(40);
+            seller.useItem("Elixir");
+            Potion shopElixir = (Potion) shop.getAvailableItems().get(0);
+            test("Selling from a stack keeps the shop's copy independent",
+                shopElixir.getRemainingUses() == shopElixir.getMaxUses() && shopElixir.isSellable());
+            
+            Warrior buyer = new Warrior("Buyer");
+            buyer.addItem(new Potion("Health Potion", "Heals 20", 10, Item.ItemRarity.COMMON,
+                Potion.PotionType.HEALTH, 20, 1));
+            Shop store = new Shop("General Store");
+            store.addItemToShop(new Potion("Health Potion", "Heals 50", 20, Item.ItemRarity.COMMON,
+                Potion.PotionType.HEALTH, 50, 1), 1);
+            buyer.addGold(100);
+            store.buyItem(buyer, "Health Potion");
+            test("Potions with different potency keep separate stacks", buyer.getInventorySize() == 2
+                && buyer.getItemCount("Health Potion") == 2);
+            java.util.List<ItemStack> bought = buyer.getInventoryStacks();
+            test("Bought potion keeps its own potency",
+                ((Potion) bought.get(0).getItem()).getPotency() == 20
+                && ((Potion) bought.get(1).getItem()).getPotency() == 50);
+        } catch (Exception e) {
+            test("Item stacking (exception: " + e.getMessage() + ")", false);
+        }
+    }
+    
+    private static void testCarryWeight() {
+        System.out.println("\n--- Testing Carry Weight ---");
+        
+        try {
+            Warrior warrior = new Warrior("Porter");
+            Weapon hammer = new Weapon("Hammer", "", 8, 40, Item.ItemRarity.COMMON, 3, 6, Weapon.WeaponType.AXE);
+            warrior.addItem(hammer);
+            warrior.equipWeapon(hammer);
+            warrior.addItem(new Potion("Tonic", "", 10, Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 10, 1), 6);
+            test("Carried weight includes equipment", warrior.getCarriedWeight() == 14);
+            
+            warrior.setMaxCarryWeight(15);
+            boolean overweight = false;
+            try {
+                warrior.addItem(new Armor("Plate", "", 6, 90, Item.ItemRarity.COMMON, 20, Armor.ArmorSlot.CHEST));
+            } catch (OverweightException e) {
+                overweight = e.getMaxWeight() == 15;
+            }
+            test("Weight limit enforced", overweight && warrior.getCarriedWeight() == 14);
+            
+            GameLocation vault = new GameLocation("vault", "Vault", "", 2);
+            vault.addLoot(new Armor("Crown", "", 2, 200, Item.ItemRarity.EPIC, 5, Armor.ArmorSlot.HEAD));
+            vault.addLoot(new Armor("Anvil", "", 7, 30, Item.ItemRarity.COMMON, 1, Armor.ArmorSlot.LEGS));
+            java.util.ArrayList<ItemStack> left = vault.collectLoot(warrior);
+            test("Auto-pack keeps the most valuable load", warrior.findItem("Crown") != null
+                && warrior.getItemCount("Tonic") == 5 && warrior.findItem("Anvil") == null
+                && warrior.getCarriedWeight() == 15 && left.size() == 2 && vault.getLootCount("Tonic") == 1);
+            
+            Warrior mule = new Warrior("Mule");
+            mule.setMaxCarryWeight(3);
+            ItemStack tonics = new ItemStack(new Potion("Tonic", "", 10, Item.ItemRarity.COMMON,
+                Potion.PotionType.HEALTH, 10, 1), 5);
+            java.util.ArrayList<ItemStack> loot = new java.util.ArrayList<>();
+            loot.add(tonics);
+            java.util.ArrayList<ItemStack> unpacked = mule.pickUp(loot);
+            test("pickUp leaves the caller's stacks alone", tonics.getCount() == 5
+                && mule.getItemCount("Tonic") == 3 && unpacked.size() == 1 && unpacked.get(0) != tonics
+                && unpacked.get(0).getCount() == 2);
+            
+            int[] kept = utils.Knapsack.solve(new int[] {5, 4, 3}, new long[] {10, 40, 30}, new int[] {1, 1, 1}, 7);
+            test("Knapsack picks the best subset", kept[0] == 0 && kept[1] == 1 && kept[2] == 1);
+        } catch (Exception e) {
+            test("Carry weight (exception: " + e.getMessage() + ")", false);
+        }
+    }
+    
+    private static void testInventoryListeners() {
+        System.out.println("\n--- Testing Inventory Listeners ---");
+        
+        try {
+            Warrior warrior = new Warrior("Tracker");
+            warrior.addItem(new Weapon("Spear", "", 6, 30, Item.ItemRarity.UNCOMMON, 2, 5, Weapon.WeaponType.SWORD));
+            InventoryTotals totals = warrior.getInventoryTotals();
+            final int[] events = new int[3];
+            warrior.addInventoryListener(new InventoryListener() {
+                @Override
+                public void onInventoryChange(InventoryListener.Change change, Item item, int count) {
+                    events[change.ordinal()] += count;
+                }
+            });
+            Potion tonic = new Potion("Tonic", "", 10, Item.ItemRarity.COMMON, Potion.PotionType.HEALTH, 10, 1);
+            warrior.addItem(tonic, 3);
+            test("Totals built from existing items and kept current", totals.getItemCount() == 4
+                && totals.getTotalWeight() == 9 && totals.getTotalSellValue() == 23 + 15
+                && totals.getCount(Item.ItemRarity.COMMON) == 3 && totals.getCount(Potion.class) == 3
+                && totals.getCount(Item.class) == 4);
+            
+            warrior.takeDamage(30);
+            warrior.useItem("Tonic");
+            warrior.removeItem("Spear");
+            test("Added, removed and used events", events[0] == 4 && events[1] == 2 && events[2] == 1
+                && totals.getItemCount() == 3 && totals.getUsedCount() == 1
+                && totals.getCount(Weapon.class) == 0 && totals.getTotalWeight() == 3);
+            
+            Shop shop = new Shop("Stall");
+            shop.addItemToShop(tonic, 5);
+            warrior.addGold(100);
+            shop.buyItem(warrior, "Tonic");
+            test("Shop totals track stock", shop.getTotalValue() == 40 && shop.getTotalItemCount() == 4
+                && shop.getInventoryTotals().getCount(Potion.class) == 4);
+            boolean rejected = false;
+            try {
+                shop.addItemToShop(tonic, -2);
+            } catch (IllegalArgumentException e) {
+                rejected = true;
+            }
+            test("Shop rejects non-positive restock", rejected && shop.getItemStock("Tonic") == 4
+                && shop.getTotalItemCount() == 4);
+        } catch (Exception e) {
+            test("Inventory listeners (exception: " + e.getMessage() + ")", false);
+        }
+    }
+    
     // ============================================================
     // Utility Methods
     // ============================================================
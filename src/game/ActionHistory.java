@@ -0,0 +1,187 @@
+package game;
+
+import model.characters.Character;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * היסטוריה של פעולות קרב שבוצעו, עם אינדקסים לפי סוג פעולה ולפי מבצע.
+ * כל פעולה נשמרת ברשימה הכללית, בדלי של הסוג שלה (EnumMap) ובדלי של
+ * המבצע (ובתוכו שוב לפי סוג). לכן ספירה היא O(1), ושליפה של k פעולות היא O(k)
+ * בלי מעבר על כל ההיסטוריה. סינון לפי ActionFilter כלשהו עדיין אפשרי (מעבר מלא).
+ *
+ * הרשימות שמוחזרות הן תצוגות לקריאה בלבד של הנתונים הפנימיים (לא עותקים).
+ */
+public class ActionHistory {
+
+    private final ArrayList<BattleAction> all;
+    private final EnumMap<BattleAction.ActionType, ArrayList<BattleAction>> byType;
+    private final IdentityHashMap<Character, EnumMap<BattleAction.ActionType, ArrayList<BattleAction>>> byActorAndType;
+    private final IdentityHashMap<Character, ArrayList<BattleAction>> byActor;
+
+    public ActionHistory() {
+        this.all = new ArrayList<>();
+        this.byType = new EnumMap<>(BattleAction.ActionType.class);
+        this.byActorAndType = new IdentityHashMap<>();
+        this.byActor = new IdentityHashMap<>();
+        for (BattleAction.ActionType type : BattleAction.ActionType.values()) {
+            byType.put(type, new ArrayList<BattleAction>());
+        }
+    }
+
+    // ============================================================
+    // רישום
+    // ============================================================
+
+    /**
+     * מוסיף פעולה להיסטוריה ולכל האינדקסים. O(1).
+     *
+     * @param action הפעולה שבוצעה
+     */
+    public void record(BattleAction action) {
+        all.add(action);
+        byType.get(action.getActionType()).add(action);
+
+        ArrayList<BattleAction> actorActions = byActor.get(action.getActor());
+        if (actorActions == null) {
+            actorActions = new ArrayList<>();
+            byActor.put(action.getActor(), actorActions);
+            byActorAndType.put(action.getActor(), new EnumMap<BattleAction.ActionType, ArrayList<BattleAction>>(
+                BattleAction.ActionType.class));
+        }
+        actorActions.add(action);
+
+        EnumMap<BattleAction.ActionType, ArrayList<BattleAction>> actorTypes = byActorAndType.get(action.getActor());
+        ArrayList<BattleAction> bucket = actorTypes.get(action.getActionType());
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            actorTypes.put(action.getActionType(), bucket);
+        }
+        bucket.add(action);
+    }
+
+    public void clear() {
+        all.clear();
+        for (ArrayList<BattleAction> bucket : byType.values()) {
+            bucket.clear();
+        }
+        byActor.clear();
+        byActorAndType.clear();
+    }
+
+    // ============================================================
+    // שאילתות לפי אינדקס
+    // ============================================================
+
+    /**
+     * @return כל הפעולות לפי סדר הביצוע
+     */
+    public List<BattleAction> getAll() {
+        return Collections.unmodifiableList(all);
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    /**
+     * @param type סוג הפעולה
+     * @return כל הפעולות מהסוג הזה, לפי סדר הביצוע
+     */
+    public List<BattleAction> getByType(BattleAction.ActionType type) {
+        return Collections.unmodifiableList(byType.get(type));
+    }
+
+    /**
+     * @param type סוג הפעולה
+     * @return כמה פעולות מהסוג הזה בוצעו. O(1)
+     */
+    public int countByType(BattleAction.ActionType type) {
+        return byType.get(type).size();
+    }
+
+    /**
+     * @param actor המבצע
+     * @return כל הפעולות של המבצע, לפי סדר הביצוע
+     */
+    public List<BattleAction> getByActor(Character actor) {
+        ArrayList<BattleAction> actions = byActor.get(actor);
+        return actions == null ? Collections.<BattleAction>emptyList() : Collections.unmodifiableList(actions);
+    }
+
+    /**
+     * @param actor המבצע
+     * @return כמה פעולות המבצע ביצע. O(1)
+     */
+    public int countByActor(Character actor) {
+        ArrayList<BattleAction> actions = byActor.get(actor);
+        return actions == null ? 0 : actions.size();
+    }
+
+    /**
+     * למשל "כל ניסיונות הבריחה של X".
+     *
+     * @param actor המבצע
+     * @param type סוג הפעולה
+     * @return הפעולות מהסוג הזה של המבצע, לפי סדר הביצוע
+     */
+    public List<BattleAction> getByActorAndType(Character actor, BattleAction.ActionType type) {
+        ArrayList<BattleAction> bucket = bucketOf(actor, type);
+        return bucket == null ? Collections.<BattleAction>emptyList() : Collections.unmodifiableList(bucket);
+    }
+
+    /**
+     * @param actor המבצע
+     * @param type סוג הפעולה
+     * @return כמה פעולות מהסוג הזה המבצע ביצע. O(1)
+     */
+    public int count(Character actor, BattleAction.ActionType type) {
+        ArrayList<BattleAction> bucket = bucketOf(actor, type);
+        return bucket == null ? 0 : bucket.size();
+    }
+
+    private ArrayList<BattleAction> bucketOf(Character actor, BattleAction.ActionType type) {
+        EnumMap<BattleAction.ActionType, ArrayList<BattleAction>> actorTypes = byActorAndType.get(actor);
+        return actorTypes == null ? null : actorTypes.get(type);
+    }
+
+    // ============================================================
+    // סינון כללי (fallback)
+    // ============================================================
+
+    /**
+     * מסנן את כל ההיסטוריה לפי תנאי כלשהו - מעבר מלא, O(n).
+     *
+     * @param filter התנאי
+     * @return רשימה חדשה של הפעולות שעונות על התנאי
+     */
+    public ArrayList<BattleAction> filter(BattleSystem.ActionFilter filter) {
+        return filterList(all, filter);
+    }
+
+    /**
+     * מסנן רק את הפעולות מסוג מסוים - מעבר על הדלי של הסוג בלבד.
+     *
+     * @param type סוג הפעולה
+     * @param filter התנאי
+     * @return רשימה חדשה של הפעולות שעונות על התנאי
+     */
+    public ArrayList<BattleAction> filter(BattleAction.ActionType type, BattleSystem.ActionFilter filter) {
+        return filterList(byType.get(type), filter);
+    }
+
+    private static ArrayList<BattleAction> filterList(ArrayList<BattleAction> actions,
+                                                      BattleSystem.ActionFilter filter) {
+        ArrayList<BattleAction> result = new ArrayList<>();
+        for (BattleAction action : actions) {
+            if (filter.test(action)) {
+                result.add(action);
+            }
+        }
+        return result;
+    }
+}
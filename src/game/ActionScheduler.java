@@ -0,0 +1,163 @@
+package game;
+
+import model.characters.Character;
+
+import java.util.AbstractQueue;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * תור פעולות לפי סדר יוזמה (binary heap).
+ * הסדר: עדיפות גבוהה קודם, אחר כך יוזמה נמוכה (נשק מהיר) קודם,
+ * ובשוויון מלא - לפי סדר ההכנסה לתור.
+ * הכנסה והוצאה ב-O(log n), בלי למיין מחדש בכל סיבוב.
+ * לכל מבצע נשמר מונה של פעולות ממתינות, כך שאפשר לנקות את כל הפעולות
+ * של דמות שמתה במעבר אחד (ולדלג על המעבר אם אין לה פעולות).
+ * הסדר נקבע בהכנסה, ולכן BattleAction.setPriority נכשל כל עוד הפעולה ממתינה בתור.
+ */
+public class ActionScheduler extends AbstractQueue<BattleAction> {
+
+    /**
+     * סדר הביצוע של הפעולות.
+     */
+    public static final Comparator<BattleAction> EXECUTION_ORDER = new Comparator<BattleAction>() {
+        @Override
+        public int compare(BattleAction a1, BattleAction a2) {
+            if (a1.getPriority() != a2.getPriority()) {
+                return Integer.compare(a2.getPriority(), a1.getPriority());
+            }
+            if (a1.getInitiative() != a2.getInitiative()) {
+                return Integer.compare(a1.getInitiative(), a2.getInitiative());
+            }
+            return Long.compare(a1.getSequence(), a2.getSequence());
+        }
+    };
+
+    private final PriorityQueue<BattleAction> heap;
+    private final IdentityHashMap<Character, int[]> pendingByActor;
+    private long nextSequence;
+
+    public ActionScheduler() {
+        this.heap = new PriorityQueue<>(EXECUTION_ORDER);
+        this.pendingByActor = new IdentityHashMap<>();
+        this.nextSequence = 0;
+    }
+
+    @Override
+    public boolean offer(BattleAction action) {
+        action.setSequence(nextSequence++);
+        action.setQueued(true);
+        int[] pending = pendingByActor.get(action.getActor());
+        if (pending == null) {
+            pending = new int[1];
+            pendingByActor.put(action.getActor(), pending);
+        }
+        pending[0]++;
+        return heap.offer(action);
+    }
+
+    @Override
+    public BattleAction poll() {
+        BattleAction action = heap.poll();
+        if (action != null) {
+            onRemoved(action);
+        }
+        return action;
+    }
+
+    /**
+     * מסיר את כל הפעולות הממתינות של מבצע מסוים במעבר אחד על התור.
+     *
+     * @param actor המבצע (למשל דמות שמתה)
+     * @return מספר הפעולות שהוסרו
+     */
+    public int removeActionsOf(Character actor) {
+        int[] pending = pendingByActor.remove(actor);
+        if (pending == null || pending[0] == 0) {
+            return 0;
+        }
+        heap.removeIf(new Predicate<BattleAction>() {
+            @Override
+            public boolean test(BattleAction action) {
+                if (action.getActor() != actor) {
+                    return false;
+                }
+                action.setQueued(false);
+                return true;
+            }
+        });
+        return pending[0];
+    }
+
+    /**
+     * @param actor המבצע
+     * @return מספר הפעולות שלו שממתינות בתור
+     */
+    public int getPendingCount(Character actor) {
+        int[] pending = pendingByActor.get(actor);
+        return pending == null ? 0 : pending[0];
+    }
+
+    private void onRemoved(BattleAction action) {
+        action.setQueued(false);
+        int[] pending = pendingByActor.get(action.getActor());
+        if (pending != null && --pending[0] == 0) {
+            pendingByActor.remove(action.getActor());
+        }
+    }
+
+    @Override
+    public BattleAction peek() {
+        return heap.peek();
+    }
+
+    @Override
+    public int size() {
+        return heap.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        for (BattleAction action : heap) {
+            action.setQueued(false);
+        }
+        heap.clear();
+        pendingByActor.clear();
+    }
+
+    /**
+     * @return איטרטור על הפעולות שבתור (לא לפי סדר הביצוע)
+     */
+    @Override
+    public Iterator<BattleAction> iterator() {
+        final Iterator<BattleAction> it = heap.iterator();
+        return new Iterator<BattleAction>() {
+            private BattleAction last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public BattleAction next() {
+                last = it.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                it.remove();
+                onRemoved(last);
+            }
+        };
+    }
+}
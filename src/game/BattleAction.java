@@ -1,6 +1,7 @@
 package game;
 
 import model.characters.Character;
+import model.items.Weapon;
 
 /**
  * מחלקה המייצגת פעולת קרב.
@@ -31,6 +32,11 @@ public class BattleAction {
     private ActionType actionType;
     private String itemName; // אם הפעולה היא USE_ITEM
     private int priority; // עדיפות לביצוע (גבוה יותר = קודם)
+    private int initiative; // זמן היוזמה לפי מהירות הנשק (נמוך יותר = קודם, באותה עדיפות)
+    private long sequence; // סדר ההכנסה לתור - נקבע על ידי ActionScheduler
+    private boolean queued; // האם הפעולה ממתינה כרגע ב-ActionScheduler
+    
+    private static final int BASE_INITIATIVE = 100;
     
     public BattleAction(Character actor, Character target, ActionType actionType) {
         this.actor = actor;
@@ -38,6 +44,7 @@ public class BattleAction {
         this.actionType = actionType;
         this.itemName = null;
         this.priority = calculateDefaultPriority();
+        this.initiative = calculateInitiative();
     }
     
     public BattleAction(Character actor, Character target, 
@@ -50,6 +57,14 @@ public class BattleAction {
      * מחשב עדיפות ברירת מחדל לפי סוג הפעולה.
      */
     private int calculateDefaultPriority() {
+        return defaultPriorityOf(actionType);
+    }
+    
+    /**
+     * @param actionType סוג הפעולה
+     * @return עדיפות ברירת המחדל של סוג הפעולה
+     */
+    static int defaultPriorityOf(ActionType actionType) {
         switch (actionType) {
             case FLEE: return 100;     // בריחה קודמת
             case DEFEND: return 80;    // הגנה שנייה
@@ -60,6 +75,26 @@ public class BattleAction {
         }
     }
     
+    /**
+     * מחשב את זמן היוזמה של המבצע לפי speedModifier של הנשק שלו.
+     * נשק קל (פגיון) מקבל זמן נמוך ופועל קודם, נשק כבד (גרזן) פועל אחרי.
+     */
+    private int calculateInitiative() {
+        return initiativeOf(actor);
+    }
+    
+    /**
+     * @param actor המבצע
+     * @return זמן היוזמה של המבצע לפי הנשק שהוא מחזיק כרגע
+     */
+    static int initiativeOf(Character actor) {
+        Weapon weapon = actor.getEquippedWeapon();
+        if (weapon == null) {
+            return BASE_INITIATIVE;
+        }
+        return (int) Math.round(BASE_INITIATIVE * weapon.getWeaponType().getSpeedModifier());
+    }
+    
     // Getters & Setters
     public Character getActor() {
         return actor;
@@ -81,10 +116,36 @@ public class BattleAction {
         return priority;
     }
     
+    /**
+     * קובע את העדיפות. מותר רק לפני שהפעולה נכנסת לתור (או אחרי שיצאה ממנו):
+     * התור מסדר לפי העדיפות ברגע ההכנסה, ושינוי אחר כך היה שובר את הסדר שלו.
+     * 
+     * @param priority העדיפות החדשה (גבוה יותר = קודם)
+     * @throws IllegalStateException אם הפעולה ממתינה בתור
+     */
     public void setPriority(int priority) {
+        if (queued) {
+            throw new IllegalStateException("cannot change the priority of a queued action");
+        }
         this.priority = priority;
     }
     
+    public int getInitiative() {
+        return initiative;
+    }
+    
+    long getSequence() {
+        return sequence;
+    }
+    
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+    
+    void setQueued(boolean queued) {
+        this.queued = queued;
+    }
+    
     @Override
     public String toString() {
         String actionStr = String.format("%s -> %s: %s",
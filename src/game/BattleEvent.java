@@ -0,0 +1,151 @@
+package game;
+
+import model.characters.Character;
+
+/**
+ * תוצאה של פעולת קרב אחת, בשדות פרימיטיביים בלבד.
+ * מי שצריך מספרים (ניתוח, AI, ממשק) קורא את השדות ישירות;
+ * תיאור טקסטואלי נבנה רק כשמבקשים אותו (describe).
+ */
+public final class BattleEvent {
+
+    // אינדקסים של המשתתפים בקרב
+    public static final int PLAYER = 0;
+    public static final int ENEMY = 1;
+
+    // דגלים
+    public static final int FLAG_SUCCESS = 1;
+    public static final int FLAG_CRITICAL = 1 << 1;
+    public static final int FLAG_ITEM_MISSING = 1 << 2;
+
+    private final int turn;
+    private final int actorIndex;
+    private final int targetIndex;
+    private final BattleAction.ActionType actionType;
+    private final int amount;
+    private final int flags;
+    private final String itemName;
+
+    /**
+     * @param turn מספר הפעולה בקרב (מתחיל מ-1)
+     * @param actorIndex PLAYER או ENEMY
+     * @param targetIndex PLAYER או ENEMY
+     * @param actionType סוג הפעולה
+     * @param amount הכמות: נזק בהתקפה, חיים שהיעד איבד ביכולת מיוחדת,
+     *               חיים+מאנה ששוחזרו בשימוש בפריט, 0 בשאר הפעולות
+     * @param flags צירוף של FLAG_SUCCESS, FLAG_CRITICAL, FLAG_ITEM_MISSING
+     * @param itemName שם הפריט (רק ב-USE_ITEM), או null
+     */
+    public BattleEvent(int turn, int actorIndex, int targetIndex,
+                       BattleAction.ActionType actionType, int amount, int flags, String itemName) {
+        this.turn = turn;
+        this.actorIndex = actorIndex;
+        this.targetIndex = targetIndex;
+        this.actionType = actionType;
+        this.amount = amount;
+        this.flags = flags;
+        this.itemName = itemName;
+    }
+
+    // ============================================================
+    // תצוגה טקסטואלית
+    // ============================================================
+
+    /**
+     * מחזיר תבנית String.format לתיאור האירוע.
+     * הארגומנטים: 1 = שם המבצע, 2 = שם היעד, 3 = amount, 4 = שם הפריט.
+     *
+     * @return התבנית
+     */
+    public String getTemplate() {
+        return templateFor(actionType, flags);
+    }
+
+    /**
+     * מחזיר את התבנית של אירוע לפי סוג הפעולה והדגלים, בלי ליצור אירוע.
+     *
+     * @param actionType סוג הפעולה
+     * @param flags הדגלים של התוצאה
+     * @return התבנית
+     */
+    public static String templateFor(BattleAction.ActionType actionType, int flags) {
+        boolean success = (flags & FLAG_SUCCESS) != 0;
+        switch (actionType) {
+            case ATTACK:
+                return (flags & FLAG_CRITICAL) != 0
+                    ? "%1$s attacked %2$s for %3$d damage (critical hit)."
+                    : "%1$s attacked %2$s for %3$d damage.";
+            case SPECIAL:
+                return success
+                    ? "%1$s used a Special Ability on %2$s!"
+                    : "%1$s tried to use Special Ability but failed (no mana/rage).";
+            case DEFEND:
+                return "%1$s entered defensive stance.";
+            case USE_ITEM:
+                if ((flags & FLAG_ITEM_MISSING) != 0) {
+                    return "%1$s tried to use an item but couldn't find it.";
+                }
+                return success ? "%1$s used item: %4$s." : "%1$s failed to use item.";
+            case FLEE:
+                return success ? "%1$s fled from battle!" : "%1$s tried to flee but failed!";
+            default:
+                return "%1$s acted.";
+        }
+    }
+
+    /**
+     * @param actor הדמות שביצעה את הפעולה
+     * @param target היעד
+     * @return תיאור קריא של האירוע
+     */
+    public String describe(Character actor, Character target) {
+        return String.format(getTemplate(), actor.getName(), target.getName(), amount, itemName);
+    }
+
+    // Getters
+    public int getTurn() {
+        return turn;
+    }
+
+    public int getActorIndex() {
+        return actorIndex;
+    }
+
+    public int getTargetIndex() {
+        return targetIndex;
+    }
+
+    public BattleAction.ActionType getActionType() {
+        return actionType;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public boolean isSuccess() {
+        return (flags & FLAG_SUCCESS) != 0;
+    }
+
+    public boolean isCritical() {
+        return (flags & FLAG_CRITICAL) != 0;
+    }
+
+    public boolean isItemMissing() {
+        return (flags & FLAG_ITEM_MISSING) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %d -> %d: %s amount=%d flags=%d",
+            turn, actorIndex, targetIndex, actionType, amount, flags);
+    }
+}
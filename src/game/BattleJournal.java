@@ -0,0 +1,219 @@
+package game;
+
+import model.characters.Character;
+import model.characters.CharacterClass;
+import utils.GameRandom;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.random.RandomGenerator;
+
+/**
+ * יומן בינארי של קרב, לשחזור מדויק (ראו BattleReplay).
+ * נשמרים ה-seed של הקרב, "טביעת אצבע" של שתי הדמויות בתחילת הקרב,
+ * וכל פעולה שנכנסה לתור או בוצעה - בית אחד לרוב הפעולות.
+ * בסוף (close) נשמר גם המצב הסופי, כדי שהשחזור יוכל לוודא שהתוצאה זהה.
+ *
+ * מבנה הקובץ:
+ * <pre>
+ * header: MAGIC (int), VERSION (byte), seed (long),
+ *         לכל צד: CharacterClass.ordinal (byte), חיים (int), מאנה (int)
+ * ops:    בית אחד - 3 ביטים נמוכים הם סוג הפעולה ביומן:
+ *         QUEUE / QUEUE_PRIORITY: פעולה נכנסה לתור המקודד.
+ *                                 ביט 3 מבצע, ביט 4 יעד, ביטים 5-7 ActionType.ordinal
+ *                                 (+ short אינדקס פריט ב-USE_ITEM, + int עדיפות ב-QUEUE_PRIORITY)
+ *         QUEUE_ACTION / QUEUE_ACTION_PRIORITY: אותו מבנה, לתור הרגיל (BattleAction)
+ *         PROCESS:                פעולה אחת בוצעה. ביט 3 דולק אם היא באה מהתור הרגיל
+ *         ITEM:                   + UTF שם פריט חדש (מקבל את האינדקס הבא)
+ *         END:                    + מנצח (byte, -1 = אין), מספר פעולות (int), חיים של כל צד (int)
+ * </pre>
+ * שגיאות כתיבה לא עוצרות את הקרב: ההקלטה נעצרת, והשגיאה נזרקת ב-close.
+ */
+public class BattleJournal implements AutoCloseable {
+
+    static final int MAGIC = 0x424A524E; // "BJRN"
+    static final int VERSION = 1;
+
+    static final int OP_QUEUE = 0;
+    static final int OP_QUEUE_PRIORITY = 1;
+    static final int OP_PROCESS = 2;
+    static final int OP_ITEM = 3;
+    static final int OP_END = 4;
+    static final int OP_QUEUE_ACTION = 5;
+    static final int OP_QUEUE_ACTION_PRIORITY = 6;
+
+    static final int PROCESS_ACTION_QUEUE = 1 << 3;
+
+    private final DataOutputStream out;
+    private final long seed;
+    private final HashMap<String, Integer> itemRefs;
+    private BattleSystem battle;
+    private IOException error;
+    private boolean closed;
+    private long actionsRecorded;
+
+    /**
+     * @param out לאן לכתוב (נסגר ב-close)
+     * @param seed ה-seed של הקרב
+     */
+    public BattleJournal(OutputStream out, long seed) {
+        this.out = new DataOutputStream(out instanceof BufferedOutputStream ? out : new BufferedOutputStream(out));
+        this.seed = seed;
+        this.itemRefs = new HashMap<>();
+    }
+
+    /**
+     * יוצר יומן שנכתב לקובץ (הקובץ נדרס).
+     *
+     * @param path הנתיב לקובץ
+     * @param seed ה-seed של הקרב
+     * @return היומן
+     * @throws IOException אם אי אפשר לפתוח את הקובץ
+     */
+    public static BattleJournal toFile(String path, long seed) throws IOException {
+        return new BattleJournal(new FileOutputStream(path), seed);
+    }
+
+    /**
+     * @return מחולל חדש מה-seed של היומן - יש להעביר אותו ל-BattleSystem
+     */
+    public RandomGenerator.SplittableGenerator createRandom() {
+        return GameRandom.seeded(seed);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // ============================================================
+    // הקלטה (נקרא מ-BattleSystem)
+    // ============================================================
+
+    /**
+     * מחבר את היומן לקרב וכותב את ה-header.
+     */
+    void attach(BattleSystem battle) {
+        if (this.battle != null) {
+            throw new IllegalStateException("journal is already attached to a battle");
+        }
+        this.battle = battle;
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(seed);
+            writeFingerprint(battle.getPlayer());
+            writeFingerprint(battle.getEnemy());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void writeFingerprint(Character character) throws IOException {
+        out.writeByte(CharacterClass.of(character).ordinal());
+        out.writeInt(character.getCurrentHealth());
+        out.writeInt(character.getCurrentMana());
+    }
+
+    /**
+     * רושם פעולה שנכנסה לתור.
+     *
+     * @param packed true לתור המקודד, false לתור הרגיל
+     */
+    void recordQueued(boolean packed, int actorIndex, int targetIndex, BattleAction.ActionType type,
+                      int priority, String itemName) {
+        if (error != null || closed) {
+            return;
+        }
+        try {
+            int itemRef = -1;
+            if (itemName != null) {
+                Integer ref = itemRefs.get(itemName);
+                if (ref == null) {
+                    ref = itemRefs.size();
+                    itemRefs.put(itemName, ref);
+                    out.writeByte(OP_ITEM);
+                    out.writeUTF(itemName);
+                }
+                itemRef = ref;
+            }
+
+            boolean customPriority = priority != BattleAction.defaultPriorityOf(type);
+            int op = (packed
+                    ? (customPriority ? OP_QUEUE_PRIORITY : OP_QUEUE)
+                    : (customPriority ? OP_QUEUE_ACTION_PRIORITY : OP_QUEUE_ACTION))
+                | (actorIndex << 3) | (targetIndex << 4) | (type.ordinal() << 5);
+            out.writeByte(op);
+            if (type == BattleAction.ActionType.USE_ITEM) {
+                out.writeShort(itemRef);
+            }
+            if (customPriority) {
+                out.writeInt(priority);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * רושם שפעולה אחת בוצעה.
+     *
+     * @param packed true אם היא באה מהתור המקודד
+     */
+    void recordProcessed(boolean packed) {
+        if (error != null || closed) {
+            return;
+        }
+        try {
+            out.writeByte(packed ? OP_PROCESS : OP_PROCESS | PROCESS_ACTION_QUEUE);
+            actionsRecorded++;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException e) {
+        error = e;
+    }
+
+    /**
+     * @return מספר הפעולות שבוצעו ונרשמו
+     */
+    public long getActionsRecorded() {
+        return actionsRecorded;
+    }
+
+    /**
+     * כותב את המצב הסופי של הקרב וסוגר את היומן.
+     *
+     * @throws IOException אם הייתה שגיאת כתיבה כלשהי במהלך ההקלטה
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (error == null && battle != null) {
+                Character winner = battle.getWinner();
+                out.writeByte(OP_END);
+                out.writeByte(winner == null ? -1 : (winner == battle.getPlayer() ? BattleEvent.PLAYER : BattleEvent.ENEMY));
+                out.writeInt(battle.getTurn());
+                out.writeInt(battle.getPlayer().getCurrentHealth());
+                out.writeInt(battle.getEnemy().getCurrentHealth());
+            }
+            out.close();
+        } catch (IOException e) {
+            if (error == null) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package game;
+
+/**
+ * מאזין לתוצאות של פעולות קרב, שמקבל כל אירוע ברגע שהפעולה בוצעה.
+ * משמש את BattleSystem.processAllActions(BattleListener) במקום לאסוף רשימת תוצאות.
+ */
+public interface BattleListener {
+
+    /**
+     * נקרא אחרי כל פעולה שבוצעה, לפי סדר הביצוע.
+     *
+     * @param event התוצאה של הפעולה
+     */
+    void onEvent(BattleEvent event);
+}
@@ -0,0 +1,165 @@
+package game;
+
+import java.util.ArrayList;
+
+/**
+ * יומן קרב בגודל קבוע (ring buffer).
+ * שומר רק את ההודעות האחרונות, ומעצב אותן (String.format) רק כשמישהו קורא אותן.
+ * לא thread-safe - משמש את ה-thread של הקרב בלבד.
+ */
+public class BattleLog {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final Entry[] entries;
+    private int head;      // האינדקס של ההודעה הישנה ביותר
+    private int size;
+    private long totalLogged;
+
+    public BattleLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity מספר ההודעות המקסימלי שנשמר (0 = לא שומרים כלום)
+     */
+    public BattleLog(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+        this.entries = new Entry[capacity];
+        this.head = 0;
+        this.size = 0;
+        this.totalLogged = 0;
+    }
+
+    // ============================================================
+    // כתיבה
+    // ============================================================
+
+    /**
+     * מוסיף הודעה ליומן. אם היומן מלא, ההודעה הישנה ביותר נדרסת.
+     *
+     * @param entry ההודעה
+     */
+    public void add(Entry entry) {
+        totalLogged++;
+        if (entries.length == 0) {
+            return;
+        }
+        if (size < entries.length) {
+            entries[(head + size) % entries.length] = entry;
+            size++;
+        } else {
+            entries[head] = entry;
+            head = (head + 1) % entries.length;
+        }
+    }
+
+    /**
+     * מוסיף הודעה שתעוצב רק בזמן הקריאה.
+     *
+     * @param format תבנית בסגנון String.format
+     * @param args הארגומנטים לתבנית
+     */
+    public void add(String format, Object... args) {
+        add(new Entry(format, args));
+    }
+
+    public void clear() {
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = null;
+        }
+        head = 0;
+        size = 0;
+    }
+
+    // ============================================================
+    // קריאה
+    // ============================================================
+
+    /**
+     * @param index 0 = ההודעה הישנה ביותר שנשמרה
+     * @return ההודעה המעוצבת
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        return entries[(head + index) % entries.length].getMessage();
+    }
+
+    /**
+     * @return ההודעה האחרונה, או null אם היומן ריק
+     */
+    public String getLast() {
+        return size == 0 ? null : get(size - 1);
+    }
+
+    /**
+     * @return כל ההודעות השמורות, מהישנה לחדשה
+     */
+    public ArrayList<String> getMessages() {
+        ArrayList<String> messages = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            messages.add(get(i));
+        }
+        return messages;
+    }
+
+    public boolean isEnabled() {
+        return entries.length > 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return entries.length;
+    }
+
+    public long getTotalLogged() {
+        return totalLogged;
+    }
+
+    /**
+     * @return כמה הודעות נדרסו (או לא נשמרו בכלל) בגלל הגבלת הגודל
+     */
+    public long getDroppedCount() {
+        return totalLogged - size;
+    }
+
+    /**
+     * הודעה אחת ביומן: תבנית וארגומנטים, שמעוצבים רק בקריאה הראשונה.
+     * אחרי היצירה לא משתנה, ולכן אפשר להעביר אותה ל-thread של הכתיבה.
+     */
+    public static final class Entry {
+
+        private final String format;
+        private final Object[] args;
+        private String message;
+
+        public Entry(String format, Object... args) {
+            this.format = format;
+            this.args = args;
+        }
+
+        /**
+         * @return ההודעה המעוצבת (הודעה בלי ארגומנטים מוחזרת כמו שהיא)
+         */
+        public String getMessage() {
+            String result = message;
+            if (result == null) {
+                result = (args == null || args.length == 0) ? format : String.format(format, args);
+                message = result;
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return getMessage();
+        }
+    }
+}
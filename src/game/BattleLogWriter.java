@@ -0,0 +1,169 @@
+package game;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * כותב הודעות יומן קרב למסך או לקובץ ב-thread רקע.
+ * ה-thread של הקרב רק מכניס הודעה לתור; העיצוב וה-I/O קורים ב-thread של הכותב.
+ * התור חסום בגודלו: אם הכתיבה לא עומדת בקצב, ה-thread של הקרב מחכה במקום לאבד הודעות.
+ */
+public class BattleLogWriter implements AutoCloseable {
+
+    private static final int DEFAULT_QUEUE_SIZE = 4096;
+    private static final BattleLog.Entry POISON = new BattleLog.Entry("");
+
+    private static BattleLogWriter console;
+
+    private final PrintStream out;
+    private final boolean closeStream;
+    private final BlockingQueue<BattleLog.Entry> queue;
+    private final Thread thread;
+    private final Object lock = new Object();
+    private long submitted;   // מוגן על ידי this
+    private long written;     // מוגן על ידי lock
+    private volatile boolean closed;
+
+    /**
+     * @param out לאן לכתוב
+     * @param closeStream האם לסגור את ה-stream ב-close
+     * @param queueSize מספר ההודעות המקסימלי שממתינות לכתיבה
+     */
+    public BattleLogWriter(PrintStream out, boolean closeStream, int queueSize) {
+        this.out = out;
+        this.closeStream = closeStream;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drainLoop();
+            }
+        }, "battle-log-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * @return כותב משותף למסך (System.out), נוצר בפעם הראשונה שמבקשים אותו
+     */
+    public static synchronized BattleLogWriter console() {
+        if (console == null) {
+            console = new BattleLogWriter(System.out, false, DEFAULT_QUEUE_SIZE);
+        }
+        return console;
+    }
+
+    /**
+     * יוצר כותב לקובץ (הקובץ נדרס).
+     *
+     * @param path הנתיב לקובץ
+     * @return הכותב החדש - יש לסגור אותו עם close
+     * @throws IOException אם אי אפשר לפתוח את הקובץ
+     */
+    public static BattleLogWriter toFile(String path) throws IOException {
+        return new BattleLogWriter(new PrintStream(new FileOutputStream(path), false, "UTF-8"),
+            true, DEFAULT_QUEUE_SIZE);
+    }
+
+    // ============================================================
+    // כתיבה
+    // ============================================================
+
+    /**
+     * מכניס הודעה לתור הכתיבה. מחכה רק אם התור מלא.
+     *
+     * @param entry ההודעה
+     */
+    public synchronized void write(BattleLog.Entry entry) {
+        if (closed) {
+            return;
+        }
+        try {
+            queue.put(entry);
+            submitted++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * מחכה עד שכל ההודעות שנכנסו עד עכשיו נכתבו.
+     */
+    public void flush() {
+        long target;
+        synchronized (this) {
+            target = submitted;
+        }
+        synchronized (lock) {
+            while (written < target && thread.isAlive()) {
+                try {
+                    lock.wait(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * כותב את כל מה שנשאר בתור ועוצר את ה-thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            queue.put(POISON);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (BattleLogWriter.class) {
+            if (console == this) {
+                console = null;
+            }
+        }
+    }
+
+    private void drainLoop() {
+        ArrayList<BattleLog.Entry> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch);
+
+            int count = 0;
+            for (BattleLog.Entry entry : batch) {
+                if (entry == POISON) {
+                    running = false;
+                    break;
+                }
+                out.println(entry.getMessage());
+                count++;
+            }
+            out.flush();
+            batch.clear();
+
+            synchronized (lock) {
+                written += count;
+                lock.notifyAll();
+            }
+        }
+        if (closeStream) {
+            out.close();
+        }
+    }
+}
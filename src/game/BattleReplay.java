@@ -0,0 +1,251 @@
+package game;
+
+import model.characters.Character;
+import model.characters.CharacterClass;
+import model.exceptions.InvalidActionException;
+import utils.GameRandom;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+
+/**
+ * משחזר קרב מיומן בינארי (BattleJournal) בלי פלט למסך.
+ * הקרב נבנה מחדש עם אותו seed ואותן פעולות, וכל פעולה חוזרת לאותו תור שממנו באה בהקלטה:
+ * פעולות של התור המקודד רצות עליו (בלי יומן הודעות ובלי BattleEvent), כך שהשחזור מהיר מאוד,
+ * ופעולות של התור הרגיל עוברות דרך queueAction ו-processNextEvent.
+ *
+ * הדמויות שמועברות לשחזור צריכות להיות באותו מצב כמו בתחילת הקרב המקורי
+ * (אותו סוג, ציוד וסטטיסטיקות). הסוג, החיים והמאנה נבדקים מול היומן.
+ */
+public final class BattleReplay {
+
+    private static final BattleAction.ActionType[] ACTION_TYPES = BattleAction.ActionType.values();
+
+    private BattleReplay() {
+    }
+
+    /**
+     * משחזר קרב מקובץ.
+     *
+     * @param path הנתיב ליומן
+     * @param player השחקן, במצב שבו התחיל הקרב
+     * @param enemy האויב, במצב שבו התחיל הקרב
+     * @return תוצאת השחזור
+     * @throws IOException אם אי אפשר לקרוא את היומן, או שהשחזור לא תואם להקלטה
+     */
+    public static Result replay(String path, Character player, Character enemy) throws IOException {
+        try (InputStream in = new FileInputStream(path)) {
+            return replay(in, player, enemy);
+        }
+    }
+
+    /**
+     * משחזר קרב מ-stream (ה-stream לא נסגר).
+     *
+     * @see #replay(String, Character, Character)
+     */
+    public static Result replay(InputStream in, Character player, Character enemy) throws IOException {
+        long start = System.nanoTime();
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+
+        if (data.readInt() != BattleJournal.MAGIC) {
+            throw new StreamCorruptedException("not a battle journal");
+        }
+        int version = data.readUnsignedByte();
+        if (version != BattleJournal.VERSION) {
+            throw new StreamCorruptedException("unsupported journal version " + version);
+        }
+        long seed = data.readLong();
+        checkFingerprint(data, player);
+        checkFingerprint(data, enemy);
+
+        BattleSystem battle = new BattleSystem(player, enemy, new BattleLog(0), null, GameRandom.seeded(seed));
+        ArrayList<String> items = new ArrayList<>();
+        Result result = new Result();
+
+        try {
+            while (true) {
+                int op = data.read();
+                if (op < 0) {
+                    break;  // יומן בלי END (למשל קרב שנקטע) - משחזרים עד כמה שיש
+                }
+                switch (op & 0x7) {
+                    case BattleJournal.OP_PROCESS:
+                        if (!process(battle, (op & BattleJournal.PROCESS_ACTION_QUEUE) == 0)) {
+                            throw new IOException("replay diverged: no action to process at action "
+                                + (result.actions + 1));
+                        }
+                        result.actions++;
+                        break;
+
+                    case BattleJournal.OP_QUEUE:
+                    case BattleJournal.OP_QUEUE_PRIORITY:
+                    case BattleJournal.OP_QUEUE_ACTION:
+                    case BattleJournal.OP_QUEUE_ACTION_PRIORITY:
+                        queue(battle, data, op, items);
+                        break;
+
+                    case BattleJournal.OP_ITEM:
+                        items.add(data.readUTF());
+                        break;
+
+                    case BattleJournal.OP_END:
+                        result.recorded = true;
+                        result.recordedWinner = data.readByte();
+                        result.recordedTurn = data.readInt();
+                        result.recordedPlayerHealth = data.readInt();
+                        result.recordedEnemyHealth = data.readInt();
+                        break;
+
+                    default:
+                        throw new StreamCorruptedException("unknown journal op " + op);
+                }
+                if (result.recorded) {
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+            throw new StreamCorruptedException("journal ends in the middle of an entry");
+        }
+
+        Character winner = battle.getWinner();
+        result.winner = winner == null ? -1 : (winner == player ? BattleEvent.PLAYER : BattleEvent.ENEMY);
+        result.turn = battle.getTurn();
+        result.playerHealth = player.getCurrentHealth();
+        result.enemyHealth = enemy.getCurrentHealth();
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private static void checkFingerprint(DataInputStream data, Character character) throws IOException {
+        int classOrdinal = data.readUnsignedByte();
+        int health = data.readInt();
+        int mana = data.readInt();
+        if (classOrdinal != CharacterClass.of(character).ordinal()
+                || health != character.getCurrentHealth() || mana != character.getCurrentMana()) {
+            throw new IllegalArgumentException(character.getName()
+                + " does not match the combatant recorded in the journal");
+        }
+    }
+
+    private static boolean process(BattleSystem battle, boolean packed) throws IOException {
+        if (packed) {
+            return battle.processNextPacked();
+        }
+        try {
+            return battle.processNextEvent() != null;
+        } catch (InvalidActionException e) {
+            throw new IOException("replay diverged: " + e.getMessage());
+        }
+    }
+
+    private static void queue(BattleSystem battle, DataInputStream data, int op,
+                              ArrayList<String> items) throws IOException {
+        int actor = (op >> 3) & 1;
+        int target = (op >> 4) & 1;
+        BattleAction.ActionType type = ACTION_TYPES[(op >> 5) & 0x7];
+        String itemName = null;
+        if (type == BattleAction.ActionType.USE_ITEM) {
+            int ref = data.readShort();
+            itemName = ref < 0 ? null : items.get(ref);
+        }
+        int kind = op & 0x7;
+        int priority = kind == BattleJournal.OP_QUEUE_PRIORITY || kind == BattleJournal.OP_QUEUE_ACTION_PRIORITY
+            ? data.readInt()
+            : BattleAction.defaultPriorityOf(type);
+
+        try {
+            if (kind == BattleJournal.OP_QUEUE_ACTION || kind == BattleJournal.OP_QUEUE_ACTION_PRIORITY) {
+                BattleAction action = new BattleAction(battle.getCombatant(actor), battle.getCombatant(target),
+                    type, itemName);
+                action.setPriority(priority);
+                battle.queueAction(action);
+            } else {
+                battle.queuePacked(battle.encodeAction(actor, target, type, priority, itemName));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("cannot replay action: " + e.getMessage());
+        } catch (InvalidActionException e) {
+            throw new IOException("replay diverged: battle ended before action was queued");
+        }
+    }
+
+    /**
+     * תוצאת שחזור: המצב הסופי שהתקבל, ומה שנרשם ביומן (אם נרשם).
+     */
+    public static final class Result {
+
+        private int actions;
+        private int turn;
+        private int winner;
+        private int playerHealth;
+        private int enemyHealth;
+        private long elapsedNanos;
+
+        private boolean recorded;
+        private int recordedWinner;
+        private int recordedTurn;
+        private int recordedPlayerHealth;
+        private int recordedEnemyHealth;
+
+        private Result() {
+        }
+
+        /**
+         * @return true אם ביומן יש מצב סופי והשחזור הגיע בדיוק אליו
+         */
+        public boolean matchesRecording() {
+            return recorded && winner == recordedWinner && turn == recordedTurn
+                && playerHealth == recordedPlayerHealth && enemyHealth == recordedEnemyHealth;
+        }
+
+        public boolean hasRecordedEnd() {
+            return recorded;
+        }
+
+        public int getActions() {
+            return actions;
+        }
+
+        public int getTurn() {
+            return turn;
+        }
+
+        /**
+         * @return BattleEvent.PLAYER, BattleEvent.ENEMY, או -1 אם אין מנצח
+         */
+        public int getWinner() {
+            return winner;
+        }
+
+        public int getPlayerHealth() {
+            return playerHealth;
+        }
+
+        public int getEnemyHealth() {
+            return enemyHealth;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getActionsPerSecond() {
+            return elapsedNanos == 0 ? 0 : actions * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d actions, winner %d, HP %d/%d%s (%.0f actions/s)",
+                actions, winner, playerHealth, enemyHealth,
+                recorded ? (matchesRecording() ? ", matches recording" : ", DIFFERS from recording") : "",
+                getActionsPerSecond());
+        }
+    }
+}
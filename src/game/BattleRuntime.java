@@ -0,0 +1,433 @@
+package game;
+
+import model.characters.Character;
+import model.exceptions.InvalidActionException;
+import utils.ConcurrentHistogram;
+import utils.Histogram;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
+
+/**
+ * מריץ אלפי קרבות עצמאיים במקביל על מאגר threads קטן.
+ * כל קרב הוא "שחקן" (actor): יש לו תור קלט חסום משלו, ו-task קצר מעבד את התור
+ * רק כשיש בו משהו - קרב שמחכה לשחקן לא תופס thread.
+ * task אחד לכל היותר רץ לכל קרב בכל רגע, ולכן BattleSystem לא צריך סנכרון.
+ *
+ * כשהלקוח שולח פעולות מהר מדי ותור הקלט מתמלא, submit מחזיר false
+ * (או מחכה עד זמן מוגבל) - זה ה-backpressure.
+ * ה-runtime מודד כמה קרבות פעילים יש וכמה זמן עובר מהשליחה ועד שהתור בוצע.
+ *
+ * קרב שנזרקה בו שגיאה באמצע תור נסגר, והשגיאה מועברת ל-getResult. ב-close כל הקרבות
+ * שעוד פתוחים מבוטלים (getResult מבוטל) ו-submit מחזיר false.
+ */
+public class BattleRuntime implements AutoCloseable {
+
+    public static final int DEFAULT_INPUT_CAPACITY = 16;
+
+    // כמה תורות קרב אחד מעבד לפני שהוא מפנה את ה-thread לקרבות אחרים
+    private static final int MAX_TURNS_PER_DRAIN = 8;
+
+    // זמן תגובה במיקרו-שניות: דליים של 100us עד שנייה
+    private static final int LATENCY_BUCKET_MICROS = 100;
+    private static final int LATENCY_BUCKETS = 10000;
+
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int inputCapacity;
+    private final ConcurrentHashMap<Long, Session> sessions;
+    private final AtomicLong nextBattleId;
+    private final AtomicInteger activeBattles;
+    private final LongAdder completedBattles;
+    private final LongAdder turnsProcessed;
+    private final LongAdder rejectedCommands;
+    private final ConcurrentHistogram turnLatencyMicros;
+    private volatile CombatMetrics combatMetrics;
+    private volatile boolean closed;
+
+    /**
+     * יוצר runtime עם ForkJoinPool משלו (thread לכל מעבד) ותור קלט ברירת מחדל.
+     */
+    public BattleRuntime() {
+        this(new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true), true, DEFAULT_INPUT_CAPACITY);
+    }
+
+    /**
+     * @param executor המאגר שבו רצים ה-tasks של הקרבות (לא נסגר ב-close)
+     * @param inputCapacity מספר הפעולות המקסימלי שממתינות בכל קרב
+     */
+    public BattleRuntime(ExecutorService executor, int inputCapacity) {
+        this(executor, false, inputCapacity);
+    }
+
+    private BattleRuntime(ExecutorService executor, boolean ownsExecutor, int inputCapacity) {
+        if (inputCapacity <= 0) {
+            throw new IllegalArgumentException("inputCapacity must be positive");
+        }
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.inputCapacity = inputCapacity;
+        this.sessions = new ConcurrentHashMap<>();
+        this.nextBattleId = new AtomicLong();
+        this.activeBattles = new AtomicInteger();
+        this.completedBattles = new LongAdder();
+        this.turnsProcessed = new LongAdder();
+        this.rejectedCommands = new LongAdder();
+        this.turnLatencyMicros = new ConcurrentHistogram(LATENCY_BUCKET_MICROS, LATENCY_BUCKETS);
+    }
+
+    // ============================================================
+    // ניהול קרבות
+    // ============================================================
+
+    /**
+     * פותח קרב חדש. הקרב "שקט" (בלי יומן ובלי פלט) ומחכה לפעולות של השחקן.
+     *
+     * @param player השחקן
+     * @param enemy האויב (נשלט על ידי ה-AI של BattleSystem)
+     * @param random המחולל של הקרב, או null כדי להשתמש במחולל של ה-thread שמריץ אותו
+     * @return הקרב
+     */
+    public Session startBattle(Character player, Character enemy, RandomGenerator.SplittableGenerator random) {
+        if (closed) {
+            throw new IllegalStateException("runtime is closed");
+        }
+        BattleSystem battle = new BattleSystem(player, enemy, new BattleLog(0), null, random);
+        battle.setMetrics(combatMetrics);
+        Session session = new Session(nextBattleId.incrementAndGet(), battle);
+        sessions.put(session.id, session);
+        activeBattles.incrementAndGet();
+        if (closed) {
+            // close רץ במקביל ואולי כבר עבר על הקרבות הפתוחים
+            session.finish(new CancellationException("runtime is closed"));
+        }
+        return session;
+    }
+
+    /**
+     * @param id המזהה של הקרב
+     * @return הקרב, או null אם הוא לא קיים או שכבר הסתיים
+     */
+    public Session getSession(long id) {
+        return sessions.get(id);
+    }
+
+    private void onBattleEnded(Session session, boolean completed) {
+        if (sessions.remove(session.id) != null) {
+            activeBattles.decrementAndGet();
+            if (completed) {
+                completedBattles.increment();
+            }
+        }
+    }
+
+    /**
+     * מפסיק לקבל קרבות ופעולות חדשים, סוגר את המאגר (אם ה-runtime יצר אותו)
+     * ומבטל את כל הקרבות שעוד לא נגמרו.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (ownsExecutor) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Session session : sessions.values()) {
+            session.finish(new CancellationException("runtime is closed"));
+        }
+    }
+
+    // ============================================================
+    // מדדים
+    // ============================================================
+
+    public int getActiveBattles() {
+        return activeBattles.get();
+    }
+
+    public long getCompletedBattles() {
+        return completedBattles.sum();
+    }
+
+    public long getTurnsProcessed() {
+        return turnsProcessed.sum();
+    }
+
+    /**
+     * @return כמה פעולות נדחו כי תור הקלט של הקרב היה מלא
+     */
+    public long getRejectedCommands() {
+        return rejectedCommands.sum();
+    }
+
+    /**
+     * @return צילום של זמני התגובה של התורות (מהשליחה עד סוף התור), במיקרו-שניות
+     */
+    public Histogram getTurnLatency() {
+        return turnLatencyMicros.snapshot();
+    }
+
+    /**
+     * @param percentile אחוזון בין 0.0 ל-1.0
+     * @return זמן התגובה באחוזון הזה, במיקרו-שניות
+     */
+    public long getTurnLatencyPercentile(double percentile) {
+        return turnLatencyMicros.snapshot().getPercentile(percentile);
+    }
+
+    /**
+     * מחבר אוסף מדדי קרב לכל הקרבות שייפתחו מעכשיו.
+     *
+     * @param combatMetrics האוסף, או null כדי להפסיק למדוד
+     */
+    public void setCombatMetrics(CombatMetrics combatMetrics) {
+        this.combatMetrics = combatMetrics;
+    }
+
+    public CombatMetrics getCombatMetrics() {
+        return combatMetrics;
+    }
+
+    public int getInputCapacity() {
+        return inputCapacity;
+    }
+
+    // ============================================================
+    // קרב בודד
+    // ============================================================
+
+    /**
+     * פעולה אחת שהלקוח שלח.
+     */
+    private static final class Command {
+        final BattleAction.ActionType type;
+        final String itemName;
+        final long submittedNanos;
+
+        Command(BattleAction.ActionType type, String itemName) {
+            this.type = type;
+            this.itemName = itemName;
+            this.submittedNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * קרב אחד שרץ ב-runtime. את הפעולות שולחים מכל thread; הביצוע קורה ב-runtime.
+     * כל פעולה של השחקן היא תור שלם: פעולת השחקן, פעולת ה-AI של האויב וביצוע שתיהן.
+     */
+    public final class Session {
+
+        private final long id;
+        private final BattleSystem battle;
+        private final ArrayBlockingQueue<Command> inbox;
+        private final AtomicBoolean scheduled;
+        private final CompletableFuture<Character> result;
+        private volatile boolean ended;
+
+        private final Runnable drainTask = new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        };
+
+        private Session(long id, BattleSystem battle) {
+            this.id = id;
+            this.battle = battle;
+            this.inbox = new ArrayBlockingQueue<>(inputCapacity);
+            this.scheduled = new AtomicBoolean(false);
+            this.result = new CompletableFuture<>();
+            this.ended = false;
+        }
+
+        /**
+         * שולח פעולה של השחקן בלי לחכות.
+         *
+         * @param type סוג הפעולה
+         * @return false אם התור מלא או שהקרב הסתיים
+         */
+        public boolean submit(BattleAction.ActionType type) {
+            return enqueue(new Command(type, null));
+        }
+
+        /**
+         * שולח פעולה של השחקן, ומחכה עד timeout אם התור מלא.
+         *
+         * @return false אם התור נשאר מלא עד ה-timeout או שהקרב הסתיים
+         * @throws InterruptedException אם ההמתנה נקטעה
+         */
+        public boolean submit(BattleAction.ActionType type, long timeout, TimeUnit unit)
+                throws InterruptedException {
+            if (ended || closed) {
+                return false;
+            }
+            Command command = new Command(type, null);
+            if (!inbox.offer(command, timeout, unit)) {
+                rejectedCommands.increment();
+                return false;
+            }
+            return accept(command);
+        }
+
+        /**
+         * שולח שימוש בפריט בלי לחכות.
+         *
+         * @param itemName שם הפריט
+         * @return false אם התור מלא או שהקרב הסתיים
+         */
+        public boolean submitItem(String itemName) {
+            return enqueue(new Command(BattleAction.ActionType.USE_ITEM, itemName));
+        }
+
+        private boolean enqueue(Command command) {
+            if (ended || closed) {
+                return false;
+            }
+            if (!inbox.offer(command)) {
+                rejectedCommands.increment();
+                return false;
+            }
+            return accept(command);
+        }
+
+        /**
+         * מתזמן את הפעולה שנכנסה לתור. אם הקרב נגמר בינתיים (drain כבר ניקה את התור,
+         * או שה-runtime נסגר), אף אחד לא יעבד אותה - מוציאים אותה ומחזירים false.
+         */
+        private boolean accept(Command command) {
+            schedule();
+            if (ended) {
+                inbox.remove(command);
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * מתזמן task לעיבוד התור, אם אין כבר אחד שמחכה או רץ.
+         * אם המאגר כבר לא מקבל tasks, הקרב מבוטל.
+         */
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(drainTask);
+                } catch (RejectedExecutionException e) {
+                    finish(new CancellationException("runtime is closed"));
+                }
+            }
+        }
+
+        /**
+         * מעבד עד MAX_TURNS_PER_DRAIN פעולות, ואז מפנה את ה-thread.
+         * אם נשארו פעולות, ה-task מתוזמן מחדש לסוף התור של המאגר.
+         */
+        private void drain() {
+            int turns = 0;
+            try {
+                while (turns < MAX_TURNS_PER_DRAIN && !battle.isBattleEnded() && !ended) {
+                    Command command = inbox.poll();
+                    if (command == null) {
+                        break;
+                    }
+                    playTurn(command);
+                    turns++;
+                }
+            } catch (RuntimeException e) {
+                // המאגר בולע שגיאות של tasks - בלי זה הקרב היה נתקע בלי שאף אחד יידע
+                finish(e);
+                return;
+            }
+
+            if (battle.isBattleEnded()) {
+                finish(null);
+                return;
+            }
+            scheduled.set(false);
+            if (!inbox.isEmpty() && !ended) {
+                schedule();
+            }
+        }
+
+        /**
+         * סוגר את הקרב: מנקה את התור, מוציא אותו מה-runtime וממלא את getResult.
+         *
+         * @param failure null אם הקרב נגמר כרגיל; CancellationException אם הוא בוטל;
+         *                אחרת השגיאה שעצרה אותו
+         */
+        private void finish(Throwable failure) {
+            ended = true;
+            inbox.clear();
+            onBattleEnded(this, failure == null);
+            if (failure == null) {
+                result.complete(battle.getWinner());
+            } else if (failure instanceof CancellationException) {
+                result.cancel(false);
+            } else {
+                result.completeExceptionally(failure);
+            }
+        }
+
+        private void playTurn(Command command) {
+            try {
+                if (command.type == BattleAction.ActionType.USE_ITEM) {
+                    battle.queuePlayerItemAction(command.itemName);
+                } else {
+                    battle.queuePlayerAction(command.type);
+                }
+                if (!battle.isBattleEnded()) {
+                    battle.queueAction(battle.generateEnemyAction());
+                }
+                battle.processAllActions(null);
+            } catch (InvalidActionException e) {
+                // הקרב הסתיים באמצע התור
+            }
+            turnsProcessed.increment();
+            turnLatencyMicros.record((System.nanoTime() - command.submittedNanos) / 1000);
+        }
+
+        // Getters
+        public long getId() {
+            return id;
+        }
+
+        public boolean isEnded() {
+            return ended;
+        }
+
+        /**
+         * @return מתמלא כשהקרב נגמר, עם המנצח (או null אם מישהו ברח). נכשל עם השגיאה
+         *         אם הקרב נעצר בגלל שגיאה, ומבוטל אם ה-runtime נסגר לפני סוף הקרב
+         */
+        public CompletableFuture<Character> getResult() {
+            return result;
+        }
+
+        public int getPendingCommands() {
+            return inbox.size();
+        }
+
+        public Character getPlayer() {
+            return battle.getPlayer();
+        }
+
+        public Character getEnemy() {
+            return battle.getEnemy();
+        }
+    }
+}
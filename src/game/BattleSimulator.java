@@ -0,0 +1,194 @@
+package game;
+
+import model.characters.Character;
+import model.characters.CharacterClass;
+import model.exceptions.InvalidActionException;
+import model.items.Weapon;
+import utils.GameRandom;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+/**
+ * סימולטור קרבות "שקט" לאיזון המשחק.
+ * מריץ הרבה קרבות במקביל (fork/join) בין סוגי דמויות ומחשב אחוזי ניצחון,
+ * ממוצע תורות והתפלגות נזק. כל קרב משתמש ב-BattleSystem רגיל בלי הדפסות למסך.
+ * לכל קרב יש זרם אקראי משלו שנגזר מה-seed ומהמספר שלו, כך שאותו seed נותן
+ * אותן תוצאות בדיוק בלי קשר למספר ה-threads.
+ */
+public class BattleSimulator {
+
+    private static final int MAX_TURNS = 200;
+    private static final int BATTLES_PER_TASK = 1_000;
+
+    private final ForkJoinPool pool;
+    private final long seed;
+
+    public BattleSimulator() {
+        this(ForkJoinPool.commonPool(), System.nanoTime());
+    }
+
+    public BattleSimulator(long seed) {
+        this(ForkJoinPool.commonPool(), seed);
+    }
+
+    public BattleSimulator(ForkJoinPool pool, long seed) {
+        this.pool = pool;
+        this.seed = seed;
+    }
+
+    // ============================================================
+    // הרצת סימולציות
+    // ============================================================
+
+    /**
+     * מריץ סדרת קרבות בין שני סוגי דמויות.
+     *
+     * @param classA הסוג של הדמות הראשונה
+     * @param classB הסוג של הדמות השנייה
+     * @param battles מספר הקרבות
+     * @return התוצאות המצטברות
+     */
+    public MatchupResult simulate(CharacterClass classA, CharacterClass classB, int battles) {
+        long start = System.nanoTime();
+        long matchupSeed = seed + 31L * classA.ordinal() + classB.ordinal();
+        MatchupResult result = pool.invoke(new SimulationTask(classA, classB, matchupSeed, 0, battles));
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * מריץ את כל צירופי הסוגים (כולל סוג מול עצמו).
+     *
+     * @param battlesPerMatchup מספר הקרבות לכל צירוף
+     * @return רשימת תוצאות, אחת לכל צירוף
+     */
+    public ArrayList<MatchupResult> simulateAll(int battlesPerMatchup) {
+        ArrayList<MatchupResult> results = new ArrayList<>();
+        CharacterClass[] classes = CharacterClass.values();
+        for (int i = 0; i < classes.length; i++) {
+            for (int j = i; j < classes.length; j++) {
+                results.add(simulate(classes[i], classes[j], battlesPerMatchup));
+            }
+        }
+        return results;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * מריץ קרב בודד עד הסוף (או עד MAX_TURNS) ורושם את התוצאה.
+     * בכל תור שני הצדדים בוחרים פעולה לפי ה-AI של BattleSystem.
+     */
+    static void runBattle(CharacterClass classA, CharacterClass classB,
+                          RandomGenerator.SplittableGenerator random, MatchupResult result) {
+        Character a = createCombatant(classA, "A");
+        Character b = createCombatant(classB, "B");
+        BattleSystem battle = new BattleSystem(a, b, new BattleLog(0), null, random);
+
+        // התור המקודד: תור של קרב לא יוצר אף אובייקט
+        int turns = 0;
+        try {
+            while (!battle.isBattleEnded() && turns < MAX_TURNS) {
+                turns++;
+                battle.queuePacked(battle.generateActionCodeFor(BattleEvent.PLAYER));
+                battle.queuePacked(battle.generateActionCodeFor(BattleEvent.ENEMY));
+                battle.processAllPacked();
+            }
+        } catch (InvalidActionException e) {
+            // הקרב הסתיים באמצע התור - התוצאה כבר נקבעה
+        }
+
+        int winner = -1;
+        if (battle.getWinner() == a) {
+            winner = 0;
+        } else if (battle.getWinner() == b) {
+            winner = 1;
+        }
+        result.recordBattle(winner, turns,
+            b.getMaxHealth() - b.getCurrentHealth(),
+            a.getMaxHealth() - a.getCurrentHealth());
+    }
+
+    private static Character createCombatant(CharacterClass characterClass, String name) {
+        Character character = characterClass.create(name);
+        Weapon weapon = characterClass.createStartingWeapon();
+        try {
+            character.addItem(weapon);
+            character.equipWeapon(weapon);
+        } catch (Exception e) {
+            // דמות חדשה - המלאי ריק והנשק בוודאות נמצא בו
+        }
+        return character;
+    }
+
+    /**
+     * משימת fork/join שמפצלת טווח קרבות עד לגודל BATTLES_PER_TASK.
+     */
+    private static class SimulationTask extends RecursiveTask<MatchupResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final CharacterClass classA;
+        private final CharacterClass classB;
+        private final long seed;
+        private final int from;
+        private final int to;
+
+        SimulationTask(CharacterClass classA, CharacterClass classB, long seed, int from, int to) {
+            this.classA = classA;
+            this.classB = classB;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected MatchupResult compute() {
+            if (to - from <= BATTLES_PER_TASK) {
+                MatchupResult result = new MatchupResult(classA, classB);
+                for (int i = from; i < to; i++) {
+                    runBattle(classA, classB, GameRandom.stream(seed, i), result);
+                }
+                return result;
+            }
+
+            int mid = (from + to) >>> 1;
+            SimulationTask left = new SimulationTask(classA, classB, seed, from, mid);
+            SimulationTask right = new SimulationTask(classA, classB, seed, mid, to);
+            left.fork();
+            MatchupResult result = right.compute();
+            result.merge(left.join());
+            return result;
+        }
+    }
+
+    /**
+     * מריץ סימולציה מלאה ומדפיס דוח.
+     * ארגומנטים אופציונליים: מספר הקרבות לכל צירוף (ברירת מחדל 100,000) ו-seed.
+     */
+    public static void main(String[] args) {
+        int battles = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        BattleSimulator simulator = new BattleSimulator(seed);
+
+        System.out.println("Simulating " + battles + " battles per matchup on "
+            + simulator.pool.getParallelism() + " threads (seed " + seed + ")...\n");
+
+        long start = System.nanoTime();
+        ArrayList<MatchupResult> results = simulator.simulateAll(battles);
+        long elapsed = System.nanoTime() - start;
+
+        long total = 0;
+        for (MatchupResult result : results) {
+            System.out.println(result);
+            total += result.getBattles();
+        }
+        System.out.printf("%nTotal: %d battles in %.2fs (%.0f battles/s)%n",
+            total, elapsed / 1e9, total * 1e9 / elapsed);
+    }
+}
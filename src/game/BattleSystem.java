@@ -1,35 +1,113 @@
 package game;
 
 import model.characters.Character;
-import model.items.Item;
-import model.items.Potion;
+import model.characters.CharacterClass;
 import model.exceptions.InvalidActionException;
 import model.exceptions.ItemNotFoundException;
+import utils.GameRandom;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 /**
  * מערכת הקרב של המשחק.
- * משתמשת ב-Queue לניהול תור הפעולות.
+ * משתמשת ב-Queue לניהול תור הפעולות - ActionScheduler שמבצע לפי עדיפות ויוזמה.
  */
 public class BattleSystem {
     
     private Character player;
     private Character enemy;
-    private Queue<BattleAction> actionQueue;
-    private ArrayList<String> battleLog;
+    private ActionScheduler actionQueue;
+    private final BattleLog battleLog;
+    private final BattleLogWriter logWriter;
     private boolean battleEnded;
     private Character winner;
+    private int turn;
+    
+    // מסלול מקודד: פעולות כ-long בתור פרימיטיבי, ופריטים לפי אינדקס בטבלה
+    private final PackedActionQueue packedQueue;
+    private final ArrayList<String> itemNames;
+    private final HashMap<String, Integer> itemRefs;
+    private int lastAmount;
+    private int lastFlags;
+    private long lastActionCode;
+    
+    private static final BattleAction.ActionType[] ACTION_TYPES = BattleAction.ActionType.values();
+    
+    // מחוללים אקראיים - null אומר שמשתמשים במחולל של ה-thread הנוכחי
+    private final RandomGenerator random;
+    private final RandomGenerator aiRandom;
+    // הזרמים של הדמויות - מושאלים להן רק לזמן ביצוע פעולה (ראו perform)
+    private final RandomGenerator playerRandom;
+    private final RandomGenerator enemyRandom;
+    
+    // AI מתכנן לאויב - null אומר שהאויב בוחר לפי האחוזים הקבועים
+    private MonteCarloPlanner enemyPlanner;
+    
+    // יומן לשחזור הקרב - null אומר שלא מקליטים
+    private BattleJournal journal;
+    
+    // היסטוריה מאונדקסת של הפעולות שבוצעו - null אומר שלא שומרים
+    private ActionHistory history;
+    
+    // מדדי קרב משותפים (אפשר לחבר אותו אוסף לכמה קרבות) - null אומר שלא מודדים
+    private CombatMetrics metrics;
     
     public BattleSystem(Character player, Character enemy) {
+        this(player, enemy, true);
+    }
+    
+    /**
+     * @param consoleOutput false לקרב "שקט" (למשל בסימולציות) - ההודעות לא מודפסות למסך
+     */
+    public BattleSystem(Character player, Character enemy, boolean consoleOutput) {
+        this(player, enemy, consoleOutput, null);
+    }
+    
+    /**
+     * יוצר קרב שאפשר לשחזר בדיוק: מכל מחולל עם אותו seed מתקבל אותו קרב.
+     * המחולל מפוצל לזרם נפרד לכל דמות, ל-AI ולניסיונות הבריחה.
+     * 
+     * @param consoleOutput false לקרב "שקט"
+     * @param random המחולל של הקרב, או null כדי להשתמש במחולל של ה-thread הנוכחי
+     */
+    public BattleSystem(Character player, Character enemy, boolean consoleOutput,
+                        RandomGenerator.SplittableGenerator random) {
+        this(player, enemy, new BattleLog(), consoleOutput ? BattleLogWriter.console() : null, random);
+    }
+    
+    /**
+     * יוצר קרב עם יומן וכותב לבחירה.
+     * 
+     * @param battleLog היומן שבו נשמרות ההודעות האחרונות (קיבולת 0 = בלי יומן)
+     * @param logWriter כותב ברקע למסך/לקובץ, או null כדי לא לכתוב לשום מקום
+     * @param random המחולל של הקרב, או null כדי להשתמש במחולל של ה-thread הנוכחי
+     */
+    public BattleSystem(Character player, Character enemy, BattleLog battleLog,
+                        BattleLogWriter logWriter, RandomGenerator.SplittableGenerator random) {
         this.player = player;
         this.enemy = enemy;
-        this.actionQueue = new LinkedList<>();
-        this.battleLog = new ArrayList<>();
+        this.actionQueue = new ActionScheduler();
+        this.packedQueue = new PackedActionQueue();
+        this.itemNames = new ArrayList<>();
+        this.itemRefs = new HashMap<>();
+        this.battleLog = battleLog;
+        this.logWriter = logWriter;
         this.battleEnded = false;
         this.winner = null;
         
-        logMessage("Battle started: " + player.getName() + " vs " + enemy.getName());
+        if (random != null) {
+            this.playerRandom = random.split();
+            this.enemyRandom = random.split();
+            this.aiRandom = random.split();
+        } else {
+            this.playerRandom = null;
+            this.enemyRandom = null;
+            this.aiRandom = null;
+        }
+        this.random = random;
+        
+        logMessage("Battle started: %s vs %s", player.getName(), enemy.getName());
     }
     
     // ============================================================
@@ -48,7 +126,30 @@ public class BattleSystem {
             throw new InvalidActionException("queue", "the game is ended");
         }
 
+        enqueue(action);
+    }
+    
+    /**
+     * מוסיף כמה פעולות לתור בבת אחת. הבדיקה אם הקרב הסתיים נעשית פעם אחת לכל הקבוצה.
+     * 
+     * @param actions הפעולות להוספה, לפי הסדר
+     * @throws InvalidActionException אם הקרב כבר הסתיים (ואז אף פעולה לא נוספה)
+     */
+    public void queueActions(Collection<BattleAction> actions) throws InvalidActionException {
+        if (battleEnded) {
+            throw new InvalidActionException("queue", "the game is ended");
+        }
+        for (BattleAction action : actions) {
+            enqueue(action);
+        }
+    }
+    
+    private void enqueue(BattleAction action) {
         actionQueue.add(action);
+        if (journal != null) {
+            journal.recordQueued(false, indexOf(action.getActor()), indexOf(action.getTarget()),
+                action.getActionType(), action.getPriority(), action.getItemName());
+        }
     }
     
     /**
@@ -93,18 +194,96 @@ public class BattleSystem {
      * @return פעולת האויב
      */
     public BattleAction generateEnemyAction() {
-        Random rnd = new Random();
+        if (enemyPlanner != null) {
+            return new BattleAction(enemy, player, planEnemyAction());
+        }
+        return generateActionFor(enemy, player);
+    }
+    
+    /**
+     * קובע מתכנן Monte Carlo לאויב. מעכשיו generateEnemyAction ו-generateEnemyActionCode
+     * בוחרים פעולה לפי מצב הקרב ולא לפי האחוזים הקבועים.
+     * 
+     * @param planner המתכנן, או null כדי לחזור ל-AI הפשוט
+     */
+    public void setEnemyPlanner(MonteCarloPlanner planner) {
+        this.enemyPlanner = planner;
+    }
+    
+    public MonteCarloPlanner getEnemyPlanner() {
+        return enemyPlanner;
+    }
+    
+    /**
+     * מתחיל לשמור כל פעולה שמבוצעת בהיסטוריה מאונדקסת (ראו ActionHistory).
+     * בתור המקודד זה בונה BattleAction לכל פעולה, כך שהמסלול כבר לא חסר הקצאות.
+     * 
+     * @param history ההיסטוריה, או null כדי להפסיק לשמור
+     */
+    public void setHistory(ActionHistory history) {
+        this.history = history;
+    }
+    
+    /**
+     * @return ההיסטוריה של הקרב, או null אם לא שומרים היסטוריה
+     */
+    public ActionHistory getHistory() {
+        return history;
+    }
+    
+    /**
+     * מחבר אוסף מדדים לקרב. האוסף thread-safe, כך שאפשר לחבר אותו
+     * לאלפי קרבות שרצים במקביל (למשל ב-BattleRuntime או ב-BattleSimulator).
+     * 
+     * @param metrics האוסף, או null כדי להפסיק למדוד
+     */
+    public void setMetrics(CombatMetrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    public CombatMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * מתחיל להקליט את הקרב ליומן. כדי שהשחזור יהיה מדויק, הקרב צריך להיווצר
+     * עם journal.createRandom(), וההקלטה צריכה להתחיל לפני הפעולה הראשונה.
+     * 
+     * @param journal היומן (הקורא אחראי לסגור אותו בסוף הקרב)
+     */
+    public void setJournal(BattleJournal journal) {
+        if (turn > 0 || !actionQueue.isEmpty() || !packedQueue.isEmpty()) {
+            throw new IllegalStateException("journal must be attached before the first action");
+        }
+        journal.attach(this);
+        this.journal = journal;
+    }
+    
+    private BattleAction.ActionType planEnemyAction() {
+        return enemyPlanner.choose(CombatSnapshot.capture(player, enemy), BattleEvent.ENEMY);
+    }
+    
+    /**
+     * יוצר פעולה אקראית לדמות כלשהי לפי אותו AI של האויב.
+     * משמש גם את הסימולטור, שבו שני הצדדים נשלטים על ידי ה-AI.
+     * 
+     * @param actor הדמות שמבצעת את הפעולה
+     * @param target היעד של הפעולה
+     * @return הפעולה שנבחרה
+     */
+    BattleAction generateActionFor(Character actor, Character target) {
+        RandomGenerator rnd = (aiRandom != null) ? aiRandom : GameRandom.current();
         int number = rnd.nextInt(0,101);
         BattleAction act = null;
 
         if(number<25)
         {
-            act = new BattleAction(player, enemy, BattleAction.ActionType.DEFEND);
+            act = new BattleAction(actor, target, BattleAction.ActionType.DEFEND);
         } else if (number >= 25 && number<60) {
-            act = new BattleAction(player, enemy, BattleAction.ActionType.SPECIAL);
+            act = new BattleAction(actor, target, BattleAction.ActionType.SPECIAL);
         }
         else {
-            act = new BattleAction(player, enemy, BattleAction.ActionType.ATTACK);
+            act = new BattleAction(actor, target, BattleAction.ActionType.ATTACK);
         }
         return act;
     }
@@ -112,75 +291,134 @@ public class BattleSystem {
     /**
      * מבצע את הפעולה הבאה בתור.
      * 
-     * @return תיאור מה קרה, או null אם התור ריק
+     * @return תיאור מה קרה, או null אם התור ריק או שהקרב נגמר
      */
     public String processNextAction() throws InvalidActionException {
-        if (actionQueue.isEmpty()) {
+        BattleEvent event = processNextEvent();
+        if (event == null) {
             return null;
         }
-
-        BattleAction action = actionQueue.poll();
+        return event.describe(getCombatant(event.getActorIndex()), getCombatant(event.getTargetIndex()));
+    }
+    
+    /**
+     * מבצע את הפעולה הבאה בתור ומחזיר את התוצאה כאירוע מובנה (בלי לבנות מחרוזות).
+     * כמו processNextPacked, אחרי סוף הקרב לא מתבצעות יותר פעולות - כך יומן שמערב את
+     * שני התורים משתחזר בדיוק.
+     * 
+     * @return האירוע, או null אם התור ריק או שהקרב נגמר
+     */
+    public BattleEvent processNextEvent() throws InvalidActionException {
+        while (!actionQueue.isEmpty() && !battleEnded) {
+            BattleAction action = actionQueue.poll();
+            if (action.getActor().isAlive()) {
+                return executeAction(action);
+            }
+            // דמות מתה - מנקים את כל הפעולות שלה במעבר אחד במקום אחת-אחת
+            actionQueue.removeActionsOf(action.getActor());
+        }
+        return null;
+    }
+    
+    /**
+     * מבצע פעולה אחת של דמות חיה ורושם את התוצאה.
+     * 
+     * @param action הפעולה
+     * @return האירוע שמתאר את התוצאה
+     */
+    private BattleEvent executeAction(BattleAction action) {
+        if (history != null) {
+            history.record(action);
+        }
         Character actor = action.getActor();
         Character target = action.getTarget();
-        BattleAction.ActionType type = action.getActionType();
-
-        if (!actor.isAlive()) {
-            return processNextAction();
+        int flags = perform(false, actor, target, action.getActionType(), action.getItemName());
+        return new BattleEvent(turn, indexOf(actor), indexOf(target),
+            action.getActionType(), lastAmount, flags, action.getItemName());
+    }
+    
+    /**
+     * הביצוע עצמו, משותף לתור הרגיל ולתור המקודד.
+     * לא יוצר אובייקטים (חוץ מהודעת יומן, אם יש יומן או כותב).
+     * הכמות נשמרת ב-lastAmount.
+     * 
+     * @param packed true אם הפעולה באה מהתור המקודד (נרשם ביומן, לשחזור מאותו תור)
+     * @return הדגלים של התוצאה
+     */
+    private int perform(boolean packed, Character actor, Character target, BattleAction.ActionType type, String itemName) {
+        turn++;
+        if (journal != null) {
+            journal.recordProcessed(packed);
         }
+        int amount = 0;
+        int flags = 0;
 
-        String resultMessage = "";
-
+        // הזרמים של הקרב מותקנים בדמויות רק לזמן הפעולה, כך שדמות שתשתתף אחר כך
+        // בקרב או בסימולציה אחרים חוזרת למחולל שהיה לה
+        RandomGenerator playerPrevious = null;
+        RandomGenerator enemyPrevious = null;
+        if (playerRandom != null) {
+            playerPrevious = player.setRandom(playerRandom);
+            enemyPrevious = enemy.setRandom(enemyRandom);
+        }
         try {
             switch (type) {
                 case ATTACK:
-                    int damage = executeAttack(actor, target);
-                    resultMessage = String.format("%s attacked %s for %d damage.",
-                            actor.getName(), target.getName(), damage);
+                    amount = executeAttack(actor, target);
+                    flags = BattleEvent.FLAG_SUCCESS;
+                    if (actor.wasLastAttackCritical()) {
+                        flags |= BattleEvent.FLAG_CRITICAL;
+                    }
                     break;
 
                 case SPECIAL:
-                    boolean specialSuccess = executeSpecialAbility(actor, target);
-                    if (specialSuccess) {
-                        resultMessage = String.format("%s used a Special Ability on %s!",
-                                actor.getName(), target.getName());
-                    } else {
-                        resultMessage = String.format("%s tried to use Special Ability but failed (no mana/rage).",
-                                actor.getName());
+                    int healthBefore = target.getCurrentHealth();
+                    if (executeSpecialAbility(actor, target)) {
+                        amount = healthBefore - target.getCurrentHealth();
+                        flags = BattleEvent.FLAG_SUCCESS;
+                        if (actor.wasLastAttackCritical()) {
+                            flags |= BattleEvent.FLAG_CRITICAL;
+                        }
                     }
                     break;
 
                 case DEFEND:
                     executeDefend(actor);
-                    resultMessage = String.format("%s entered defensive stance.", actor.getName());
+                    flags = BattleEvent.FLAG_SUCCESS;
                     break;
 
                 case USE_ITEM:
-                    String itemName = action.getItemName();
-                    boolean itemSuccess = executeUseItem(actor, itemName);
-                    if (itemSuccess) {
-                        resultMessage = String.format("%s used item: %s.", actor.getName(), itemName);
-                    } else {
-                        resultMessage = String.format("%s failed to use item.", actor.getName());
+                    int restoredBefore = actor.getCurrentHealth() + actor.getCurrentMana();
+                    if (executeUseItem(actor, itemName)) {
+                        amount = actor.getCurrentHealth() + actor.getCurrentMana() - restoredBefore;
+                        flags = BattleEvent.FLAG_SUCCESS;
                     }
                     break;
 
                 case FLEE:
-                    boolean fleeSuccess = executeFlee(actor);
-                    if (fleeSuccess) {
-                        resultMessage = String.format("%s fled from battle!", actor.getName());
+                    if (executeFlee(actor)) {
+                        flags = BattleEvent.FLAG_SUCCESS;
                         battleEnded = true;
-                    } else {
-                        resultMessage = String.format("%s tried to flee but failed!", actor.getName());
                     }
                     break;
             }
         } catch (ItemNotFoundException e) {
-            resultMessage = String.format("%s tried to use an item but couldn't find it.", actor.getName());
+            flags = BattleEvent.FLAG_ITEM_MISSING;
+        } finally {
+            if (playerRandom != null) {
+                player.setRandom(playerPrevious);
+                enemy.setRandom(enemyPrevious);
+            }
         }
+        // תור של הדמות עבר - אפקטים זמניים שלה מתקרבים לפקיעה
+        actor.tickStatusEffects();
 
+        lastAmount = amount;
+        if (isLogging()) {
+            logMessage(BattleEvent.templateFor(type, flags), actor.getName(), target.getName(), amount, itemName);
+        }
         checkBattleEnd();
-        logMessage(resultMessage);
-        return resultMessage;
+        return flags;
     }
     
     /**
@@ -189,12 +427,249 @@ public class BattleSystem {
      * @return רשימה של כל התיאורים של מה שקרה
      */
     public ArrayList<String> processAllActions() throws InvalidActionException {
-        ArrayList<String> actions = new ArrayList<>();
-        while (!actionQueue.isEmpty()&&!battleEnded)
-            actions.add(processNextAction());
+        final ArrayList<String> actions = new ArrayList<>();
+        processAllActions(new BattleListener() {
+            @Override
+            public void onEvent(BattleEvent event) {
+                actions.add(event.describe(getCombatant(event.getActorIndex()),
+                    getCombatant(event.getTargetIndex())));
+            }
+        });
         return actions;
     }
     
+    /**
+     * מבצע את כל הפעולות בתור עד שהוא מתרוקן או שהקרב נגמר, ומעביר כל תוצאה
+     * למאזין ברגע שהיא קורית. בלי מאזין (null) לא נוצר BattleEvent ולא נבנית רשימה.
+     * 
+     * @param listener המאזין, או null אם אף אחד לא צריך את התוצאות
+     * @return מספר הפעולות שבוצעו
+     */
+    public int processAllActions(BattleListener listener) {
+        int count = 0;
+        while (!actionQueue.isEmpty() && !battleEnded) {
+            BattleAction action = actionQueue.poll();
+            Character actor = action.getActor();
+            if (!actor.isAlive()) {
+                actionQueue.removeActionsOf(actor);
+                continue;
+            }
+            if (listener != null) {
+                listener.onEvent(executeAction(action));
+            } else {
+                if (history != null) {
+                    history.record(action);
+                }
+                perform(false, actor, action.getTarget(), action.getActionType(), action.getItemName());
+            }
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * מבצע את כל הפעולות בתור עד שהוא מתרוקן או שהקרב נגמר.
+     * 
+     * @return רשימת האירועים לפי סדר הביצוע
+     */
+    public ArrayList<BattleEvent> processAllEvents() throws InvalidActionException {
+        return processActions(Integer.MAX_VALUE);
+    }
+    
+    /**
+     * מבצע עד maxActions פעולות מהתור (או עד שהתור מתרוקן או שהקרב נגמר).
+     * מאפשר לפרוס תור ארוך על כמה פריימים/תורות עם זמן עיבוד צפוי לכל אחד.
+     * 
+     * @param maxActions מספר הפעולות המקסימלי לביצוע
+     * @return האירועים שבוצעו לפי הסדר
+     */
+    public ArrayList<BattleEvent> processActions(int maxActions) throws InvalidActionException {
+        ArrayList<BattleEvent> events = new ArrayList<>();
+        while (events.size() < maxActions && !actionQueue.isEmpty() && !battleEnded) {
+            BattleEvent event = processNextEvent();
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+    
+    // ============================================================
+    // מסלול מקודד (Packed Actions)
+    // ============================================================
+    
+    /**
+     * מקודד פעולה ל-long (ראו PackedActionQueue). היעד הוא היריב של המבצע.
+     * שם פריט נרשם בטבלת הפריטים של הקרב בפעם הראשונה שמשתמשים בו.
+     * 
+     * @param actorIndex BattleEvent.PLAYER או BattleEvent.ENEMY
+     * @param actionType סוג הפעולה
+     * @param itemName שם הפריט (רק ב-USE_ITEM), או null
+     * @return הפעולה המקודדת
+     */
+    public long encodeAction(int actorIndex, BattleAction.ActionType actionType, String itemName) {
+        return encodeAction(actorIndex, 1 - actorIndex, actionType,
+            BattleAction.defaultPriorityOf(actionType), itemName);
+    }
+    
+    /**
+     * מקודד פעולה עם יעד ועדיפות מפורשים (למשל בשחזור מיומן).
+     * רק כאן העדיפות מוגבלת - בתור הרגיל (BattleAction) היא יכולה להיות כל int.
+     * 
+     * @param priority עדיפות (0 עד PackedActionQueue.MAX_PRIORITY)
+     * @throws IllegalArgumentException אם העדיפות מחוץ לטווח
+     */
+    long encodeAction(int actorIndex, int targetIndex, BattleAction.ActionType actionType,
+                      int priority, String itemName) {
+        int itemRef = PackedActionQueue.NO_ITEM;
+        if (itemName != null) {
+            Integer ref = itemRefs.get(itemName);
+            if (ref == null) {
+                ref = itemNames.size();
+                itemNames.add(itemName);
+                itemRefs.put(itemName, ref);
+            }
+            itemRef = ref;
+        }
+        return PackedActionQueue.encode(actorIndex, targetIndex, actionType, priority,
+            BattleAction.initiativeOf(getCombatant(actorIndex)), itemRef);
+    }
+    
+    /**
+     * בונה BattleAction מפעולה מקודדת - רק כשצריך אובייקט עבור ה-API הציבורי.
+     * 
+     * @param code הפעולה המקודדת
+     * @return הפעולה
+     */
+    public BattleAction decodeAction(long code) {
+        int itemRef = PackedActionQueue.itemOf(code);
+        BattleAction action = new BattleAction(
+            getCombatant(PackedActionQueue.actorOf(code)),
+            getCombatant(PackedActionQueue.targetOf(code)),
+            ACTION_TYPES[PackedActionQueue.typeOf(code)],
+            itemRef == PackedActionQueue.NO_ITEM ? null : itemNames.get(itemRef));
+        action.setPriority(PackedActionQueue.priorityOf(code));
+        return action;
+    }
+    
+    /**
+     * מוסיף פעולה מקודדת לתור המקודד.
+     * 
+     * @param code הפעולה המקודדת
+     * @throws InvalidActionException אם הקרב כבר הסתיים
+     */
+    public void queuePacked(long code) throws InvalidActionException {
+        if (battleEnded) {
+            throw new InvalidActionException("queue", "the game is ended");
+        }
+        packedQueue.offer(code);
+        if (journal != null) {
+            int itemRef = PackedActionQueue.itemOf(code);
+            journal.recordQueued(true, PackedActionQueue.actorOf(code), PackedActionQueue.targetOf(code),
+                ACTION_TYPES[PackedActionQueue.typeOf(code)], PackedActionQueue.priorityOf(code),
+                itemRef == PackedActionQueue.NO_ITEM ? null : itemNames.get(itemRef));
+        }
+    }
+    
+    /**
+     * כמו generateEnemyAction, אבל מחזיר פעולה מקודדת (בלי ליצור אובייקט, כל עוד אין מתכנן).
+     * 
+     * @return פעולת האויב המקודדת
+     */
+    public long generateEnemyActionCode() {
+        if (enemyPlanner != null) {
+            return encodeAction(BattleEvent.ENEMY, planEnemyAction(), null);
+        }
+        return generateActionCodeFor(BattleEvent.ENEMY);
+    }
+    
+    /**
+     * אותו AI כמו generateActionFor, עבור אחד המשתתפים לפי אינדקס.
+     * 
+     * @param actorIndex BattleEvent.PLAYER או BattleEvent.ENEMY
+     * @return הפעולה המקודדת
+     */
+    long generateActionCodeFor(int actorIndex) {
+        RandomGenerator rnd = (aiRandom != null) ? aiRandom : GameRandom.current();
+        int number = rnd.nextInt(0,101);
+        BattleAction.ActionType type;
+        if (number < 25) {
+            type = BattleAction.ActionType.DEFEND;
+        } else if (number < 60) {
+            type = BattleAction.ActionType.SPECIAL;
+        } else {
+            type = BattleAction.ActionType.ATTACK;
+        }
+        return encodeAction(actorIndex, type, null);
+    }
+    
+    /**
+     * מבצע את הפעולה הבאה בתור המקודד בלי ליצור BattleEvent.
+     * התוצאה זמינה דרך getLastActionCode, getLastAmount ו-getLastFlags.
+     * פעולות של דמות מתה מוסרות כולן במעבר אחד.
+     * 
+     * @return true אם בוצעה פעולה, false אם התור ריק או שהקרב נגמר
+     */
+    public boolean processNextPacked() {
+        while (!packedQueue.isEmpty() && !battleEnded) {
+            long code = packedQueue.poll();
+            int actorIndex = PackedActionQueue.actorOf(code);
+            Character actor = getCombatant(actorIndex);
+            if (!actor.isAlive()) {
+                packedQueue.removeActionsOf(actorIndex);
+                continue;
+            }
+            if (history != null) {
+                history.record(decodeAction(code));
+            }
+            int itemRef = PackedActionQueue.itemOf(code);
+            lastFlags = perform(true, actor, getCombatant(PackedActionQueue.targetOf(code)),
+                ACTION_TYPES[PackedActionQueue.typeOf(code)],
+                itemRef == PackedActionQueue.NO_ITEM ? null : itemNames.get(itemRef));
+            lastActionCode = code;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * מבצע את כל התור המקודד עד שהוא מתרוקן או שהקרב נגמר.
+     * 
+     * @return מספר הפעולות שבוצעו
+     */
+    public int processAllPacked() {
+        int count = 0;
+        while (processNextPacked()) {
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * @return הפעולה המקודדת האחרונה שבוצעה מהתור המקודד
+     */
+    public long getLastActionCode() {
+        return lastActionCode;
+    }
+    
+    /**
+     * @return הכמות של הפעולה האחרונה (כמו BattleEvent.getAmount)
+     */
+    public int getLastAmount() {
+        return lastAmount;
+    }
+    
+    /**
+     * @return הדגלים של הפעולה האחרונה מהתור המקודד (כמו BattleEvent.getFlags)
+     */
+    public int getLastFlags() {
+        return lastFlags;
+    }
+    
+    public int getPackedQueueSize() {
+        return packedQueue.size();
+    }
+    
     // ============================================================
     // TODO: ביצוע פעולות (Action Execution)
     // ============================================================
@@ -208,7 +683,12 @@ public class BattleSystem {
      */
     private int executeAttack(Character attacker, Character defender) {
         int damage = attacker.calculateAttackDamage();
+        int healthBefore = defender.getCurrentHealth();
         defender.takeDamage(damage);
+        if (metrics != null) {
+            metrics.recordAttack(CharacterClass.of(attacker), CharacterClass.of(defender),
+                healthBefore - defender.getCurrentHealth(), attacker.wasLastAttackCritical());
+        }
         return damage;
     }
     
@@ -220,7 +700,14 @@ public class BattleSystem {
      * @return true אם הצליח
      */
     private boolean executeSpecialAbility(Character actor, Character target) {
-        return actor.useSpecialAbility(target);
+        if (metrics == null) {
+            return actor.useSpecialAbility(target);
+        }
+        int healthBefore = target.getCurrentHealth();
+        boolean success = actor.useSpecialAbility(target);
+        metrics.recordSpecial(CharacterClass.of(actor), CharacterClass.of(target), success,
+            healthBefore - target.getCurrentHealth(), actor.wasLastAttackCritical());
+        return success;
     }
     
     /**
@@ -233,20 +720,13 @@ public class BattleSystem {
      */
     private boolean executeUseItem(Character actor, String itemName)
             throws ItemNotFoundException {
-        ArrayList<Item> inventory = actor.getInventory();
-        for (Item item : inventory) {
-            if (item.getName().equals(itemName)) {
-                if (item instanceof Potion) {
-                    Potion potion = (Potion) item;
-                    if (potion.use(actor)) {
-                        actor.pushRecentlyUsed(item);
-                        return true;
-                    }
-                }
-                return false;
+        if (actor.useItem(itemName)) {
+            if (metrics != null) {
+                metrics.recordPotion(CharacterClass.of(actor));
             }
+            return true;
         }
-        throw new ItemNotFoundException(itemName);
+        return false;
     }
     
     /**
@@ -255,7 +735,9 @@ public class BattleSystem {
      * @param defender המגן
      */
     private void executeDefend(Character defender) {
-        logMessage(defender.getName() + " is defending!");
+        if (isLogging()) {
+            logMessage("%s is defending!", defender.getName());
+        }
     }
     
     /**
@@ -273,7 +755,12 @@ public class BattleSystem {
         if (chance < 0.0) chance = 0.0;
         if (chance > 1.0) chance = 1.0;
 
-        return Math.random() < chance;
+        RandomGenerator rnd = (random != null) ? random : GameRandom.current();
+        boolean success = rnd.nextDouble() < chance;
+        if (metrics != null) {
+            metrics.recordFlee(CharacterClass.of(fleeing), success);
+        }
+        return success;
     }
     
     // ============================================================
@@ -286,15 +773,26 @@ public class BattleSystem {
     private void checkBattleEnd() {
         if(!player.isAlive())
         {
+            recordKill(enemy, player);
             battleEnded = true;
             winner = enemy;
-            logMessage(enemy.getName()+ " win");
+            logMessage("%s win", enemy.getName());
         }
         else if(!enemy.isAlive())
         {
+            recordKill(player, enemy);
             battleEnded = true;
             winner = player;
-            logMessage(player.getName()+ " win");
+            logMessage("%s win", player.getName());
+        }
+    }
+    
+    /**
+     * נספר רק בפעם הראשונה שהקרב מסתיים (ולא שוב אם עוד פעולה מבוצעת אחריו).
+     */
+    private void recordKill(Character killer, Character killed) {
+        if (metrics != null && !battleEnded) {
+            metrics.recordKill(CharacterClass.of(killer), CharacterClass.of(killed), turn);
         }
     }
     
@@ -320,6 +818,8 @@ public class BattleSystem {
     /**
      * מסנן פעולות לפי תנאי מסוים.
      * השתמש בממשק פונקציונלי!
+     * לשאילתות על הפעולות שבוצעו בקרב (לפי סוג או מבצע) עדיף ActionHistory,
+     * שעונה מהאינדקסים בלי מעבר על כל הרשימה.
      * 
      * @param actions רשימת הפעולות
      * @param filter הפילטר (ממשק עם מתודת test)
@@ -350,9 +850,51 @@ public class BattleSystem {
     // Utility Methods
     // ============================================================
     
-    private void logMessage(String message) {
-        battleLog.add(message);
-        System.out.println(message);
+    /**
+     * רושם הודעה ביומן ושולח אותה לכותב (אם יש).
+     * ההודעה מעוצבת רק כשקוראים אותה, ואם אין יומן ואין כותב - לא נוצר כלום.
+     */
+    private void logMessage(String format, Object... args) {
+        if (!isLogging()) {
+            return;
+        }
+        BattleLog.Entry entry = new BattleLog.Entry(format, args);
+        battleLog.add(entry);
+        if (logWriter != null) {
+            logWriter.write(entry);
+        }
+    }
+    
+    /**
+     * @return האם יש לאן לרשום הודעות. במסלולים החמים בודקים את זה לפני הקריאה
+     *         ל-logMessage, כדי לא ליצור את מערך הארגומנטים בכלל.
+     */
+    private boolean isLogging() {
+        return battleLog.isEnabled() || logWriter != null;
+    }
+    
+    /**
+     * מחכה שכל ההודעות שנשלחו לכותב ייכתבו (למשל לפני שמציגים תפריט לשחקן).
+     */
+    public void flushLog() {
+        if (logWriter != null) {
+            logWriter.flush();
+        }
+    }
+    
+    /**
+     * @return BattleEvent.PLAYER אם הדמות היא השחקן, אחרת BattleEvent.ENEMY
+     */
+    private int indexOf(Character character) {
+        return (character == player) ? BattleEvent.PLAYER : BattleEvent.ENEMY;
+    }
+    
+    /**
+     * @param index BattleEvent.PLAYER או BattleEvent.ENEMY
+     * @return הדמות עם האינדקס הזה
+     */
+    public Character getCombatant(int index) {
+        return (index == BattleEvent.PLAYER) ? player : enemy;
     }
     
     // Getters
@@ -364,6 +906,13 @@ public class BattleSystem {
         return enemy;
     }
     
+    /**
+     * @return מספר הפעולות שבוצעו עד עכשיו בקרב
+     */
+    public int getTurn() {
+        return turn;
+    }
+    
     public boolean isBattleEnded() {
         return battleEnded;
     }
@@ -372,8 +921,15 @@ public class BattleSystem {
         return winner;
     }
     
+    /**
+     * @return ההודעות האחרונות שנשמרו ביומן (עד הקיבולת שלו), מעוצבות
+     */
     public ArrayList<String> getBattleLog() {
-        return new ArrayList<>(battleLog);
+        return battleLog.getMessages();
+    }
+    
+    public BattleLog getLog() {
+        return battleLog;
     }
     
     public int getQueueSize() {
@@ -0,0 +1,217 @@
+package game;
+
+import model.characters.CharacterClass;
+import utils.ConcurrentHistogram;
+import utils.Histogram;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * אוסף מדדי קרב לפי סוג דמות, מכמה קרבות במקביל.
+ * המונים הם LongAdder (מפוצלים בין threads, בלי התנגשויות), וההתפלגויות
+ * הן היסטוגרמות עם דליים קבועים. אותו אוסף משותף לכל הקרבות שמחוברים אליו
+ * (BattleSystem.setMetrics). הקריאה היא דרך snapshot.
+ */
+public class CombatMetrics {
+
+    /**
+     * מונים לכל סוג דמות.
+     */
+    public enum Counter {
+        ATTACKS,
+        DAMAGE_DEALT,
+        DAMAGE_TAKEN,
+        CRITICAL_HITS,
+        SPECIALS_ATTEMPTED,
+        SPECIALS_SUCCEEDED,
+        POTIONS_USED,
+        FLEE_ATTEMPTS,
+        FLEE_SUCCESSES,
+        KILLS,
+        DEATHS
+    }
+
+    /**
+     * התפלגויות לכל סוג דמות.
+     */
+    public enum Distribution {
+        HIT_DAMAGE(5, 100),     // נזק בפועל לכל פגיעה (התקפה או יכולת מיוחדת)
+        TURNS_TO_KILL(1, 200);  // מספר הפעולות בקרב עד שהסוג הזה ניצח
+
+        private final int bucketWidth;
+        private final int bucketCount;
+
+        Distribution(int bucketWidth, int bucketCount) {
+            this.bucketWidth = bucketWidth;
+            this.bucketCount = bucketCount;
+        }
+    }
+
+    private static final CharacterClass[] CLASSES = CharacterClass.values();
+    private static final Counter[] COUNTERS = Counter.values();
+    private static final Distribution[] DISTRIBUTIONS = Distribution.values();
+
+    private final LongAdder[][] counters;
+    private final ConcurrentHistogram[][] distributions;
+
+    public CombatMetrics() {
+        this.counters = new LongAdder[CLASSES.length][COUNTERS.length];
+        this.distributions = new ConcurrentHistogram[CLASSES.length][DISTRIBUTIONS.length];
+        for (int c = 0; c < CLASSES.length; c++) {
+            for (int i = 0; i < COUNTERS.length; i++) {
+                counters[c][i] = new LongAdder();
+            }
+            for (int d = 0; d < DISTRIBUTIONS.length; d++) {
+                distributions[c][d] = new ConcurrentHistogram(DISTRIBUTIONS[d].bucketWidth,
+                    DISTRIBUTIONS[d].bucketCount);
+            }
+        }
+    }
+
+    // ============================================================
+    // רישום (נקרא מ-BattleSystem)
+    // ============================================================
+
+    /**
+     * @param damageTaken החיים שהמותקף איבד בפועל (אחרי שריון)
+     */
+    void recordAttack(CharacterClass attacker, CharacterClass defender, int damageTaken, boolean critical) {
+        add(attacker, Counter.ATTACKS, 1);
+        recordHit(attacker, defender, damageTaken);
+        if (critical) {
+            add(attacker, Counter.CRITICAL_HITS, 1);
+        }
+    }
+
+    /**
+     * @param damageTaken החיים שהיעד איבד בפועל
+     */
+    void recordSpecial(CharacterClass actor, CharacterClass target, boolean success,
+                       int damageTaken, boolean critical) {
+        add(actor, Counter.SPECIALS_ATTEMPTED, 1);
+        if (!success) {
+            return;
+        }
+        add(actor, Counter.SPECIALS_SUCCEEDED, 1);
+        if (damageTaken > 0) {
+            recordHit(actor, target, damageTaken);
+        }
+        if (critical) {
+            add(actor, Counter.CRITICAL_HITS, 1);
+        }
+    }
+
+    void recordPotion(CharacterClass actor) {
+        add(actor, Counter.POTIONS_USED, 1);
+    }
+
+    void recordFlee(CharacterClass actor, boolean success) {
+        add(actor, Counter.FLEE_ATTEMPTS, 1);
+        if (success) {
+            add(actor, Counter.FLEE_SUCCESSES, 1);
+        }
+    }
+
+    /**
+     * @param turns מספר הפעולות שבוצעו בקרב עד הניצחון
+     */
+    void recordKill(CharacterClass winner, CharacterClass loser, int turns) {
+        add(winner, Counter.KILLS, 1);
+        add(loser, Counter.DEATHS, 1);
+        distributions[winner.ordinal()][Distribution.TURNS_TO_KILL.ordinal()].record(turns);
+    }
+
+    private void recordHit(CharacterClass attacker, CharacterClass defender, int damageTaken) {
+        add(attacker, Counter.DAMAGE_DEALT, damageTaken);
+        add(defender, Counter.DAMAGE_TAKEN, damageTaken);
+        distributions[attacker.ordinal()][Distribution.HIT_DAMAGE.ordinal()].record(damageTaken);
+    }
+
+    private void add(CharacterClass characterClass, Counter counter, long amount) {
+        counters[characterClass.ordinal()][counter.ordinal()].add(amount);
+    }
+
+    // ============================================================
+    // קריאה
+    // ============================================================
+
+    /**
+     * @return צילום של כל המדדים ברגע הזה
+     */
+    public Snapshot snapshot() {
+        long[][] values = new long[CLASSES.length][COUNTERS.length];
+        Histogram[][] histograms = new Histogram[CLASSES.length][DISTRIBUTIONS.length];
+        for (int c = 0; c < CLASSES.length; c++) {
+            for (int i = 0; i < COUNTERS.length; i++) {
+                values[c][i] = counters[c][i].sum();
+            }
+            for (int d = 0; d < DISTRIBUTIONS.length; d++) {
+                histograms[c][d] = distributions[c][d].snapshot();
+            }
+        }
+        return new Snapshot(values, histograms);
+    }
+
+    /**
+     * צילום לקריאה בלבד של המדדים.
+     */
+    public static final class Snapshot {
+
+        private final long[][] values;
+        private final Histogram[][] histograms;
+
+        private Snapshot(long[][] values, Histogram[][] histograms) {
+            this.values = values;
+            this.histograms = histograms;
+        }
+
+        public long get(CharacterClass characterClass, Counter counter) {
+            return values[characterClass.ordinal()][counter.ordinal()];
+        }
+
+        public Histogram getHistogram(CharacterClass characterClass, Distribution distribution) {
+            return histograms[characterClass.ordinal()][distribution.ordinal()];
+        }
+
+        /**
+         * מייצא את כל המדדים כמפה שטוחה, למשל "warrior.damage_dealt" או "mage.hit_damage.p90".
+         *
+         * @return מפה מהשם של המדד לערך שלו
+         */
+        public HashMap<String, Long> toMap() {
+            HashMap<String, Long> map = new HashMap<>();
+            for (CharacterClass characterClass : CLASSES) {
+                String prefix = characterClass.name().toLowerCase() + ".";
+                for (Counter counter : COUNTERS) {
+                    map.put(prefix + counter.name().toLowerCase(), get(characterClass, counter));
+                }
+                for (Distribution distribution : DISTRIBUTIONS) {
+                    Histogram histogram = getHistogram(characterClass, distribution);
+                    String name = prefix + distribution.name().toLowerCase();
+                    map.put(name + ".count", histogram.getCount());
+                    map.put(name + ".p50", histogram.getPercentile(0.5));
+                    map.put(name + ".p90", histogram.getPercentile(0.9));
+                    map.put(name + ".max", histogram.getMax());
+                }
+            }
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (CharacterClass characterClass : CLASSES) {
+                sb.append(characterClass.getDisplayName()).append(':');
+                for (Counter counter : COUNTERS) {
+                    sb.append(' ').append(counter.name().toLowerCase()).append('=')
+                        .append(get(characterClass, counter));
+                }
+                sb.append("\n  hit damage: ").append(getHistogram(characterClass, Distribution.HIT_DAMAGE));
+                sb.append("\n  turns to kill: ").append(getHistogram(characterClass, Distribution.TURNS_TO_KILL));
+                sb.append('\n');
+            }
+            return sb.toString();
+        }
+    }
+}
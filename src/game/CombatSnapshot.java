@@ -0,0 +1,274 @@
+package game;
+
+import model.characters.Archer;
+import model.characters.Character;
+import model.characters.CharacterClass;
+import model.characters.Mage;
+import model.characters.Warrior;
+import model.items.Weapon;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * העתק קל של מצב קרב בין שתי דמויות, בשדות פרימיטיביים בלבד.
+ * משמש את המתכנן (MonteCarloPlanner) להרצת המשך קרב "על הנייר" בלי לגעת
+ * בדמויות האמיתיות. העתקה (copyFrom) היא העתקת מערכים קטנים, בלי הקצאות.
+ *
+ * החוקים (התקפה, יכולת מיוחדת, זעם, חיצים, קריטי, מאנה והפחתת שריון) והקבועים שלהם
+ * נלקחים מ-Warrior, Mage, Archer ו-Character עצמם, כך ששינוי איזון שם משנה גם את ההדמיה.
+ * שימוש בפריטים ובריחה לא מדומים.
+ */
+public final class CombatSnapshot {
+
+    // עמודה לכל נתון, אינדקס 0/1 לכל צד (BattleEvent.PLAYER / BattleEvent.ENEMY)
+    private final CharacterClass[] characterClass = new CharacterClass[2];
+    private final int[] health = new int[2];
+    private final int[] maxHealth = new int[2];
+    private final int[] mana = new int[2];
+    private final int[] strength = new int[2];
+    private final int[] weaponMin = new int[2];
+    private final int[] weaponSpan = new int[2];
+    private final double[] damageReduction = new double[2];
+    private final int[] initiative = new int[2];
+    private final int[] rage = new int[2];
+    private final int[] maxRage = new int[2];
+    private final int[] arrows = new int[2];
+    private final double[] critChance = new double[2];
+    private final double[] critMultiplier = new double[2];
+    private final int[] spellPower = new int[2];
+
+    private CombatSnapshot() {
+    }
+
+    /**
+     * מצלם את המצב הנוכחי של שתי הדמויות.
+     *
+     * @param first הדמות באינדקס 0
+     * @param second הדמות באינדקס 1
+     * @return תמונת המצב
+     */
+    public static CombatSnapshot capture(Character first, Character second) {
+        CombatSnapshot snapshot = new CombatSnapshot();
+        snapshot.load(0, first);
+        snapshot.load(1, second);
+        return snapshot;
+    }
+
+    private void load(int side, Character character) {
+        characterClass[side] = CharacterClass.of(character);
+        health[side] = character.getCurrentHealth();
+        maxHealth[side] = character.getMaxHealth();
+        mana[side] = character.getCurrentMana();
+        strength[side] = character.getStrength();
+        Weapon weapon = character.getEquippedWeapon();
+        if (weapon != null) {
+            weaponMin[side] = weapon.getMinDamage();
+            weaponSpan[side] = weapon.getMaxDamage() - weapon.getMinDamage();
+        }
+        damageReduction[side] = character.getDamageReduction();
+        initiative[side] = BattleAction.initiativeOf(character);
+
+        if (character instanceof Warrior) {
+            rage[side] = ((Warrior) character).getRage();
+            maxRage[side] = ((Warrior) character).getMaxRage();
+        } else if (character instanceof Archer) {
+            Archer archer = (Archer) character;
+            arrows[side] = archer.getArrows();
+            critChance[side] = archer.getCriticalChance();
+            critMultiplier[side] = archer.getCriticalMultiplier();
+        } else if (character instanceof Mage) {
+            spellPower[side] = ((Mage) character).getSpellPower();
+        }
+    }
+
+    /**
+     * @return העתק חדש של תמונת המצב
+     */
+    public CombatSnapshot copy() {
+        CombatSnapshot copy = new CombatSnapshot();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * דורס את המצב הזה במצב של other (בלי הקצאות).
+     *
+     * @param other המצב להעתקה
+     */
+    public void copyFrom(CombatSnapshot other) {
+        for (int side = 0; side < 2; side++) {
+            characterClass[side] = other.characterClass[side];
+            health[side] = other.health[side];
+            maxHealth[side] = other.maxHealth[side];
+            mana[side] = other.mana[side];
+            strength[side] = other.strength[side];
+            weaponMin[side] = other.weaponMin[side];
+            weaponSpan[side] = other.weaponSpan[side];
+            damageReduction[side] = other.damageReduction[side];
+            initiative[side] = other.initiative[side];
+            rage[side] = other.rage[side];
+            maxRage[side] = other.maxRage[side];
+            arrows[side] = other.arrows[side];
+            critChance[side] = other.critChance[side];
+            critMultiplier[side] = other.critMultiplier[side];
+            spellPower[side] = other.spellPower[side];
+        }
+    }
+
+    // ============================================================
+    // הדמיה
+    // ============================================================
+
+    /**
+     * מריץ סיבוב אחד שבו כל צד מבצע פעולה אחת, לפי אותו סדר כמו ActionScheduler
+     * (עדיפות, אחר כך יוזמה, ובשוויון - צד 0 קודם). צד שמת לפני תורו לא פועל.
+     *
+     * @param action0 הפעולה של צד 0
+     * @param action1 הפעולה של צד 1
+     * @param rnd מחולל אקראי
+     */
+    public void playRound(BattleAction.ActionType action0, BattleAction.ActionType action1,
+                          RandomGenerator rnd) {
+        int priority0 = BattleAction.defaultPriorityOf(action0);
+        int priority1 = BattleAction.defaultPriorityOf(action1);
+        boolean firstIsZero = priority0 != priority1
+            ? priority0 > priority1
+            : initiative[0] <= initiative[1];
+
+        if (firstIsZero) {
+            apply(0, action0, rnd);
+            if (!isOver()) {
+                apply(1, action1, rnd);
+            }
+        } else {
+            apply(1, action1, rnd);
+            if (!isOver()) {
+                apply(0, action0, rnd);
+            }
+        }
+    }
+
+    /**
+     * מבצע פעולה של צד אחד נגד הצד השני.
+     *
+     * @param side הצד שפועל
+     * @param type ATTACK, SPECIAL או DEFEND (שאר הפעולות לא משנות את המצב)
+     * @param rnd מחולל אקראי
+     */
+    public void apply(int side, BattleAction.ActionType type, RandomGenerator rnd) {
+        int target = 1 - side;
+        if (type == BattleAction.ActionType.ATTACK) {
+            takeDamage(target, attackDamage(side, rnd));
+        } else if (type == BattleAction.ActionType.SPECIAL) {
+            useSpecial(side, target, rnd);
+        }
+    }
+
+    /**
+     * @param side הצד
+     * @return האם יש לצד מספיק משאבים (זעם/מאנה/חיצים) ליכולת המיוחדת
+     */
+    public boolean canUseSpecial(int side) {
+        switch (characterClass[side]) {
+            case WARRIOR: return rage[side] >= Warrior.BERSERK_RAGE_COST;
+            case MAGE: return Character.hasManaFor(mana[side], Mage.FIREBALL_MANA_COST);
+            default: return arrows[side] >= Archer.MULTISHOT_ARROW_COST;
+        }
+    }
+
+    private int attackDamage(int side, RandomGenerator rnd) {
+        int damage = strength[side] + rollWeapon(side, rnd);
+        switch (characterClass[side]) {
+            case WARRIOR: return damage + Warrior.rageBonus(rage[side]);
+            case ARCHER: return applyCritical(side, damage, rnd);
+            default: return damage;
+        }
+    }
+
+    private void useSpecial(int side, int target, RandomGenerator rnd) {
+        if (!canUseSpecial(side)) {
+            return;
+        }
+        switch (characterClass[side]) {
+            case WARRIOR:
+                rage[side] -= Warrior.BERSERK_RAGE_COST;
+                takeDamage(target, attackDamage(side, rnd) * Warrior.BERSERK_DAMAGE_MULTIPLIER);
+                break;
+            case MAGE:
+                mana[side] -= Mage.FIREBALL_MANA_COST;
+                takeDamage(target, Mage.spellDamage(spellPower[side], Mage.FIREBALL_MULTIPLIER));
+                break;
+            default:
+                arrows[side] -= Archer.MULTISHOT_ARROW_COST;
+                for (int i = 0; i < Archer.MULTISHOT_ARROWS; i++) {
+                    int arrowDamage = Archer.multishotArrowDamage(strength[side] + rollWeapon(side, rnd));
+                    takeDamage(target, applyCritical(side, arrowDamage, rnd));
+                }
+                break;
+        }
+    }
+
+    private int rollWeapon(int side, RandomGenerator rnd) {
+        if (weaponSpan[side] == 0) {
+            return weaponMin[side];
+        }
+        return weaponMin[side] + rnd.nextInt(weaponSpan[side] + 1);
+    }
+
+    private int applyCritical(int side, int damage, RandomGenerator rnd) {
+        if (rnd.nextDouble() < critChance[side]) {
+            return Archer.criticalDamage(damage, critMultiplier[side]);
+        }
+        return damage;
+    }
+
+    private void takeDamage(int side, int damage) {
+        int actualDamage = Character.damageAfterReduction(damage, damageReduction[side]);
+        health[side] = Math.max(0, health[side] - actualDamage);
+        if (characterClass[side] == CharacterClass.WARRIOR) {
+            rage[side] = Warrior.rageAfterHit(rage[side], maxRage[side]);
+        }
+    }
+
+    // Getters
+    public boolean isOver() {
+        return health[0] <= 0 || health[1] <= 0;
+    }
+
+    /**
+     * @return הצד שנשאר בחיים אם הקרב נגמר, אחרת -1
+     */
+    public int getWinner() {
+        if (health[1] <= 0 && health[0] > 0) {
+            return 0;
+        }
+        if (health[0] <= 0 && health[1] > 0) {
+            return 1;
+        }
+        return -1;
+    }
+
+    public int getHealth(int side) {
+        return health[side];
+    }
+
+    public int getMaxHealth(int side) {
+        return maxHealth[side];
+    }
+
+    public int getMana(int side) {
+        return mana[side];
+    }
+
+    public int getRage(int side) {
+        return rage[side];
+    }
+
+    public int getArrows(int side) {
+        return arrows[side];
+    }
+
+    public CharacterClass getCharacterClass(int side) {
+        return characterClass[side];
+    }
+}
@@ -2,7 +2,9 @@ package game;
 
 import model.exceptions.InvalidActionException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 
 /**
  * מחלקה המייצגת את מפת המבוך.
@@ -111,7 +113,7 @@ public class DungeonMap {
         }
         ArrayList<GameLocation> accessibleLocations = new ArrayList<>();
 
-        for(String id : locations.get(currentLocationId).getConnectedLocationIds())
+        for(String id : locations.get(currentLocationId).getConnectedLocationIdsView())
         {
             accessibleLocations.add(locations.get(id));
         }
@@ -126,7 +128,7 @@ public class DungeonMap {
      */
     public ArrayList<GameLocation> getVisitedLocations() {
         ArrayList<GameLocation> visited = new ArrayList<>();
-        for(GameLocation loc : getAllLocations().values())
+        for(GameLocation loc : locations.values())
         {
             if (loc.isVisited())
                 visited.add(loc);
@@ -141,7 +143,7 @@ public class DungeonMap {
      */
     public ArrayList<GameLocation> getUnvisitedLocations() {
         ArrayList<GameLocation> notVisited = new ArrayList<>();
-        for(GameLocation loc : getAllLocations().values())
+        for(GameLocation loc : locations.values())
         {
             if (!loc.isVisited())
                 notVisited.add(loc);
@@ -218,7 +220,17 @@ public class DungeonMap {
         return locations.size();
     }
     
+    /**
+     * @return עותק של כל המיקומים (לשינוי חופשי). לקריאה בלבד עדיף getLocationsView
+     */
     public HashMap<String, GameLocation> getAllLocations() {
         return new HashMap<>(locations);
     }
+    
+    /**
+     * @return תצוגה חיה לקריאה בלבד של המיקומים לפי מזהה, בלי העתקה
+     */
+    public Map<String, GameLocation> getLocationsView() {
+        return Collections.unmodifiableMap(locations);
+    }
 }
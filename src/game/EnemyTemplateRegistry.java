@@ -0,0 +1,128 @@
+package game;
+
+import model.characters.Character;
+import model.characters.CharacterClass;
+import model.items.Weapon;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+
+/**
+ * מאגר תבניות של אויבים לפי סוג ורמה.
+ * התבנית נבנית פעם אחת (יצירה, עלייה לרמה, ציוד והנתונים הנגזרים), ומכאן
+ * כל אויב חדש הוא עותק זול שלה (Character.copy): השם והנשק משותפים בין כל העותקים,
+ * ורק הנתונים שמשתנים בקרב (חיים, מאנה, זעם, חיצים) מועתקים.
+ *
+ * אסור לשנות תבנית אחרי שהיא נבנתה - לכן getTemplate לא ציבורי, ו-spawn תמיד מחזיר עותק.
+ * thread-safe: בניית התבניות מסונכרנת, וההעתקה רק קוראת מהתבנית.
+ */
+public class EnemyTemplateRegistry {
+
+    private final boolean armed;
+    private final EnumMap<CharacterClass, ArrayList<Character>> templates;
+
+    /**
+     * יוצר מאגר של אויבים בלי נשק (כמו האויבים של Game).
+     */
+    public EnemyTemplateRegistry() {
+        this(false);
+    }
+
+    /**
+     * @param armed true כדי לצייד כל תבנית בנשק ההתחלה של הסוג שלה
+     */
+    public EnemyTemplateRegistry(boolean armed) {
+        this.armed = armed;
+        this.templates = new EnumMap<>(CharacterClass.class);
+        for (CharacterClass characterClass : CharacterClass.values()) {
+            templates.put(characterClass, new ArrayList<Character>());
+        }
+    }
+
+    // ============================================================
+    // יצירת אויבים
+    // ============================================================
+
+    /**
+     * יוצר אויב חדש מהתבנית של הסוג והרמה.
+     *
+     * @param characterClass הסוג
+     * @param level הרמה (1 ומעלה)
+     * @return אויב חדש עם חיים ומאנה מלאים
+     */
+    public Character spawn(CharacterClass characterClass, int level) {
+        return getTemplate(characterClass, level).copy();
+    }
+
+    /**
+     * יוצר גל של אויבים זהים מאותה תבנית.
+     *
+     * @param characterClass הסוג
+     * @param level הרמה
+     * @param count מספר האויבים
+     * @return רשימה חדשה של האויבים
+     */
+    public ArrayList<Character> spawnWave(CharacterClass characterClass, int level, int count) {
+        Character template = getTemplate(characterClass, level);
+        ArrayList<Character> wave = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            wave.add(template.copy());
+        }
+        return wave;
+    }
+
+    /**
+     * מחזיר את התבנית, ובונה אותה בפעם הראשונה.
+     */
+    synchronized Character getTemplate(CharacterClass characterClass, int level) {
+        if (level < 1) {
+            throw new IllegalArgumentException("level must be at least 1");
+        }
+        ArrayList<Character> byLevel = templates.get(characterClass);
+        while (byLevel.size() < level) {
+            byLevel.add(null);
+        }
+        Character template = byLevel.get(level - 1);
+        if (template == null) {
+            template = buildTemplate(characterClass, level);
+            byLevel.set(level - 1, template);
+        }
+        return template;
+    }
+
+    private Character buildTemplate(CharacterClass characterClass, int level) {
+        Character template = characterClass.create("Enemy " + characterClass.getDisplayName(), level);
+        if (armed) {
+            Weapon weapon = characterClass.createStartingWeapon();
+            try {
+                template.addItem(weapon);
+                template.equipWeapon(weapon);
+            } catch (Exception e) {
+                // לא יכול לקרות בדמות חדשה עם מלאי ריק
+                throw new IllegalStateException(e);
+            }
+        }
+        // מחשב את הנתונים הנגזרים פעם אחת, כדי שהעותקים יקבלו אותם מוכנים
+        template.getDamageReduction();
+        return template;
+    }
+
+    /**
+     * @return מספר התבניות שנבנו עד עכשיו
+     */
+    public synchronized int getTemplateCount() {
+        int count = 0;
+        for (ArrayList<Character> byLevel : templates.values()) {
+            for (Character template : byLevel) {
+                if (template != null) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    public boolean isArmed() {
+        return armed;
+    }
+}
@@ -22,6 +22,7 @@ public class Game {
     private Shop shop;
     private Scanner scanner;
     private boolean gameRunning;
+    private final EnemyTemplateRegistry enemies = new EnemyTemplateRegistry();
 
     public Game() {
         this.scanner = new Scanner(System.in);
@@ -68,21 +69,21 @@ public class Game {
                 player = new Warrior(name);
                 try {
                     player.addItem(new Weapon("Sword", "Basic Sword", 5, 10, ItemRarity.COMMON, 5, 8, WeaponType.SWORD));
-                    player.equipWeapon((Weapon)player.getInventory().get(0));
+                    player.equipWeapon((Weapon)player.getInventoryView().get(0));
                 } catch (Exception e) {}
                 break;
             case 2:
                 player = new Mage(name);
                 try {
                     player.addItem(new Weapon("Staff", "Wooden Staff", 3, 10, ItemRarity.COMMON, 2, 6, WeaponType.STAFF));
-                    player.equipWeapon((Weapon)player.getInventory().get(0));
+                    player.equipWeapon((Weapon)player.getInventoryView().get(0));
                 } catch (Exception e) {}
                 break;
             case 3:
                 player = new Archer(name);
                 try {
                     player.addItem(new Weapon("Bow", "Short Bow", 4, 10, ItemRarity.COMMON, 4, 7, WeaponType.BOW));
-                    player.equipWeapon((Weapon)player.getInventory().get(0));
+                    player.equipWeapon((Weapon)player.getInventoryView().get(0));
                 } catch (Exception e) {}
                 break;
             default:
@@ -243,7 +244,7 @@ public class Game {
             try {
                 if (item instanceof Weapon) player.equipWeapon((Weapon) item);
                 else if (item instanceof Armor) player.equipArmor((Armor) item);
-                else if (item instanceof Potion) ((Potion) item).use(player);
+                else if (item instanceof Potion) player.useItem(item.getName());
                 System.out.println("Action performed on " + item.getName());
             } catch (Exception e) {
                 System.out.println("Cannot use item: " + e.getMessage());
@@ -334,13 +335,14 @@ public class Game {
      */
     private void startBattle() {
         // 1. צור אויב (דמות אקראית)
-        Character enemy = new Warrior("Enemy Warrior");
+        Character enemy = enemies.spawn(CharacterClass.WARRIOR, 1);
 
         // 2. צור BattleSystem
         BattleSystem battle = new BattleSystem(player, enemy);
 
         // 3. הרץ את הקרב
         while (!battle.isBattleEnded()) {
+            battle.flushLog();
             System.out.println("1. Attack 2. Defend 3. Flee");
             int action = getPlayerChoice();
             try {
@@ -350,11 +352,14 @@ public class Game {
 
                 if (!battle.isBattleEnded()) battle.queueAction(battle.generateEnemyAction());
 
-                battle.processAllActions();
+                battle.processAllActions(null);
             } catch (Exception e) {
                 System.out.println("Battle error: " + e.getMessage());
             }
         }
+        battle.flushLog();
+        // שיקויי כוח והגנה פועלים רק בתוך הקרב
+        player.clearStatusEffects();
     }
 
     /**
@@ -1,7 +1,12 @@
 package game;
 
+import model.characters.Character;
+import model.items.Inventory;
 import model.items.Item;
+import model.items.ItemStack;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * מחלקה המייצגת מיקום במפת המשחק.
@@ -12,7 +17,7 @@ public class GameLocation {
     private String name;
     private String description;
     private ArrayList<String> connectedLocationIds;
-    private ArrayList<Item> loot;
+    private Inventory loot;  // עותקים זהים נערמים לרשומה אחת
     private boolean visited;
     private boolean hasMaster;
     private int dangerLevel;
@@ -23,7 +28,7 @@ public class GameLocation {
         this.description = description;
         this.dangerLevel = dangerLevel;
         this.connectedLocationIds = new ArrayList<>();
-        this.loot = new ArrayList<>();
+        this.loot = new Inventory();
         this.visited = false;
         this.hasMaster = false;
     }
@@ -64,13 +69,55 @@ public class GameLocation {
         loot.add(item);
     }
     
+    /**
+     * מוסיף כמה עותקים של פריט שאפשר לערום, כרשומה אחת.
+     * 
+     * @param item הפריט להוספה
+     * @param count מספר העותקים
+     */
+    public void addLoot(Item item, int count) {
+        loot.add(item, count);
+    }
+    
     /**
      * אוסף את כל השלל מהמיקום ומרוקן אותו.
+     * ערימות נפרשות לעותקים נפרדים - לאיסוף בלי לפרוש עדיף collectAllLootStacks.
      * 
      * @return רשימה של כל הפריטים שנאספו
      */
     public ArrayList<Item> collectAllLoot() {
-        ArrayList<Item> collected = new ArrayList<>(loot);
+        ArrayList<Item> collected = new ArrayList<>(loot.getTotalQuantity());
+        for (ItemStack stack : collectAllLootStacks()) {
+            collected.add(stack.getItem());
+            while (stack.getCount() > 1) {
+                collected.add(stack.split(1).getItem());
+            }
+        }
+        return collected;
+    }
+    
+    /**
+     * הדמות אוספת את השלל (ראו Character.pickUp). מה שלא נכנס במגבלת המשקל - משלל או
+     * מהמלאי הקודם של הדמות - נשאר במיקום כשלל.
+     * 
+     * @param collector הדמות האוספת
+     * @return מה שנשאר במיקום
+     */
+    public ArrayList<ItemStack> collectLoot(Character collector) {
+        ArrayList<ItemStack> leftBehind = collector.pickUp(collectAllLootStacks());
+        for (ItemStack stack : leftBehind) {
+            loot.add(stack);
+        }
+        return leftBehind;
+    }
+    
+    /**
+     * אוסף את כל השלל מהמיקום כערימות ומרוקן אותו.
+     * 
+     * @return רשימה של הערימות שנאספו
+     */
+    public ArrayList<ItemStack> collectAllLootStacks() {
+        ArrayList<ItemStack> collected = loot.toStacks();
         loot.clear();
         return collected;
     }
@@ -99,6 +146,31 @@ public class GameLocation {
         return new ArrayList<>(connectedLocationIds);
     }
     
+    /**
+     * @return תצוגה חיה לקריאה בלבד של המיקומים המחוברים, בלי העתקה
+     */
+    public List<String> getConnectedLocationIdsView() {
+        return Collections.unmodifiableList(connectedLocationIds);
+    }
+    
+    public int getConnectionCount() {
+        return connectedLocationIds.size();
+    }
+    
+    /**
+     * @return תצוגה חיה לקריאה בלבד של השלל במיקום, פריט אחד לכל ערימה
+     */
+    public List<Item> getLootView() {
+        return loot.asList();
+    }
+    
+    /**
+     * @return כמה עותקים של הפריט יש בשלל
+     */
+    public int getLootCount(String itemName) {
+        return loot.countByName(itemName);
+    }
+    
     public boolean isVisited() {
         return visited;
     }
@@ -0,0 +1,424 @@
+package game;
+
+import model.characters.Character;
+import model.exceptions.InventoryFullException;
+import model.exceptions.ItemNotFoundException;
+import model.items.Armor;
+import model.items.Item;
+import model.items.Weapon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * מוצא את הציוד הטוב ביותר (נשק אחד ושריון אחד לכל slot) מתוך המלאי והציוד של דמות.
+ *
+ * הציון הוא צירוף ליניארי (Objective) של נזק ממוצע של הנשק, הפחתת נזק של השריון
+ * (עם התקרה של 75%, כמו ב-Character) וסך ההגנה. אפשר גם להגביל את המשקל הכולל.
+ * בגלל התקרה והמשקל, "הכי טוב בכל slot" לא תמיד אופטימלי, ולכן החיפוש הוא
+ * branch-and-bound: שכבה לכל slot, וענף נחתך כשהחסם העליון שלו לא עובר את הטוב ביותר.
+ * לפני החיפוש כל slot מצטמצם לחזית Pareto (פריט שיש פריט קל יותר וטוב יותר ממנו נזרק),
+ * כך שגם אלפי פריטים מצטמצמים לקומץ מועמדים.
+ */
+public class LoadoutOptimizer {
+
+    private static final double MAX_DAMAGE_REDUCTION = 0.75;
+    private static final Armor.ArmorSlot[] SLOTS = Armor.ArmorSlot.values();
+
+    /**
+     * משקלות הציון. הפחתת הנזק נמדדת באחוזים (0 עד 75).
+     */
+    public static final class Objective {
+
+        public static final Objective DAMAGE_REDUCTION = new Objective(0, 1, 0);
+        public static final Objective EXPECTED_DAMAGE = new Objective(1, 0, 0);
+        public static final Objective BALANCED = new Objective(1, 1, 0);
+
+        private final double damageWeight;
+        private final double reductionWeight;
+        private final double defenseWeight;
+
+        /**
+         * @param damageWeight משקל לכל נקודת נזק ממוצע של הנשק
+         * @param reductionWeight משקל לכל אחוז של הפחתת נזק
+         * @param defenseWeight משקל לכל נקודת הגנה של השריון
+         */
+        public Objective(double damageWeight, double reductionWeight, double defenseWeight) {
+            if (damageWeight < 0 || reductionWeight < 0 || defenseWeight < 0) {
+                throw new IllegalArgumentException("weights must not be negative");
+            }
+            this.damageWeight = damageWeight;
+            this.reductionWeight = reductionWeight;
+            this.defenseWeight = defenseWeight;
+        }
+
+        /**
+         * @return הציון של ציוד שלם
+         */
+        public double score(Weapon weapon, double damageReduction, int armorDefense) {
+            double damage = weapon == null ? 0 : weapon.getAverageDamage();
+            return damageWeight * damage
+                + reductionWeight * 100 * Math.min(damageReduction, MAX_DAMAGE_REDUCTION)
+                + defenseWeight * armorDefense;
+        }
+    }
+
+    /**
+     * מועמד בשכבה אחת: פריט (או null = בלי פריט) והתרומה שלו.
+     */
+    private static final class Candidate {
+        final Item item;
+        final double linear;      // החלק בציון שלא תלוי בתקרה (נזק והגנה)
+        final double reduction;   // הפחתת נזק, לפני התקרה
+        final int weight;
+
+        Candidate(Item item, double linear, double reduction, int weight) {
+            this.item = item;
+            this.linear = linear;
+            this.reduction = reduction;
+            this.weight = weight;
+        }
+    }
+
+    private final Objective objective;
+    private final int maxWeight;
+
+    // מצב החיפוש הנוכחי
+    private Candidate[][] layers;
+    private double[] remainingLinear;
+    private double[] remainingReduction;
+    private Candidate[] path;
+    private Candidate[] best;
+    private double bestScore;
+    private long nodes;
+
+    public LoadoutOptimizer(Objective objective) {
+        this(objective, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param objective הציון למקסום
+     * @param maxWeight המשקל הכולל המקסימלי של הנשק והשריון
+     */
+    public LoadoutOptimizer(Objective objective, int maxWeight) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("maxWeight must not be negative");
+        }
+        this.objective = objective;
+        this.maxWeight = maxWeight;
+    }
+
+    // ============================================================
+    // חיפוש
+    // ============================================================
+
+    /**
+     * מחפש את הציוד הטוב ביותר מתוך המלאי והציוד הנוכחי של הדמות.
+     * אין ב-Character פעולה להסרת ציוד, ולכן slot שכבר יש בו פריט לא יישאר ריק.
+     *
+     * @param character הדמות
+     * @return הציוד הטוב ביותר
+     */
+    public Loadout optimize(Character character) {
+        ArrayList<Item> items = character.getInventory();
+        Map<Armor.ArmorSlot, Armor> equippedArmor = character.getEquippedArmor();
+        items.addAll(equippedArmor.values());
+        Weapon equippedWeapon = character.getEquippedWeapon();
+        if (equippedWeapon != null) {
+            items.add(equippedWeapon);
+        }
+        return search(items, equippedWeapon != null, equippedArmor.keySet());
+    }
+
+    /**
+     * מחפש את הציוד הטוב ביותר מתוך רשימת פריטים כלשהי. פריטים שאינם נשק או שריון מדולגים.
+     *
+     * @param items הפריטים
+     * @return הציוד הטוב ביותר
+     */
+    public Loadout optimize(List<? extends Item> items) {
+        return search(items, false, Collections.<Armor.ArmorSlot>emptySet());
+    }
+
+    private Loadout search(List<? extends Item> items, boolean weaponRequired,
+                           Set<Armor.ArmorSlot> requiredSlots) {
+        long start = System.nanoTime();
+        buildLayers(items, weaponRequired, requiredSlots);
+
+        int depth = layers.length;
+        remainingLinear = new double[depth + 1];
+        remainingReduction = new double[depth + 1];
+        for (int i = depth - 1; i >= 0; i--) {
+            double maxLinear = 0;
+            double maxReduction = 0;
+            for (Candidate candidate : layers[i]) {
+                maxLinear = Math.max(maxLinear, candidate.linear);
+                maxReduction = Math.max(maxReduction, candidate.reduction);
+            }
+            remainingLinear[i] = remainingLinear[i + 1] + maxLinear;
+            remainingReduction[i] = remainingReduction[i + 1] + maxReduction;
+        }
+
+        path = new Candidate[depth];
+        best = null;
+        bestScore = Double.NEGATIVE_INFINITY;
+        nodes = 0;
+        branch(0, 0, 0, 0);
+
+        Loadout result = toLoadout(best, bestScore, nodes, System.nanoTime() - start);
+        layers = null;
+        path = null;
+        best = null;
+        return result;
+    }
+
+    /**
+     * חיפוש לעומק: בכל שכבה מנסים את המועמדים מהטוב לגרוע, וחותכים ענף
+     * שגם במקרה הטוב ביותר לא יעבור את הציון הטוב ביותר שנמצא.
+     */
+    private void branch(int layer, double linear, double reduction, int weight) {
+        nodes++;
+        if (layer == layers.length) {
+            double score = linear + objective.reductionWeight * 100 * Math.min(reduction, MAX_DAMAGE_REDUCTION);
+            if (score > bestScore) {
+                bestScore = score;
+                best = path.clone();
+            }
+            return;
+        }
+        double bound = linear + remainingLinear[layer] + objective.reductionWeight * 100
+            * Math.min(reduction + remainingReduction[layer], MAX_DAMAGE_REDUCTION);
+        if (bound <= bestScore) {
+            return;
+        }
+        for (Candidate candidate : layers[layer]) {
+            if ((long) weight + candidate.weight > maxWeight) {
+                continue;
+            }
+            path[layer] = candidate;
+            branch(layer + 1, linear + candidate.linear, reduction + candidate.reduction,
+                weight + candidate.weight);
+        }
+    }
+
+    // ============================================================
+    // בניית השכבות
+    // ============================================================
+
+    /**
+     * מחלק את הפריטים לשכבות (נשק, ואז slot לכל שריון), מצמצם כל שכבה לחזית Pareto
+     * וממיין את השכבות כך שהשכבות המשפיעות ביותר נבחרות ראשונות.
+     */
+    private void buildLayers(List<? extends Item> items, boolean weaponRequired,
+                             Set<Armor.ArmorSlot> requiredSlots) {
+        ArrayList<Candidate> weapons = new ArrayList<>();
+        EnumMap<Armor.ArmorSlot, ArrayList<Candidate>> armorBySlot = new EnumMap<>(Armor.ArmorSlot.class);
+        for (Armor.ArmorSlot slot : SLOTS) {
+            armorBySlot.put(slot, new ArrayList<Candidate>());
+        }
+        for (Item item : items) {
+            if (item instanceof Weapon) {
+                Weapon weapon = (Weapon) item;
+                weapons.add(new Candidate(weapon, objective.damageWeight * weapon.getAverageDamage(), 0,
+                    weapon.getWeight()));
+            } else if (item instanceof Armor) {
+                Armor armor = (Armor) item;
+                armorBySlot.get(armor.getSlot()).add(new Candidate(armor,
+                    objective.defenseWeight * armor.getDefense(), armor.calculateDamageReduction(),
+                    armor.getWeight()));
+            }
+        }
+
+        ArrayList<Candidate[]> built = new ArrayList<>();
+        built.add(paretoFront(weapons, weaponRequired));
+        for (Armor.ArmorSlot slot : SLOTS) {
+            built.add(paretoFront(armorBySlot.get(slot), requiredSlots.contains(slot)));
+        }
+        layers = built.toArray(new Candidate[0][]);
+        Arrays.sort(layers, new Comparator<Candidate[]>() {
+            @Override
+            public int compare(Candidate[] a, Candidate[] b) {
+                return Double.compare(potential(b[0]), potential(a[0]));
+            }
+        });
+    }
+
+    /**
+     * משאיר רק מועמדים שאין מועמד אחר שקל מהם (או שווה) וטוב מהם בשני הרכיבים.
+     * כשאין הגבלת משקל, המשקל לא משנה והחזית קטנה עוד יותר.
+     * "בלי פריט" הוא מועמד במשקל 0, אלא אם ה-slot חייב להישאר מלא.
+     *
+     * @return המועמדים, מהציון הגבוה לנמוך
+     */
+    private Candidate[] paretoFront(ArrayList<Candidate> candidates, boolean required) {
+        final boolean weightMatters = maxWeight != Integer.MAX_VALUE;
+        if (!required || candidates.isEmpty()) {
+            candidates.add(new Candidate(null, 0, 0, 0));
+        }
+        Collections.sort(candidates, new Comparator<Candidate>() {
+            @Override
+            public int compare(Candidate a, Candidate b) {
+                if (weightMatters && a.weight != b.weight) {
+                    return Integer.compare(a.weight, b.weight);
+                }
+                int byLinear = Double.compare(b.linear, a.linear);
+                return byLinear != 0 ? byLinear : Double.compare(b.reduction, a.reduction);
+            }
+        });
+
+        ArrayList<Candidate> front = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            boolean dominated = false;
+            for (Candidate kept : front) {
+                // כל מי שכבר בחזית קל יותר או שווה במשקל (אם המשקל משנה)
+                if (kept.linear >= candidate.linear && kept.reduction >= candidate.reduction) {
+                    dominated = true;
+                    break;
+                }
+            }
+            if (!dominated) {
+                front.add(candidate);
+            }
+        }
+
+        Collections.sort(front, new Comparator<Candidate>() {
+            @Override
+            public int compare(Candidate a, Candidate b) {
+                return Double.compare(potential(b), potential(a));
+            }
+        });
+        return front.toArray(new Candidate[0]);
+    }
+
+    /**
+     * @return הציון של מועמד בלי להתחשב בתקרה - לסידור בלבד
+     */
+    private double potential(Candidate candidate) {
+        return candidate.linear + objective.reductionWeight * 100 * candidate.reduction;
+    }
+
+    private Loadout toLoadout(Candidate[] chosen, double score, long nodes, long elapsedNanos) {
+        Weapon weapon = null;
+        EnumMap<Armor.ArmorSlot, Armor> armor = new EnumMap<>(Armor.ArmorSlot.class);
+        if (chosen != null) {
+            for (Candidate candidate : chosen) {
+                if (candidate.item instanceof Weapon) {
+                    weapon = (Weapon) candidate.item;
+                } else if (candidate.item instanceof Armor) {
+                    Armor piece = (Armor) candidate.item;
+                    armor.put(piece.getSlot(), piece);
+                }
+            }
+        }
+        return new Loadout(weapon, armor, chosen == null ? 0 : score, nodes, elapsedNanos);
+    }
+
+    // ============================================================
+    // תוצאה
+    // ============================================================
+
+    /**
+     * ציוד שנבחר: נשק (או null) ושריון לכל slot שנבחר בו פריט.
+     */
+    public static final class Loadout {
+
+        private final Weapon weapon;
+        private final EnumMap<Armor.ArmorSlot, Armor> armor;
+        private final double score;
+        private final long nodesExplored;
+        private final long elapsedNanos;
+
+        private Loadout(Weapon weapon, EnumMap<Armor.ArmorSlot, Armor> armor, double score,
+                        long nodesExplored, long elapsedNanos) {
+            this.weapon = weapon;
+            this.armor = armor;
+            this.score = score;
+            this.nodesExplored = nodesExplored;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * מצייד את הדמות בפריטים שנבחרו. פריטים שכבר מצוידים לא מוחלפים.
+         *
+         * @param character הדמות (הפריטים צריכים להיות במלאי שלה או מצוידים)
+         * @throws ItemNotFoundException אם פריט לא נמצא במלאי
+         * @throws InventoryFullException אם אין מקום להחזיר פריט שהוחלף
+         */
+        public void apply(Character character) throws ItemNotFoundException, InventoryFullException {
+            if (weapon != null && character.getEquippedWeapon() != weapon) {
+                character.equipWeapon(weapon);
+            }
+            Map<Armor.ArmorSlot, Armor> equipped = character.getEquippedArmorView();
+            for (Armor piece : armor.values()) {
+                if (equipped.get(piece.getSlot()) != piece) {
+                    character.equipArmor(piece);
+                }
+            }
+        }
+
+        /**
+         * @return הפחתת הנזק של השריון שנבחר (עם התקרה)
+         */
+        public double getDamageReduction() {
+            double reduction = 0;
+            for (Armor piece : armor.values()) {
+                reduction += piece.calculateDamageReduction();
+            }
+            return Math.min(reduction, MAX_DAMAGE_REDUCTION);
+        }
+
+        public int getArmorDefense() {
+            int defense = 0;
+            for (Armor piece : armor.values()) {
+                defense += piece.getDefense();
+            }
+            return defense;
+        }
+
+        public int getWeight() {
+            int weight = weapon == null ? 0 : weapon.getWeight();
+            for (Armor piece : armor.values()) {
+                weight += piece.getWeight();
+            }
+            return weight;
+        }
+
+        // Getters
+        public Weapon getWeapon() {
+            return weapon;
+        }
+
+        public Armor getArmor(Armor.ArmorSlot slot) {
+            return armor.get(slot);
+        }
+
+        public Map<Armor.ArmorSlot, Armor> getArmor() {
+            return Collections.unmodifiableMap(armor);
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public long getNodesExplored() {
+            return nodesExplored;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Loadout: weapon=%s, armor=%s, score %.2f, reduction %.0f%%, weight %d",
+                weapon == null ? "none" : weapon.getName(), armor.values(), score,
+                getDamageReduction() * 100, getWeight());
+        }
+    }
+}
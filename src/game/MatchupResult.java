@@ -0,0 +1,140 @@
+package game;
+
+import model.characters.CharacterClass;
+import utils.Histogram;
+
+/**
+ * תוצאות מצטברות של סדרת קרבות בין שני סוגי דמויות.
+ * תוצאות חלקיות מכמה threads מאוחדות עם merge.
+ */
+public class MatchupResult {
+
+    private static final int DAMAGE_BUCKET_WIDTH = 10;
+    private static final int DAMAGE_BUCKETS = 100;
+
+    private final CharacterClass classA;
+    private final CharacterClass classB;
+    private long battles;
+    private long winsA;
+    private long winsB;
+    private long draws;
+    private long totalTurns;
+    private final Histogram damageByA;
+    private final Histogram damageByB;
+    private long elapsedNanos;
+
+    public MatchupResult(CharacterClass classA, CharacterClass classB) {
+        this.classA = classA;
+        this.classB = classB;
+        this.damageByA = new Histogram(DAMAGE_BUCKET_WIDTH, DAMAGE_BUCKETS);
+        this.damageByB = new Histogram(DAMAGE_BUCKET_WIDTH, DAMAGE_BUCKETS);
+    }
+
+    /**
+     * רושם תוצאה של קרב בודד.
+     *
+     * @param winner 0 אם A ניצח, 1 אם B ניצח, אחרת תיקו (בריחה או מגבלת תורות)
+     * @param turns מספר התורות בקרב
+     * @param damageDealtByA הנזק ש-A גרם
+     * @param damageDealtByB הנזק ש-B גרם
+     */
+    void recordBattle(int winner, int turns, int damageDealtByA, int damageDealtByB) {
+        battles++;
+        if (winner == 0) {
+            winsA++;
+        } else if (winner == 1) {
+            winsB++;
+        } else {
+            draws++;
+        }
+        totalTurns += turns;
+        damageByA.record(damageDealtByA);
+        damageByB.record(damageDealtByB);
+    }
+
+    /**
+     * מאחד תוצאות חלקיות של אותו matchup.
+     *
+     * @param other התוצאות לאיחוד
+     */
+    void merge(MatchupResult other) {
+        battles += other.battles;
+        winsA += other.winsA;
+        winsB += other.winsB;
+        draws += other.draws;
+        totalTurns += other.totalTurns;
+        damageByA.merge(other.damageByA);
+        damageByB.merge(other.damageByB);
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // Getters
+    public CharacterClass getClassA() {
+        return classA;
+    }
+
+    public CharacterClass getClassB() {
+        return classB;
+    }
+
+    public long getBattles() {
+        return battles;
+    }
+
+    public long getWinsA() {
+        return winsA;
+    }
+
+    public long getWinsB() {
+        return winsB;
+    }
+
+    public long getDraws() {
+        return draws;
+    }
+
+    public double getWinRateA() {
+        return battles == 0 ? 0.0 : (double) winsA / battles;
+    }
+
+    public double getWinRateB() {
+        return battles == 0 ? 0.0 : (double) winsB / battles;
+    }
+
+    public double getMeanTurns() {
+        return battles == 0 ? 0.0 : (double) totalTurns / battles;
+    }
+
+    public Histogram getDamageByA() {
+        return damageByA;
+    }
+
+    public Histogram getDamageByB() {
+        return damageByB;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return מספר הקרבות לשנייה שהסימולציה הגיעה אליו
+     */
+    public double getBattlesPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : battles * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s vs %s: %d battles | win %.1f%% / %.1f%% (draw %.1f%%) | mean turns %.2f | %.0f battles/s%n"
+                + "  damage by %s: %s%n  damage by %s: %s",
+            classA.getDisplayName(), classB.getDisplayName(), battles,
+            getWinRateA() * 100, getWinRateB() * 100,
+            battles == 0 ? 0.0 : draws * 100.0 / battles,
+            getMeanTurns(), getBattlesPerSecond(),
+            classA.getDisplayName(), damageByA, classB.getDisplayName(), damageByB);
+    }
+}
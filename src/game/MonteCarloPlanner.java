@@ -0,0 +1,236 @@
+package game;
+
+import utils.GameRandom;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.random.RandomGenerator;
+
+/**
+ * AI שמתכנן צעד אחד קדימה בשיטת Monte Carlo שטוחה:
+ * לכל פעולה אפשרית מריצים הרבה המשכי קרב אקראיים (rollouts) על עותק של
+ * CombatSnapshot, ובוחרים את הפעולה עם הציון הממוצע הגבוה ביותר.
+ *
+ * ההרצות מתחלקות בין ה-thread הקורא ל-tasks ב-ForkJoinPool, וכולן עוצרות
+ * כשנגמר תקציב הזמן. זמן ההחלטה חסום בתקציב (ועוד הרצה אחת) בלי קשר למספר
+ * ההרצות - task שלא הספיק להתחיל עד הדדליין פשוט לא נספר.
+ */
+public class MonteCarloPlanner {
+
+    public static final long DEFAULT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    public static final int MAX_ROUNDS_PER_ROLLOUT = 50;
+
+    // כמה זמן מחכים מעבר לדדליין ל-task שעדיין באמצע הרצה
+    private static final long GRACE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final BattleAction.ActionType[] WITH_SPECIAL = {
+        BattleAction.ActionType.ATTACK, BattleAction.ActionType.SPECIAL, BattleAction.ActionType.DEFEND
+    };
+    private static final BattleAction.ActionType[] WITHOUT_SPECIAL = {
+        BattleAction.ActionType.ATTACK, BattleAction.ActionType.DEFEND
+    };
+
+    private final long budgetNanos;
+    private final int maxRollouts;
+    private final ForkJoinPool pool;
+
+    // הנתונים של ההחלטה האחרונה (לבדיקות ולמדידה)
+    private int lastRollouts;
+    private long lastElapsedNanos;
+
+    public MonteCarloPlanner() {
+        this(DEFAULT_BUDGET_NANOS, Integer.MAX_VALUE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param budgetNanos תקציב הזמן לכל החלטה, בננו-שניות
+     * @param maxRollouts מספר ההרצות המקסימלי לכל החלטה (עוצרים במוקדם מבין השניים)
+     * @param pool ה-pool שבו רצות ההרצות המקבילות
+     */
+    public MonteCarloPlanner(long budgetNanos, int maxRollouts, ForkJoinPool pool) {
+        if (budgetNanos <= 0 || maxRollouts <= 0) {
+            throw new IllegalArgumentException("budget and rollouts must be positive");
+        }
+        this.budgetNanos = budgetNanos;
+        this.maxRollouts = maxRollouts;
+        this.pool = pool;
+    }
+
+    // ============================================================
+    // החלטה
+    // ============================================================
+
+    /**
+     * בוחר את הפעולה הטובה ביותר לצד אחד במצב הנתון.
+     *
+     * @param root מצב הקרב הנוכחי (לא משתנה)
+     * @param side הצד שמחליט (BattleEvent.PLAYER או BattleEvent.ENEMY)
+     * @return ATTACK, SPECIAL או DEFEND
+     */
+    public BattleAction.ActionType choose(CombatSnapshot root, int side) {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        BattleAction.ActionType[] candidates = root.canUseSpecial(side) ? WITH_SPECIAL : WITHOUT_SPECIAL;
+
+        int workers = Math.max(1, pool.getParallelism());
+        int perWorker = Math.max(1, maxRollouts / workers);
+        RolloutTask[] tasks = new RolloutTask[workers];
+        for (int i = 0; i < workers; i++) {
+            tasks[i] = new RolloutTask(root, side, candidates, deadline, perWorker);
+        }
+        for (int i = 1; i < workers; i++) {
+            pool.execute(tasks[i]);
+        }
+
+        // ה-thread הקורא עובד בעצמו, כך שגם pool עמוס לא משאיר את ההחלטה בלי הרצות
+        long[] counts = new long[candidates.length];
+        double[] scores = new double[candidates.length];
+        merge(tasks[0].invoke(), counts, scores);
+
+        for (int i = 1; i < workers; i++) {
+            long wait = Math.max(0, deadline + GRACE_NANOS - System.nanoTime());
+            try {
+                merge(tasks[i].get(wait, TimeUnit.NANOSECONDS), counts, scores);
+            } catch (TimeoutException e) {
+                tasks[i].cancel(false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                // task שנכשל פשוט לא נספר
+            }
+        }
+
+        int best = 0;
+        int total = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            total += counts[i];
+            if (mean(counts[i], scores[i]) > mean(counts[best], scores[best])) {
+                best = i;
+            }
+        }
+        lastRollouts = total;
+        lastElapsedNanos = System.nanoTime() - start;
+        return candidates[best];
+    }
+
+    private static void merge(double[] result, long[] counts, double[] scores) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += (long) result[2 * i];
+            scores[i] += result[2 * i + 1];
+        }
+    }
+
+    private static double mean(long count, double score) {
+        return count == 0 ? 0 : score / count;
+    }
+
+    /**
+     * מריץ המשך קרב אחד מ-scratch: הצעד הראשון של side נתון, כל השאר לפי
+     * ה-AI האקראי של BattleSystem.
+     *
+     * @return ציון בין 0 ל-1 מנקודת המבט של side (ניצחון קרוב ל-1, הפסד 0)
+     */
+    static double rollout(CombatSnapshot scratch, int side, BattleAction.ActionType first,
+                          RandomGenerator rnd) {
+        BattleAction.ActionType mine = first;
+        int round = 0;
+        for (; round < MAX_ROUNDS_PER_ROLLOUT && !scratch.isOver(); round++) {
+            BattleAction.ActionType theirs = randomAction(rnd);
+            if (side == 0) {
+                scratch.playRound(mine, theirs, rnd);
+            } else {
+                scratch.playRound(theirs, mine, rnd);
+            }
+            mine = randomAction(rnd);
+        }
+
+        int winner = scratch.getWinner();
+        if (winner == side) {
+            // ניצחון מהיר עדיף מעט על ניצחון איטי
+            return 1.0 - 0.001 * round;
+        }
+        if (winner == 1 - side) {
+            return 0.0;
+        }
+        // הקרב לא הוכרע - לפי אחוז החיים שנשאר לכל צד
+        double mineLeft = (double) scratch.getHealth(side) / scratch.getMaxHealth(side);
+        double theirsLeft = (double) scratch.getHealth(1 - side) / scratch.getMaxHealth(1 - side);
+        return 0.5 + 0.5 * (mineLeft - theirsLeft);
+    }
+
+    /**
+     * אותה התפלגות כמו ה-AI של BattleSystem: 25% הגנה, 35% יכולת מיוחדת, 40% התקפה.
+     */
+    private static BattleAction.ActionType randomAction(RandomGenerator rnd) {
+        int number = rnd.nextInt(0, 101);
+        if (number < 25) {
+            return BattleAction.ActionType.DEFEND;
+        }
+        if (number < 60) {
+            return BattleAction.ActionType.SPECIAL;
+        }
+        return BattleAction.ActionType.ATTACK;
+    }
+
+    // Getters
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    /**
+     * @return מספר ההרצות שנספרו בהחלטה האחרונה
+     */
+    public int getLastRollouts() {
+        return lastRollouts;
+    }
+
+    /**
+     * @return כמה זמן לקחה ההחלטה האחרונה, בננו-שניות
+     */
+    public long getLastElapsedNanos() {
+        return lastElapsedNanos;
+    }
+
+    /**
+     * הרצות של worker אחד עד הדדליין, על עותק פרטי של המצב.
+     * התוצאה: לכל פעולה מועמדת, זוג (מספר הרצות, סכום הציונים).
+     */
+    private static class RolloutTask extends RecursiveTask<double[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final CombatSnapshot root;
+        private final int side;
+        private final BattleAction.ActionType[] candidates;
+        private final long deadline;
+        private final int limit;
+
+        RolloutTask(CombatSnapshot root, int side, BattleAction.ActionType[] candidates,
+                    long deadline, int limit) {
+            this.root = root;
+            this.side = side;
+            this.candidates = candidates;
+            this.deadline = deadline;
+            this.limit = limit;
+        }
+
+        @Override
+        protected double[] compute() {
+            double[] result = new double[2 * candidates.length];
+            CombatSnapshot scratch = root.copy();
+            RandomGenerator rnd = GameRandom.current();
+
+            for (int n = 0; n < limit && System.nanoTime() < deadline; n++) {
+                int candidate = n % candidates.length;
+                scratch.copyFrom(root);
+                result[2 * candidate] += 1;
+                result[2 * candidate + 1] += rollout(scratch, side, candidates[candidate], rnd);
+            }
+            return result;
+        }
+    }
+}
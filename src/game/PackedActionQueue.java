@@ -0,0 +1,234 @@
+package game;
+
+/**
+ * תור פעולות פרימיטיבי: כל פעולה מקודדת ל-long אחד ונשמרת במערך מעגלי (ring buffer).
+ * אחרי שהמערך הגיע לגודל העבודה שלו, הכנסה והוצאה לא יוצרות אף אובייקט.
+ *
+ * מבנה הקוד (מהביט הנמוך):
+ * <pre>
+ *  0-15  אינדקס הפריט בטבלת הפריטים של הקרב (NO_ITEM = אין פריט)
+ * 16-19  ActionType.ordinal()
+ * 20-27  אינדקס היעד
+ * 28-35  אינדקס המבצע
+ * 36-43  יוזמה (0-255)
+ * 44-51  עדיפות (0-255)
+ * </pre>
+ * סדר הביצוע זהה ל-ActionScheduler: עדיפות גבוהה קודם, אחר כך יוזמה נמוכה,
+ * ובשוויון - לפי סדר ההכנסה. פעולה חדשה מוכנסת למקומה מהסוף, כך שבתור
+ * של סיבוב אחד (כמה פעולות) ההכנסה כמעט תמיד O(1).
+ */
+public class PackedActionQueue {
+
+    public static final int NO_ITEM = 0xFFFF;
+    public static final int MAX_INDEX = 0xFF;
+    public static final int MAX_PRIORITY = 0xFF;
+
+    private static final int ITEM_SHIFT = 0;
+    private static final int TYPE_SHIFT = 16;
+    private static final int TARGET_SHIFT = 20;
+    private static final int ACTOR_SHIFT = 28;
+    private static final int INITIATIVE_SHIFT = 36;
+    private static final int PRIORITY_SHIFT = 44;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] codes;
+    private int head;   // האינדקס של הפעולה הבאה לביצוע
+    private int size;
+
+    public PackedActionQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity הקיבולת ההתחלתית (מעוגלת לחזקה של 2)
+     */
+    public PackedActionQueue(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, initialCapacity) - 1) << 1;
+        this.codes = new long[capacity];
+        this.head = 0;
+        this.size = 0;
+    }
+
+    // ============================================================
+    // קידוד
+    // ============================================================
+
+    /**
+     * מקודד פעולה ל-long אחד.
+     *
+     * @param actorIndex אינדקס המבצע (0-255)
+     * @param targetIndex אינדקס היעד (0-255)
+     * @param type סוג הפעולה
+     * @param priority עדיפות (0 עד MAX_PRIORITY)
+     * @param initiative יוזמה (0-255)
+     * @param itemRef אינדקס הפריט בטבלת הפריטים, או NO_ITEM
+     * @return הקוד
+     * @throws IllegalArgumentException אם אחד השדות מחוץ לטווח שלו
+     */
+    public static long encode(int actorIndex, int targetIndex, BattleAction.ActionType type,
+                              int priority, int initiative, int itemRef) {
+        checkRange("actor", actorIndex, MAX_INDEX);
+        checkRange("target", targetIndex, MAX_INDEX);
+        checkRange("priority", priority, MAX_PRIORITY);
+        checkRange("initiative", initiative, 0xFF);
+        checkRange("item", itemRef, NO_ITEM);
+        return ((long) itemRef << ITEM_SHIFT)
+            | ((long) type.ordinal() << TYPE_SHIFT)
+            | ((long) targetIndex << TARGET_SHIFT)
+            | ((long) actorIndex << ACTOR_SHIFT)
+            | ((long) initiative << INITIATIVE_SHIFT)
+            | ((long) priority << PRIORITY_SHIFT);
+    }
+
+    private static void checkRange(String field, int value, int max) {
+        if (value < 0 || value > max) {
+            throw new IllegalArgumentException(field + " out of range: " + value);
+        }
+    }
+
+    public static int itemOf(long code) {
+        return (int) (code >>> ITEM_SHIFT) & 0xFFFF;
+    }
+
+    public static int typeOf(long code) {
+        return (int) (code >>> TYPE_SHIFT) & 0xF;
+    }
+
+    public static int targetOf(long code) {
+        return (int) (code >>> TARGET_SHIFT) & 0xFF;
+    }
+
+    public static int actorOf(long code) {
+        return (int) (code >>> ACTOR_SHIFT) & 0xFF;
+    }
+
+    public static int initiativeOf(long code) {
+        return (int) (code >>> INITIATIVE_SHIFT) & 0xFF;
+    }
+
+    public static int priorityOf(long code) {
+        return (int) (code >>> PRIORITY_SHIFT) & 0xFF;
+    }
+
+    /**
+     * מפתח הסדר של קוד: גדול יותר = מתבצע קודם.
+     */
+    private static int orderKey(long code) {
+        return (priorityOf(code) << 8) | (0xFF - initiativeOf(code));
+    }
+
+    // ============================================================
+    // פעולות התור
+    // ============================================================
+
+    /**
+     * מוסיף פעולה לתור, במקום שמתאים לעדיפות וליוזמה שלה.
+     *
+     * @param code הפעולה המקודדת
+     */
+    public void offer(long code) {
+        if (size == codes.length) {
+            grow();
+        }
+        int mask = codes.length - 1;
+        int key = orderKey(code);
+        int pos = size;
+        // מזיזים אחורה את הפעולות שמתבצעות אחרי הפעולה החדשה
+        while (pos > 0) {
+            long previous = codes[(head + pos - 1) & mask];
+            if (orderKey(previous) >= key) {
+                break;
+            }
+            codes[(head + pos) & mask] = previous;
+            pos--;
+        }
+        codes[(head + pos) & mask] = code;
+        size++;
+    }
+
+    /**
+     * מוציא את הפעולה הבאה לביצוע.
+     *
+     * @return הקוד שלה
+     * @throws IllegalStateException אם התור ריק
+     */
+    public long poll() {
+        if (size == 0) {
+            throw new IllegalStateException("queue is empty");
+        }
+        long code = codes[head];
+        head = (head + 1) & (codes.length - 1);
+        size--;
+        return code;
+    }
+
+    /**
+     * @return הפעולה הבאה לביצוע בלי להוציא אותה
+     * @throws IllegalStateException אם התור ריק
+     */
+    public long peek() {
+        if (size == 0) {
+            throw new IllegalStateException("queue is empty");
+        }
+        return codes[head];
+    }
+
+    /**
+     * @param index 0 = הפעולה הבאה לביצוע
+     * @return הקוד במקום הזה בתור
+     */
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        return codes[(head + index) & (codes.length - 1)];
+    }
+
+    /**
+     * מסיר את כל הפעולות של מבצע מסוים במעבר אחד, ושומר על הסדר של השאר.
+     *
+     * @param actorIndex אינדקס המבצע
+     * @return מספר הפעולות שהוסרו
+     */
+    public int removeActionsOf(int actorIndex) {
+        int mask = codes.length - 1;
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            long code = codes[(head + i) & mask];
+            if (actorOf(code) != actorIndex) {
+                codes[(head + kept) & mask] = code;
+                kept++;
+            }
+        }
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getCapacity() {
+        return codes.length;
+    }
+
+    private void grow() {
+        long[] larger = new long[codes.length * 2];
+        for (int i = 0; i < size; i++) {
+            larger[i] = codes[(head + i) & (codes.length - 1)];
+        }
+        codes = larger;
+        head = 0;
+    }
+}
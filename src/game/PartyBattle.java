@@ -0,0 +1,261 @@
+package game;
+
+import model.characters.Archer;
+import model.characters.Character;
+import model.items.Weapon;
+import utils.GameRandom;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * קרב של קבוצה מול קבוצה (party מול horde), גם עם אלפי יחידות.
+ * בתחילת הקרב הנתונים של כל דמות מועתקים למערכים פרימיטיביים מקבילים
+ * (struct-of-arrays) לפי מזהה יחידה, הקרב רץ על המערכים,
+ * ובסוף החיים נכתבים חזרה לדמויות - Character נשאר המקור המוסמך.
+ * כל סיבוב עולה O(מספר היחידות).
+ *
+ * הקרב מדמה התקפות רגילות בלבד: כוח + נזק נשק, פגיעות קריטיות של קשתים
+ * והפחתת שריון. יכולות מיוחדות וזעם של לוחם לא נכללים.
+ */
+public class PartyBattle {
+
+    public static final int PARTY = 0;
+    public static final int HORDE = 1;
+
+    /**
+     * מדיניות בחירת יעד להתקפה.
+     */
+    public enum TargetPolicy {
+        FRONT,   // היחידה החיה הראשונה בקבוצה היריבה
+        RANDOM   // יחידה חיה אקראית מהקבוצה היריבה
+    }
+
+    // המקור המוסמך - לפי מזהה יחידה
+    private final Character[] combatants;
+
+    // struct-of-arrays: עמודה לכל נתון, שורה לכל יחידה
+    private final int[] team;
+    private final int[] health;
+    private final int[] strength;
+    private final int[] weaponMin;
+    private final int[] weaponSpan;
+    private final double[] damageReduction;
+    private final double[] critChance;
+    private final double[] critMultiplier;
+
+    // היחידות החיות בכל קבוצה (הסרה ב-O(1) בהחלפה עם האחרונה)
+    private final int[][] alive;
+    private final int[] aliveCount;
+    private final int[] aliveSlot;
+
+    // FRONT: המזהה הראשון שאולי עדיין חי בכל קבוצה (זז רק קדימה)
+    private final int[] frontCursor;
+    private final int[] teamStart;
+    private final int[] teamEnd;
+
+    private final TargetPolicy[] policies;
+    private final RandomGenerator random;
+    private int rounds;
+
+    /**
+     * @param party הקבוצה הראשונה
+     * @param horde הקבוצה השנייה
+     * @param partyPolicy איך הקבוצה הראשונה בוחרת יעדים
+     * @param hordePolicy איך הקבוצה השנייה בוחרת יעדים
+     * @param random מחולל אקראי, או null כדי להשתמש במחולל של ה-thread הנוכחי
+     */
+    public PartyBattle(List<? extends Character> party, List<? extends Character> horde,
+                       TargetPolicy partyPolicy, TargetPolicy hordePolicy, RandomGenerator random) {
+        int n = party.size() + horde.size();
+        this.combatants = new Character[n];
+        this.team = new int[n];
+        this.health = new int[n];
+        this.strength = new int[n];
+        this.weaponMin = new int[n];
+        this.weaponSpan = new int[n];
+        this.damageReduction = new double[n];
+        this.critChance = new double[n];
+        this.critMultiplier = new double[n];
+
+        this.alive = new int[][] { new int[party.size()], new int[horde.size()] };
+        this.aliveCount = new int[2];
+        this.aliveSlot = new int[n];
+        this.teamStart = new int[] { 0, party.size() };
+        this.teamEnd = new int[] { party.size(), n };
+        this.frontCursor = new int[] { 0, party.size() };
+
+        this.policies = new TargetPolicy[] { partyPolicy, hordePolicy };
+        this.random = random;
+        this.rounds = 0;
+
+        int id = 0;
+        for (Character character : party) {
+            load(id++, PARTY, character);
+        }
+        for (Character character : horde) {
+            load(id++, HORDE, character);
+        }
+    }
+
+    /**
+     * מעתיק את הנתונים של דמות לעמודות.
+     */
+    private void load(int id, int side, Character character) {
+        combatants[id] = character;
+        team[id] = side;
+        health[id] = character.getCurrentHealth();
+        strength[id] = character.getStrength();
+
+        Weapon weapon = character.getEquippedWeapon();
+        if (weapon != null) {
+            weaponMin[id] = weapon.getMinDamage();
+            weaponSpan[id] = weapon.getMaxDamage() - weapon.getMinDamage();
+        }
+        damageReduction[id] = character.getDamageReduction();
+
+        if (character instanceof Archer) {
+            Archer archer = (Archer) character;
+            critChance[id] = archer.getCriticalChance();
+            critMultiplier[id] = archer.getCriticalMultiplier();
+        }
+
+        if (health[id] > 0) {
+            aliveSlot[id] = aliveCount[side];
+            alive[side][aliveCount[side]++] = id;
+        }
+    }
+
+    // ============================================================
+    // הרצת הקרב
+    // ============================================================
+
+    /**
+     * מריץ סיבוב אחד: כל יחידה חיה (לפי סדר המזהים) תוקפת יעד אחד.
+     *
+     * @return true אם הקרב ממשיך אחרי הסיבוב
+     */
+    public boolean playRound() {
+        if (isOver()) {
+            return false;
+        }
+        rounds++;
+        RandomGenerator rnd = (random != null) ? random : GameRandom.current();
+
+        for (int attacker = 0; attacker < combatants.length; attacker++) {
+            if (health[attacker] <= 0) {
+                continue;
+            }
+            int opponents = 1 - team[attacker];
+            if (aliveCount[opponents] == 0) {
+                break;
+            }
+            int target = selectTarget(team[attacker], rnd);
+
+            int damage = strength[attacker] + weaponMin[attacker];
+            if (weaponSpan[attacker] > 0) {
+                damage += rnd.nextInt(weaponSpan[attacker] + 1);
+            }
+            if (critChance[attacker] > 0 && rnd.nextDouble() < critChance[attacker]) {
+                damage = (int) (damage * critMultiplier[attacker]);
+            }
+
+            int actualDamage = (int) Math.ceil(damage * (1 - damageReduction[target]));
+            health[target] = Math.max(0, health[target] - actualDamage);
+            if (health[target] == 0) {
+                removeAlive(target);
+            }
+        }
+        return !isOver();
+    }
+
+    /**
+     * מריץ סיבובים עד שאחת הקבוצות מובסת או עד maxRounds, וכותב את התוצאה לדמויות.
+     *
+     * @param maxRounds מספר הסיבובים המקסימלי
+     * @return הקבוצה המנצחת (PARTY או HORDE), או -1 אם אין מנצח
+     */
+    public int run(int maxRounds) {
+        while (rounds < maxRounds && playRound()) {
+            // ממשיכים עד סוף הקרב
+        }
+        writeBack();
+        return getWinningTeam();
+    }
+
+    /**
+     * כותב את החיים מהעמודות חזרה לדמויות.
+     */
+    public void writeBack() {
+        for (int id = 0; id < combatants.length; id++) {
+            combatants[id].setCurrentHealth(health[id]);
+        }
+    }
+
+    /**
+     * בוחר יעד חי מהקבוצה היריבה לפי המדיניות של הקבוצה התוקפת.
+     * FRONT עולה O(1) בממוצע, כי הסמן רק מתקדם ויחידה מתה לא חוזרת לחיים.
+     */
+    private int selectTarget(int attackerTeam, RandomGenerator rnd) {
+        int side = 1 - attackerTeam;
+        if (policies[attackerTeam] == TargetPolicy.RANDOM) {
+            return alive[side][rnd.nextInt(aliveCount[side])];
+        }
+        int cursor = frontCursor[side];
+        while (cursor < teamEnd[side] && health[cursor] <= 0) {
+            cursor++;
+        }
+        frontCursor[side] = cursor;
+        return cursor;
+    }
+
+    private void removeAlive(int id) {
+        int side = team[id];
+        int slot = aliveSlot[id];
+        int last = alive[side][--aliveCount[side]];
+        alive[side][slot] = last;
+        aliveSlot[last] = slot;
+    }
+
+    // Getters
+    public boolean isOver() {
+        return aliveCount[PARTY] == 0 || aliveCount[HORDE] == 0;
+    }
+
+    /**
+     * @return PARTY או HORDE אם הקבוצה השנייה מובסת, אחרת -1
+     */
+    public int getWinningTeam() {
+        if (aliveCount[HORDE] == 0 && aliveCount[PARTY] > 0) {
+            return PARTY;
+        }
+        if (aliveCount[PARTY] == 0 && aliveCount[HORDE] > 0) {
+            return HORDE;
+        }
+        return -1;
+    }
+
+    public int getAliveCount(int side) {
+        return aliveCount[side];
+    }
+
+    public int getTeamSize(int side) {
+        return teamEnd[side] - teamStart[side];
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    public int getHealth(int id) {
+        return health[id];
+    }
+
+    public Character getCombatant(int id) {
+        return combatants[id];
+    }
+
+    public int getCombatantCount() {
+        return combatants.length;
+    }
+}
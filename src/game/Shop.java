@@ -1,7 +1,11 @@
 package game;
 
 import model.characters.Character;
+import model.items.Inventory;
+import model.items.InventoryListener;
+import model.items.InventoryTotals;
 import model.items.Item;
+import model.items.Stackable;
 import model.items.Weapon;
 import model.items.Armor;
 import model.items.Potion;
@@ -20,13 +24,52 @@ import java.util.HashMap;
 public class Shop {
 
     private String name;
-    private ArrayList<Item> inventory;
+    private Inventory inventory;
     private HashMap<String, Integer> stock; // מיפוי שם פריט לכמות במלאי
 
+    // מאזינים לשינויים במלאי. הראשון הוא totals, שמחזיק את הסכומים של החנות
+    private final ArrayList<InventoryListener> listeners;
+    private final InventoryTotals totals;
+
     public Shop(String name) {
         this.name = name;
-        this.inventory = new ArrayList<>();
+        this.inventory = new Inventory();
         this.stock = new HashMap<>();
+        this.totals = new InventoryTotals();
+        this.listeners = new ArrayList<>();
+        this.listeners.add(totals);
+    }
+
+    // ============================================================
+    // מאזינים וסכומים
+    // ============================================================
+
+    /**
+     * רושם מאזין לשינויים במלאי החנות: ADDED כשמוסיפים מלאי או כשקונים מהשחקן,
+     * REMOVED כשהשחקן קונה.
+     * * @param listener המאזין
+     */
+    public void addInventoryListener(InventoryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeInventoryListener(InventoryListener listener) {
+        if (listener != totals) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * @return הסכומים הרצים של מלאי החנות (לפי הכמות במלאי), מתעדכנים בכל שינוי
+     */
+    public InventoryTotals getInventoryTotals() {
+        return totals;
+    }
+
+    private void fire(InventoryListener.Change change, Item item, int count) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onInventoryChange(change, item, count);
+        }
     }
 
     // ============================================================
@@ -36,9 +79,14 @@ public class Shop {
     /**
      * מוסיף פריט לחנות עם כמות מסוימת.
      * * @param item הפריט להוספה
-     * @param quantity הכמות
+     * @param quantity הכמות (1 ומעלה)
+     * @throws IllegalArgumentException אם הכמות לא חיובית
      */
     public void addItemToShop(Item item, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive: " + quantity);
+        }
+
         // אם הפריט לא קיים ברשימה, נוסיף אותו
         if (!inventory.contains(item)) {
             inventory.add(item);
@@ -47,6 +95,7 @@ public class Shop {
         // עדכון המלאי צריך לקרות בכל מקרה (גם אם הפריט כבר היה ברשימה)
         int currentStock = stock.getOrDefault(item.getName(), 0);
         stock.put(item.getName(), currentStock + quantity);
+        fire(InventoryListener.Change.ADDED, item, quantity);
     }
 
     /**
@@ -72,18 +121,16 @@ public class Shop {
      * @return רשימת פריטים מהקטגוריה
      */
     public ArrayList<Item> getItemsByCategory(String category) {
-        ArrayList<Item> result = new ArrayList<>();
         category = category.toLowerCase(); // כדי למנוע בעיות של אותיות גדולות/קטנות
 
-        for (Item item : inventory) {
-            // בודקים אם יש במלאי לפני שמציגים? (בד"כ כן, אבל כאן נחזיר את כל הסוגים הקיימים בחנות)
-            if (category.equals("weapon") && item instanceof Weapon) {
-                result.add(item);
-            } else if (category.equals("armor") && item instanceof Armor) {
-                result.add(item);
-            } else if (category.equals("potion") && item instanceof Potion) {
-                result.add(item);
-            }
+        // מחזירים את כל הסוגים הקיימים בחנות, ישר מהאינדקס לפי מחלקה
+        ArrayList<Item> result = new ArrayList<>();
+        if (category.equals("weapon")) {
+            result.addAll(inventory.findByType(Weapon.class));
+        } else if (category.equals("armor")) {
+            result.addAll(inventory.findByType(Armor.class));
+        } else if (category.equals("potion")) {
+            result.addAll(inventory.findByType(Potion.class));
         }
         return result;
     }
@@ -107,13 +154,7 @@ public class Shop {
             InventoryFullException {
 
         // 1. חפש את הפריט ב-inventory לפי שם
-        Item itemToBuy = null;
-        for (Item item : inventory) {
-            if (item.getName().equals(itemName)) {
-                itemToBuy = item;
-                break;
-            }
-        }
+        Item itemToBuy = inventory.findFirst(itemName);
 
         if (itemToBuy == null) {
             throw new ItemNotFoundException(itemName);
@@ -130,15 +171,18 @@ public class Shop {
             throw new InsufficientGoldException(itemToBuy.getBuyPrice(), customer.getGold());
         }
 
-        // 4. בדוק שיש מקום במלאי של השחקן (לפני שלוקחים כסף)
-        if (customer.getInventorySize() >= customer.getMaxInventorySize()) {
-            throw new InventoryFullException(itemName, customer.getMaxInventorySize());
-        }
+        // 4. בדוק שיש מקום ומשקל פנוי אצל השחקן (לפני שלוקחים כסף) - ערימה קיימת לא צריכה מקום
+        customer.checkRoomFor(itemToBuy, 1);
 
         // 5. בצע את העסקה
         customer.spendGold(itemToBuy.getBuyPrice());
-        customer.addItem(itemToBuy); // הוספת הפריט לשחקן
         stock.put(itemName, currentStock - 1); // הפחתת המלאי בחנות
+        fire(InventoryListener.Change.REMOVED, itemToBuy, 1);
+        // פריט שאפשר לערום עלול להשתנות אצל השחקן (שיקוי) - הוא מקבל עותק משלו ולא את הפריט של החנות
+        if (itemToBuy instanceof Stackable) {
+            itemToBuy = ((Stackable) itemToBuy).copy();
+        }
+        customer.addItem(itemToBuy); // הוספת הפריט לשחקן
 
         return itemToBuy;
     }
@@ -156,13 +200,7 @@ public class Shop {
             throws ItemNotFoundException, InvalidActionException {
 
         // 1. חפש את הפריט במלאי השחקן (אנחנו לא מסירים עדיין כדי לבדוק אותו)
-        Item itemToSell = null;
-        for (Item item : seller.getInventory()) {
-            if (item.getName().equals(itemName)) {
-                itemToSell = item;
-                break;
-            }
-        }
+        Item itemToSell = seller.findItem(itemName);
 
         if (itemToSell == null) {
             throw new ItemNotFoundException(itemName);
@@ -173,8 +211,9 @@ public class Shop {
             throw new InvalidActionException("Sell Item", "Item '" + itemName + "' cannot be sold.");
         }
 
-        // 3. הסר מהשחקן והוסף לחנות
-        seller.removeItem(itemName); // זורק ItemNotFoundException שכבר טיפלנו בו תיאורטית
+        // 3. הסר מהשחקן והוסף לחנות - מוסיפים את העותק שהוסר, ולא את הפריט המייצג
+        //    של הערימה שנשארת אצל השחקן (אחרת שימוש בשאר הערימה ישנה גם את הפריט של החנות)
+        itemToSell = seller.removeItem(itemName);
         addItemToShop(itemToSell, 1);
 
         // 4. תן לשחקן את הזהב
@@ -196,16 +235,12 @@ public class Shop {
 
     /**
      * מימוש getTotalValue
-     * מחשב את הערך הכולל של כל הפריטים בחנות.
+     * מחזיר את הערך הכולל של כל הפריטים בחנות (מחיר קנייה כפול כמות).
+     * O(1) - נשמר ב-totals ומתעדכן בכל שינוי במלאי.
      * * @return הערך הכולל
      */
     public int getTotalValue() {
-        int totalValue = 0;
-        for (Item item : inventory) {
-            int quantity = getItemStock(item.getName());
-            totalValue += item.getBuyPrice() * quantity;
-        }
-        return totalValue;
+        return (int) totals.getTotalBuyValue();
     }
 
     // ============================================================
@@ -257,11 +292,7 @@ public class Shop {
     }
 
     public int getTotalItemCount() {
-        int total = 0;
-        for (int count : stock.values()) {
-            total += count;
-        }
-        return total;
+        return (int) totals.getItemCount();
     }
 
     @Override
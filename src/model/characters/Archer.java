@@ -11,7 +11,9 @@ public class Archer extends Character {
     private double criticalMultiplier;
     private int arrows;
     private static final int MAX_ARROWS = 30;
-    private static final int MULTISHOT_ARROW_COST = 3;
+    public static final int MULTISHOT_ARROW_COST = 3;
+    public static final int MULTISHOT_ARROWS = 3;
+    public static final double MULTISHOT_DAMAGE_FACTOR = 0.7;
     
     public Archer(String name) {
         // קשת: חיים בינוניים, מאנה בינונית, כוח בינוני, הגנה נמוכה
@@ -21,12 +23,23 @@ public class Archer extends Character {
         this.arrows = MAX_ARROWS;
     }
     
+    protected Archer(Archer prototype) {
+        super(prototype);
+        this.criticalChance = prototype.criticalChance;
+        this.criticalMultiplier = prototype.criticalMultiplier;
+        this.arrows = prototype.arrows;
+    }
+    
+    @Override
+    public Archer copy() {
+        return new Archer(this);
+    }
+    
     // ============================================================
     // TODO: מימוש מתודות אבסטרקטיות
     // ============================================================
     
     /**
-     * TODO: מימוש onLevelUp
      * כאשר קשת עולה רמה:
      * - maxHealth עולה ב-12
      * - maxMana עולה ב-10
@@ -38,26 +51,37 @@ public class Archer extends Character {
      */
     @Override
     protected void onLevelUp() {
-        // TODO: Implement this method
-        throw new UnsupportedOperationException("Not implemented yet");
+        onLevelUp(1);
+    }
+    
+    /**
+     * כמה רמות בבת אחת - כל התוספות מוכפלות במספר הרמות.
+     */
+    @Override
+    protected void onLevelUp(int levels) {
+        maxHealth += 12 * levels;
+        maxMana += 10 * levels;
+        baseStrength += 2 * levels;
+        baseDefense += levels;
+        criticalChance = Math.min(0.5, criticalChance + 0.02 * levels);
+        arrows = MAX_ARROWS;
+        currentHealth = maxHealth;
+        currentMana = maxMana;
     }
     
     /**
-     * TODO: מימוש calculateAttackDamage
      * נזק קשת = baseStrength + נזק נשק (אם יש)
      * יש סיכוי של criticalChance לפגיעה קריטית (נזק * criticalMultiplier)
-     * השתמש ב-Math.random() לקביעת קריטי
      * 
      * @return נזק ההתקפה (עם או בלי קריטי)
      */
     @Override
     public int calculateAttackDamage() {
-        // TODO: Implement this method
-        throw new UnsupportedOperationException("Not implemented yet");
+        lastAttackCritical = false;
+        return applyCritical(rollBaseAttack());
     }
     
     /**
-     * TODO: מימוש useSpecialAbility - Multishot
      * יכולת מיוחדת: ירי מרובה
      * - עולה MULTISHOT_ARROW_COST חיצים
      * - יורה 3 חיצים, כל אחד גורם 70% מנזק רגיל
@@ -69,8 +93,24 @@ public class Archer extends Character {
      */
     @Override
     public boolean useSpecialAbility(Character target) {
-        // TODO: Implement this method
-        throw new UnsupportedOperationException("Not implemented yet");
+        if (arrows < MULTISHOT_ARROW_COST) {
+            return false;
+        }
+        arrows -= MULTISHOT_ARROW_COST;
+        lastAttackCritical = false;
+
+        for (int i = 0; i < MULTISHOT_ARROWS; i++) {
+            target.takeDamage(applyCritical(multishotArrowDamage(rollBaseAttack())));
+        }
+        return true;
+    }
+    
+    /**
+     * @param baseAttack הנזק הבסיסי (כוח + נשק)
+     * @return הנזק של חץ אחד בירי מרובה, לפני קריטי
+     */
+    public static int multishotArrowDamage(int baseAttack) {
+        return (int) (baseAttack * MULTISHOT_DAMAGE_FACTOR);
     }
     
     // ============================================================
@@ -78,7 +118,6 @@ public class Archer extends Character {
     // ============================================================
     
     /**
-     * TODO: מימוש shootArrow
      * יורה חץ בודד ביריב.
      * - עולה חץ אחד
      * - נזק רגיל עם סיכוי לקריטי
@@ -87,24 +126,31 @@ public class Archer extends Character {
      * @return הנזק שנגרם, או -1 אם אין חיצים
      */
     public int shootArrow(Character target) {
-        // TODO: Implement this method
-        throw new UnsupportedOperationException("Not implemented yet");
+        if (arrows <= 0) {
+            return -1;
+        }
+        arrows--;
+        int damage = calculateAttackDamage();
+        target.takeDamage(damage);
+        return damage;
     }
     
     /**
-     * TODO: מימוש refillArrows
      * ממלא חיצים בחזרה למקסימום.
      * עולה 5 זהב לכל חץ שחסר.
      * 
      * @return true אם המילוי הצליח, false אם אין מספיק זהב
      */
     public boolean refillArrows() {
-        // TODO: Implement this method
-        throw new UnsupportedOperationException("Not implemented yet");
+        int missingArrows = MAX_ARROWS - arrows;
+        if (!spendGold(missingArrows * 5)) {
+            return false;
+        }
+        arrows = MAX_ARROWS;
+        return true;
     }
     
     /**
-     * TODO: מימוש evasiveManeuver
      * תמרון התחמקות - סיכוי להתחמק מהתקפה.
      * סיכוי ההתחמקות = criticalChance * 1.5
      * עולה 15 מאנה
@@ -112,8 +158,33 @@ public class Archer extends Character {
      * @return true אם ההתחמקות הצליחה
      */
     public boolean evasiveManeuver() {
-        // TODO: Implement this method
-        throw new UnsupportedOperationException("Not implemented yet");
+        if (!useMana(15)) {
+            return false;
+        }
+        return getRandom().nextDouble() < criticalChance * 1.5;
+    }
+    
+    /**
+     * מגריל פגיעה קריטית לפי criticalChance ומסמן אותה ב-lastAttackCritical.
+     *
+     * @param damage הנזק הרגיל
+     * @return הנזק, מוכפל ב-criticalMultiplier אם יצא קריטי
+     */
+    private int applyCritical(int damage) {
+        if (getRandom().nextDouble() < criticalChance) {
+            lastAttackCritical = true;
+            return criticalDamage(damage, criticalMultiplier);
+        }
+        return damage;
+    }
+    
+    /**
+     * @param damage הנזק הרגיל
+     * @param criticalMultiplier מכפיל הקריטי
+     * @return הנזק בפגיעה קריטית
+     */
+    public static int criticalDamage(int damage, double criticalMultiplier) {
+        return (int) (damage * criticalMultiplier);
     }
     
     // Getters
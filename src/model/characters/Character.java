@@ -2,12 +2,26 @@ package model.characters;
 
 import model.items.Weapon;
 import model.items.Armor;
+import model.items.Inventory;
 import model.items.Item;
+import model.items.ItemStack;
+import model.items.InventoryListener;
+import model.items.InventoryTotals;
+import model.items.Usable;
 import model.exceptions.InventoryFullException;
 import model.exceptions.ItemNotFoundException;
+import model.exceptions.OverweightException;
+import utils.GameRandom;
+import utils.Knapsack;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Stack;
+import java.util.random.RandomGenerator;
 
 /**
  * מחלקה אבסטרקטית המייצגת דמות במשחק.
@@ -36,14 +50,59 @@ public abstract class Character implements Attackable {
     protected HashMap<Armor.ArmorSlot, Armor> equippedArmor;
     protected Weapon equippedWeapon;
     
-    // Inventory - ArrayList של פריטים + Stack לפריטים אחרונים שהשתמשנו בהם
-    protected ArrayList<Item> inventory;
+    // Inventory - מלאי מאונדקס (לפי שם, סוג ונדירות) + Stack לפריטים אחרונים שהשתמשנו בהם
+    protected Inventory inventory;
     protected Stack<Item> recentlyUsedItems;
     protected final int maxInventorySize;
     
+    // מגבלת משקל (מלאי + ציוד מצויד). NO_WEIGHT_LIMIT אומר שאין מגבלה
+    private int maxCarryWeight;
+    
+    // סכומים רצים על המלאי - נוצרים ונרשמים כמאזין רק בבקשה הראשונה
+    private InventoryTotals inventoryTotals;
+    
+    // מחולל מספרים אקראיים - null אומר שמשתמשים במחולל של ה-thread הנוכחי
+    private RandomGenerator random;
+    
+    // האם ההתקפה או היכולת המיוחדת האחרונה כללה פגיעה קריטית
+    protected boolean lastAttackCritical;
+    
+    // נתונים נגזרים מהציוד ומהסטטיסטיקות - מחושבים מחדש רק אחרי invalidateStats
+    private boolean statsDirty;
+    private double cachedDamageReduction;
+    private int cachedTotalDefense;
+    private int cachedWeaponMin;
+    private int cachedAttackBase;     // baseStrength + נזק מינימלי של הנשק
+    private int cachedWeaponSpan;     // maxDamage - minDamage, או -1 אם אין נשק
+    private int cachedEquippedWeight;
+    
+    // אפקטים זמניים - ערמה לפי תור הפקיעה, וסכום הבונוסים הפעילים שמתעדכן בהוספה ובפקיעה
+    private final PriorityQueue<StatusEffect> statusEffects;
+    private long effectClock;
+    private int strengthBonus;
+    private int defenseBonus;
+    
+    private static final Comparator<StatusEffect> BY_EXPIRY = new Comparator<StatusEffect>() {
+        @Override
+        public int compare(StatusEffect a, StatusEffect b) {
+            return Long.compare(a.getExpiresAt(), b.getExpiresAt());
+        }
+    };
+    
     // Constants
     protected static final int EXPERIENCE_PER_LEVEL = 100;
     protected static final int DEFAULT_INVENTORY_SIZE = 20;
+    public static final int NO_WEIGHT_LIMIT = Integer.MAX_VALUE;
+    
+    // ניסיון מצטבר לכל רמה עד MAX_TABLE_LEVEL (מעבר לזה - מהנוסחה)
+    private static final int MAX_TABLE_LEVEL = 1000;
+    private static final long[] CUMULATIVE_EXPERIENCE = new long[MAX_TABLE_LEVEL + 1];
+    
+    static {
+        for (int l = 2; l <= MAX_TABLE_LEVEL; l++) {
+            CUMULATIVE_EXPERIENCE[l] = CUMULATIVE_EXPERIENCE[l - 1] + (long) (l - 1) * EXPERIENCE_PER_LEVEL;
+        }
+    }
     
     public Character(String name, int maxHealth, int maxMana, 
                      int baseStrength, int baseDefense) {
@@ -63,11 +122,60 @@ public abstract class Character implements Attackable {
         this.equippedArmor = new HashMap<>();
         this.equippedWeapon = null;
         
-        this.inventory = new ArrayList<>();
+        this.inventory = new Inventory();
         this.recentlyUsedItems = new Stack<>();
         this.maxInventorySize = DEFAULT_INVENTORY_SIZE;
+        this.maxCarryWeight = NO_WEIGHT_LIMIT;
+        this.statsDirty = true;
+        this.statusEffects = new PriorityQueue<>(1, BY_EXPIRY);
     }
     
+    /**
+     * בונה עותק טרי של דמות (למשל מתבנית של אויב - ראו EnemyTemplateRegistry).
+     * השם והציוד המצויד משותפים עם המקור (הם לא משתנים), הנתונים והנתונים הנגזרים
+     * מועתקים כמו שהם. המלאי, הפריטים האחרונים, האפקטים והמחולל לא מועתקים.
+     * 
+     * @param prototype הדמות להעתקה
+     */
+    protected Character(Character prototype) {
+        this.name = prototype.name;
+        this.level = prototype.level;
+        this.experience = prototype.experience;
+        this.gold = prototype.gold;
+        
+        this.maxHealth = prototype.maxHealth;
+        this.currentHealth = prototype.currentHealth;
+        this.maxMana = prototype.maxMana;
+        this.currentMana = prototype.currentMana;
+        
+        this.baseStrength = prototype.baseStrength;
+        this.baseDefense = prototype.baseDefense;
+        
+        this.equippedArmor = prototype.equippedArmor.isEmpty()
+            ? new HashMap<Armor.ArmorSlot, Armor>() : new HashMap<>(prototype.equippedArmor);
+        this.equippedWeapon = prototype.equippedWeapon;
+        
+        this.inventory = new Inventory();
+        this.recentlyUsedItems = new Stack<>();
+        this.maxInventorySize = prototype.maxInventorySize;
+        this.maxCarryWeight = prototype.maxCarryWeight;
+        this.statusEffects = new PriorityQueue<>(1, BY_EXPIRY);
+        
+        prototype.ensureStats();
+        this.cachedDamageReduction = prototype.cachedDamageReduction;
+        this.cachedTotalDefense = prototype.cachedTotalDefense;
+        this.cachedWeaponMin = prototype.cachedWeaponMin;
+        this.cachedAttackBase = prototype.cachedAttackBase;
+        this.cachedWeaponSpan = prototype.cachedWeaponSpan;
+        this.cachedEquippedWeight = prototype.cachedEquippedWeight;
+        this.statsDirty = prototype.strengthBonus != 0 || prototype.defenseBonus != 0;
+    }
+    
+    /**
+     * @return עותק טרי של הדמות (ראו את בנאי ההעתקה)
+     */
+    public abstract Character copy();
+    
     // ============================================================
     // TODO: מימוש ממשק Attackable
     // ============================================================
@@ -80,19 +188,33 @@ public abstract class Character implements Attackable {
      */
     @Override
     public void takeDamage(int damage) {
-        double armorReduction = 0;
-        for(Armor armor : equippedArmor.values())
-        {
-            armorReduction+=armor.calculateDamageReduction();
-        }
-
-        armorReduction = Math.min(armorReduction, 0.75);
-
-        int actualDamage = (int) Math.ceil(damage * (1 - armorReduction));
+        int actualDamage = damageAfterReduction(damage, getDamageReduction());
 
         currentHealth = Math.max(0, currentHealth - actualDamage);
     }
     
+    /**
+     * הנזק בפועל אחרי הפחתת שריון (מעוגל כלפי מעלה). משותף ל-takeDamage ולמתכנן (CombatSnapshot).
+     * 
+     * @param damage הנזק הנכנס
+     * @param damageReduction אחוז ההפחתה (בין 0.0 ל-0.75)
+     * @return הנזק בפועל
+     */
+    public static int damageAfterReduction(int damage, double damageReduction) {
+        return (int) Math.ceil(damage * (1 - damageReduction));
+    }
+    
+    /**
+     * מחשב את סך הפחתת הנזק מכל חלקי השריון המצוידים (לכל היותר 75%).
+     * בונוס הגנה זמני מוסיף 1% לכל נקודה.
+     * 
+     * @return אחוז הפחתת הנזק (בין 0.0 ל-0.75)
+     */
+    public double getDamageReduction() {
+        ensureStats();
+        return cachedDamageReduction;
+    }
+    
     /**
      * @return true אם currentHealth > 0
      */
@@ -111,23 +233,232 @@ public abstract class Character implements Attackable {
         return maxHealth;
     }
     
+    /**
+     * קובע ישירות את החיים הנוכחיים, בלי הפחתת שריון.
+     * משמש לכתיבת התוצאה של קרב שחושב מחוץ לדמות (למשל PartyBattle).
+     * 
+     * @param health החיים החדשים (נחתכים לטווח 0 עד maxHealth)
+     */
+    public void setCurrentHealth(int health) {
+        currentHealth = Math.max(0, Math.min(health, maxHealth));
+    }
+    
     // ============================================================
     // TODO: ניהול מלאי (Inventory Management)
     // ============================================================
     
     /**
      * מוסיף פריט למלאי.
+     * פריט שאפשר לערום (למשל שיקוי מלא) מצטרף לערימה הקיימת שלו ולא תופס מקום נוסף.
      * 
      * @param item הפריט להוספה
      * @throws InventoryFullException אם המלאי מלא
+     * @throws OverweightException אם הפריט יעביר את מגבלת המשקל
      */
     public void addItem(Item item) throws InventoryFullException {
+        addItem(item, 1);
+    }
+    
+    /**
+     * מוסיף כמה עותקים של פריט שאפשר לערום, כרשומה אחת.
+     * 
+     * @param item הפריט להוספה
+     * @param count מספר העותקים
+     * @throws InventoryFullException אם המלאי מלא
+     * @throws OverweightException אם העותקים יעבירו את מגבלת המשקל
+     */
+    public void addItem(Item item, int count) throws InventoryFullException {
+        checkRoomFor(item, count);
+        inventory.add(item, count);
+    }
+    
+    /**
+     * בודק שאפשר להוסיף את העותקים בלי להוסיף אותם (למשל לפני שלוקחים כסף בחנות).
+     * 
+     * @param item הפריט
+     * @param count מספר העותקים
+     * @throws InventoryFullException אם אין מקום פנוי ואין ערימה שהפריט יצטרף אליה
+     * @throws OverweightException אם העותקים יעבירו את מגבלת המשקל
+     */
+    public void checkRoomFor(Item item, int count) throws InventoryFullException {
+        if (inventory.size() >= maxInventorySize && !inventory.hasStackFor(item)) {
+            throw new InventoryFullException(item.getName(), maxInventorySize);
+        }
+        long weight = (long) item.getWeight() * count;
+        if (getCarriedWeight() + weight > maxCarryWeight) {
+            throw new OverweightException(item.getName(), (int) Math.min(weight, Integer.MAX_VALUE),
+                getCarriedWeight(), maxCarryWeight);
+        }
+    }
+    
+    /**
+     * מוסיף את כל העותקים שבערימה.
+     * 
+     * @param stack הערימה להוספה
+     * @throws InventoryFullException אם המלאי מלא
+     */
+    public void addItems(ItemStack stack) throws InventoryFullException {
+        addItem(stack.getItem(), stack.getCount());
+    }
+    
+    /**
+     * @return true אם יש מקום לפריט - מקום פנוי או ערימה קיימת שהוא יצטרף אליה,
+     *         ומשקל שלא יעבור את המגבלה
+     */
+    public boolean hasRoomFor(Item item) {
+        return (inventory.size() < maxInventorySize || inventory.hasStackFor(item))
+            && getCarriedWeight() + item.getWeight() <= maxCarryWeight;
+    }
+    
+    /**
+     * מחזיר למלאי פריט שהיה מצויד. המשקל שלו כבר נספר, ולכן בודקים רק מקום.
+     */
+    private void returnToInventory(Item item) throws InventoryFullException {
         if (inventory.size() >= maxInventorySize) {
             throw new InventoryFullException(item.getName(), maxInventorySize);
         }
         inventory.add(item);
     }
     
+    // ============================================================
+    // משקל ואריזה אוטומטית (Carry Weight & Auto-Pack)
+    // ============================================================
+    
+    /**
+     * @return המשקל שהדמות נושאת - המלאי (מתעדכן בכל הוספה והסרה) ועוד הציוד המצויד
+     */
+    public int getCarriedWeight() {
+        ensureStats();
+        return (int) (inventory.getTotalWeight() + cachedEquippedWeight);
+    }
+    
+    public int getMaxCarryWeight() {
+        return maxCarryWeight;
+    }
+    
+    /**
+     * קובע מגבלת משקל. מגבלה נמוכה מהמשקל הנוכחי לא מוציאה פריטים, רק חוסמת הוספה.
+     * 
+     * @param maxCarryWeight המשקל המקסימלי, או NO_WEIGHT_LIMIT
+     */
+    public void setMaxCarryWeight(int maxCarryWeight) {
+        if (maxCarryWeight < 0) {
+            throw new IllegalArgumentException("maxCarryWeight must not be negative");
+        }
+        this.maxCarryWeight = maxCarryWeight;
+    }
+    
+    /**
+     * אוסף שלל. אם הכול נכנס - פשוט מוסיף. אחרת בוחר מחדש מה לשאת מתוך המלאי והשלל יחד:
+     * הבחירה ששווה הכי הרבה (לפי getSellPrice) בלי לעבור את מגבלת המשקל (תרמיל 0/1, ראו Knapsack).
+     * הציוד המצויד נשאר, ותופס מהמגבלה. אם הבחירה תופסת יותר רשומות מ-maxInventorySize,
+     * הרשומות הזולות ביותר נשארות מאחור.
+     * 
+     * @param loot השלל (הערימות עצמן לא משתנות - הבחירה עובדת על עותקים שלהן)
+     * @return מה שנשאר מאחור - משלל ומהמלאי הקודם - כערימות חדשות
+     */
+    public ArrayList<ItemStack> pickUp(List<ItemStack> loot) {
+        long lootWeight = 0;
+        for (ItemStack stack : loot) {
+            lootWeight += stack.getTotalWeight();
+        }
+        ArrayList<ItemStack> leftBehind = new ArrayList<>();
+        if (getCarriedWeight() + lootWeight <= maxCarryWeight
+                && inventory.size() + loot.size() <= maxInventorySize) {
+            for (ItemStack stack : loot) {
+                inventory.add(stack);
+            }
+            return leftBehind;
+        }
+        
+        ArrayList<ItemStack> candidates = inventory.toStacks();
+        for (ItemStack stack : loot) {
+            // split משנה את הערימה - עובדים על עותק כדי לא לגעת בערימות של הקורא
+            candidates.add(new ItemStack(stack.getItem(), stack.getCount()));
+        }
+        int n = candidates.size();
+        int[] weights = new int[n];
+        long[] values = new long[n];
+        int[] counts = new int[n];
+        for (int i = 0; i < n; i++) {
+            Item item = candidates.get(i).getItem();
+            weights[i] = item.getWeight();
+            values[i] = item.getSellPrice();
+            counts[i] = candidates.get(i).getCount();
+        }
+        ensureStats();
+        long capacity = Math.min((long) maxCarryWeight - cachedEquippedWeight,
+            inventory.getTotalWeight() + lootWeight);
+        int[] kept = Knapsack.solve(weights, values, counts, (int) Math.max(0, capacity));
+        dropCheapestEntries(candidates, kept);
+        
+        inventory.clear();
+        for (int i = 0; i < n; i++) {
+            ItemStack stack = candidates.get(i);
+            if (kept[i] == counts[i]) {
+                inventory.add(stack);
+            } else if (kept[i] == 0) {
+                leftBehind.add(stack);
+            } else {
+                leftBehind.add(stack.split(counts[i] - kept[i]));
+                inventory.add(stack);
+            }
+        }
+        return leftBehind;
+    }
+    
+    /**
+     * משאיר בבחירה רק כמה רשומות שנכנסות ב-maxInventorySize (ערימות זהות מתאחדות לרשומה אחת).
+     */
+    private void dropCheapestEntries(ArrayList<ItemStack> candidates, int[] kept) {
+        ArrayList<Integer> entries = new ArrayList<>();
+        ArrayList<Item> stacked = new ArrayList<>();
+        for (int i = 0; i < kept.length; i++) {
+            Item item = candidates.get(i).getItem();
+            if (kept[i] > 0 && !(ItemStack.isStackable(item) && joinsStack(stacked, item))) {
+                entries.add(i);
+            }
+        }
+        if (entries.size() <= maxInventorySize) {
+            return;
+        }
+        final ArrayList<ItemStack> all = candidates;
+        final int[] amounts = kept;
+        entries.sort(new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Long.compare((long) all.get(a).getItem().getSellPrice() * amounts[a],
+                    (long) all.get(b).getItem().getSellPrice() * amounts[b]);
+            }
+        });
+        for (int i = 0; i < entries.size() - maxInventorySize; i++) {
+            int dropped = entries.get(i);
+            Item item = candidates.get(dropped).getItem();
+            kept[dropped] = 0;
+            if (ItemStack.isStackable(item)) {
+                // ערימות זהות מתאחדות - משאירים מאחור את כולן
+                for (int j = 0; j < kept.length; j++) {
+                    if (ItemStack.stacksTogether(candidates.get(j).getItem(), item)) {
+                        kept[j] = 0;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * @return true אם הפריט מצטרף לאחת הערימות שכבר נספרו; אחרת הוא נספר כערימה חדשה
+     */
+    private static boolean joinsStack(ArrayList<Item> stacked, Item item) {
+        for (Item other : stacked) {
+            if (ItemStack.stacksTogether(other, item)) {
+                return true;
+            }
+        }
+        stacked.add(item);
+        return false;
+    }
+    
     /**
      * מסיר פריט מהמלאי לפי שם.
      * 
@@ -136,40 +467,106 @@ public abstract class Character implements Attackable {
      * @throws ItemNotFoundException אם הפריט לא נמצא
      */
     public Item removeItem(String itemName) throws ItemNotFoundException {
-        int index = -1;
-        for(int i = 0; i < inventory.size(); i++)
-        {
-            if(inventory.get(i).getName().equals(itemName))
-            {
-                index = i;
-                break;
-            }
+        Item removed = inventory.removeFirst(itemName);
+        if (removed == null) {
+            throw new ItemNotFoundException(itemName);
         }
-        if(index!=-1)
-        {
-            return inventory.remove(index);
+        return removed;
+    }
+    
+    /**
+     * מפצל עותקים מהערימה הראשונה עם השם הזה ומוציא אותם מהמלאי.
+     * 
+     * @param itemName שם הפריט
+     * @param count מספר העותקים המבוקש
+     * @return ערימה עם עד count עותקים
+     * @throws ItemNotFoundException אם הפריט לא נמצא
+     */
+    public ItemStack removeItems(String itemName, int count) throws ItemNotFoundException {
+        ItemStack removed = inventory.removeStack(itemName, count);
+        if (removed == null) {
+            throw new ItemNotFoundException(itemName);
         }
-        else
-        {
+        return removed;
+    }
+    
+    /**
+     * מחזיר עותק אחד של הפריט שמותר לשנות (למשל להשתמש בשיקוי), ומפריד אותו מהערימה שלו אם צריך.
+     * הפריט נשאר במלאי.
+     * 
+     * @param itemName שם הפריט
+     * @return הפריט, או null אם אין
+     */
+    public Item detachItem(String itemName) {
+        return inventory.detachOne(itemName);
+    }
+    
+    /**
+     * משתמש בפריט מהמלאי על הדמות עצמה (למשל שיקוי). פריט מערימה מופרד קודם, כך ששאר
+     * הערימה לא משתנה. שימוש מוצלח נכנס לסטאק הפריטים האחרונים ונשלח למאזינים כ-USED.
+     * 
+     * @param itemName שם הפריט
+     * @return true אם השימוש הצליח
+     * @throws ItemNotFoundException אם הפריט לא נמצא
+     */
+    public boolean useItem(String itemName) throws ItemNotFoundException {
+        Item item = inventory.findFirst(itemName);
+        if (item == null) {
             throw new ItemNotFoundException(itemName);
         }
+        if (!(item instanceof Usable) || !((Usable) item).canUse(this)) {
+            return false;
+        }
+        Item used = inventory.detachOne(itemName);
+        if (!((Usable) used).use(this)) {
+            return false;
+        }
+        pushRecentlyUsed(used);
+        inventory.itemUsed(used);
+        return true;
+    }
+    
+    // ============================================================
+    // מאזינים וסכומים (Inventory Listeners & Totals)
+    // ============================================================
+    
+    /**
+     * רושם מאזין לשינויים במלאי (הוספה, הסרה ושימוש).
+     * 
+     * @param listener המאזין
+     */
+    public void addInventoryListener(InventoryListener listener) {
+        inventory.addListener(listener);
+    }
+    
+    public void removeInventoryListener(InventoryListener listener) {
+        inventory.removeListener(listener);
+    }
+    
+    /**
+     * מחזיר סכומים רצים על המלאי (משקל, ערך, ספירה לפי נדירות וסוג).
+     * בקריאה הראשונה הם נבנים מהמלאי (O(n)) ונרשמים כמאזין; מכאן כל שינוי מעדכן אותם ב-O(1)
+     * וכל קריאה היא O(1).
+     * 
+     * @return הסכומים (אותו אובייקט בכל קריאה, מתעדכן בזמן אמת)
+     */
+    public InventoryTotals getInventoryTotals() {
+        if (inventoryTotals == null) {
+            inventoryTotals = new InventoryTotals(inventory);
+            inventory.addListener(inventoryTotals);
+        }
+        return inventoryTotals;
     }
     
     /**
      * מחזיר רשימה של כל הפריטים מסוג מסוים במלאי.
-     * השתמש ב-instanceof לבדיקת הסוג.
+     * נשלף מהאינדקס לפי מחלקה, בלי מעבר על כל המלאי.
      * 
      * @param itemClass המחלקה לחיפוש (לדוגמה: Weapon.class)
      * @return רשימה של פריטים מהסוג המבוקש
      */
     public <T extends Item> ArrayList<T> findItemsByType(Class<T> itemClass) {
-        ArrayList<T> result = new ArrayList<>();
-        for (Item item : inventory) {
-            if (itemClass.isInstance(item)) {
-                result.add((T) item);
-            }
-        }
-        return result;
+        return inventory.findByType(itemClass);
     }
     
     /**
@@ -181,12 +578,7 @@ public abstract class Character implements Attackable {
         HashMap<Item.ItemRarity, ArrayList<Item>> rarityMap = new HashMap<>();
 
         for (Item.ItemRarity rarity : Item.ItemRarity.values()) {
-            rarityMap.put(rarity, new ArrayList<>());
-        }
-
-        for(Item item : inventory)
-        {
-           rarityMap.get(item.getRarity()).add(item);
+            rarityMap.put(rarity, inventory.findByRarity(rarity));
         }
 
         return rarityMap;
@@ -210,8 +602,9 @@ public abstract class Character implements Attackable {
         }
 
         if(equippedWeapon!=null)
-            addItem(equippedWeapon);
-        equippedWeapon = (Weapon) removeItem(weapon.getName());
+            returnToInventory(equippedWeapon);
+        equippedWeapon = (Weapon) inventory.remove(weapon);
+        invalidateStats();
     }
     
     /**
@@ -230,11 +623,12 @@ public abstract class Character implements Attackable {
 
         Armor.ArmorSlot slot = armor.getSlot();
         if (equippedArmor.containsKey(slot)) {
-            addItem(equippedArmor.get(slot));
+            returnToInventory(equippedArmor.get(slot));
         }
 
         inventory.remove(armor);
         equippedArmor.put(slot, armor);
+        invalidateStats();
     }
     
     /**
@@ -243,12 +637,141 @@ public abstract class Character implements Attackable {
      * @return סך ההגנה
      */
     public int getTotalDefense() {
-        int totalDef = baseDefense;
-        for(Armor armor : equippedArmor.values())
-        {
-            totalDef+=armor.getDefense();
+        ensureStats();
+        return cachedTotalDefense;
+    }
+    
+    // ============================================================
+    // נתונים נגזרים (Derived Stats)
+    // ============================================================
+    
+    /**
+     * מסמן שהנתונים הנגזרים (הפחתת נזק, הגנה, טווח נזק) צריכים חישוב מחדש.
+     * חובה לקרוא לזה אחרי כל שינוי בציוד או בסטטיסטיקות הבסיס.
+     */
+    protected void invalidateStats() {
+        statsDirty = true;
+    }
+    
+    /**
+     * מחשב את הנתונים הנגזרים אם משהו השתנה מאז החישוב האחרון.
+     * המעבר על השריון קורה פעם אחת לכל שינוי ציוד, ולא בכל פגיעה.
+     */
+    private void ensureStats() {
+        if (!statsDirty) {
+            return;
+        }
+        double armorReduction = defenseBonus / 100.0;
+        int totalDef = baseDefense + defenseBonus;
+        int equippedWeight = equippedWeapon != null ? equippedWeapon.getWeight() : 0;
+        for (Armor armor : equippedArmor.values()) {
+            armorReduction += armor.calculateDamageReduction();
+            totalDef += armor.getDefense();
+            equippedWeight += armor.getWeight();
+        }
+        cachedEquippedWeight = equippedWeight;
+        cachedDamageReduction = Math.max(0.0, Math.min(armorReduction, 0.75));
+        cachedTotalDefense = totalDef;
+
+        if (equippedWeapon != null) {
+            cachedWeaponMin = equippedWeapon.getMinDamage();
+            cachedAttackBase = baseStrength + strengthBonus + cachedWeaponMin;
+            cachedWeaponSpan = equippedWeapon.getMaxDamage() - equippedWeapon.getMinDamage();
+        } else {
+            cachedWeaponMin = 0;
+            cachedAttackBase = baseStrength + strengthBonus;
+            cachedWeaponSpan = -1;
+        }
+        statsDirty = false;
+    }
+    
+    // ============================================================
+    // אפקטים זמניים (Status Effects)
+    // ============================================================
+    
+    /**
+     * מוסיף אפקט זמני. הבונוס נכנס לתוקף מיד ונשאר ל-duration התורות הבאים של הדמות.
+     * O(log n) במספר האפקטים הפעילים.
+     * 
+     * @param source מקור האפקט (למשל שם השיקוי)
+     * @param stat הנתון שמושפע
+     * @param amount גודל הבונוס (שלילי להחלשה)
+     * @param duration מספר התורות
+     * @return האפקט שנוסף
+     */
+    public StatusEffect addStatusEffect(String source, StatusEffect.Stat stat, int amount, int duration) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+        StatusEffect effect = new StatusEffect(source, stat, amount, duration, effectClock + duration);
+        statusEffects.add(effect);
+        applyBonus(effect, amount);
+        return effect;
+    }
+    
+    /**
+     * מקדם את שעון האפקטים בתור אחד ומסיר את האפקטים שפגו.
+     * נקרא אחרי כל פעולה של הדמות בקרב. כשאף אפקט לא פג זו בדיקה אחת של ראש הערמה,
+     * כך שדמות עם עשרות אפקטים לא משלמת עליהם בכל תור או בכל פגיעה.
+     * 
+     * @return מספר האפקטים שפגו
+     */
+    public int tickStatusEffects() {
+        effectClock++;
+        int expired = 0;
+        while (!statusEffects.isEmpty() && statusEffects.peek().getExpiresAt() < effectClock) {
+            StatusEffect effect = statusEffects.poll();
+            applyBonus(effect, -effect.getAmount());
+            expired++;
+        }
+        return expired;
+    }
+    
+    /**
+     * מסיר את כל האפקטים הזמניים (למשל בסוף קרב).
+     */
+    public void clearStatusEffects() {
+        if (statusEffects.isEmpty()) {
+            return;
+        }
+        statusEffects.clear();
+        strengthBonus = 0;
+        defenseBonus = 0;
+        invalidateStats();
+    }
+    
+    private void applyBonus(StatusEffect effect, int amount) {
+        if (effect.getStat() == StatusEffect.Stat.STRENGTH) {
+            strengthBonus += amount;
+        } else {
+            defenseBonus += amount;
         }
-        return totalDef;
+        invalidateStats();
+    }
+    
+    /**
+     * @return רשימה חדשה של האפקטים הפעילים (בלי סדר מובטח)
+     */
+    public ArrayList<StatusEffect> getStatusEffects() {
+        return new ArrayList<>(statusEffects);
+    }
+    
+    public int getStatusEffectCount() {
+        return statusEffects.size();
+    }
+    
+    /**
+     * @return הכוח כולל בונוסים זמניים
+     */
+    public int getStrength() {
+        return baseStrength + strengthBonus;
+    }
+    
+    /**
+     * @return ההגנה הבסיסית כולל בונוסים זמניים (בלי שריון)
+     */
+    public int getDefense() {
+        return baseDefense + defenseBonus;
     }
     
     // ============================================================
@@ -282,7 +805,7 @@ public abstract class Character implements Attackable {
      * @return true אם היה מספיק מאנה והשימוש הצליח
      */
     public boolean useMana(int amount) {
-        if(currentMana>amount)
+        if(hasManaFor(currentMana, amount))
         {
             currentMana-=amount;
             return true;
@@ -290,6 +813,17 @@ public abstract class Character implements Attackable {
         return false;
     }
     
+    /**
+     * החוק של useMana: צריך יותר מאנה מהעלות (לא רק בדיוק כמותה).
+     * 
+     * @param currentMana המאנה הנוכחית
+     * @param amount העלות
+     * @return true אם אפשר לשלם
+     */
+    public static boolean hasManaFor(int currentMana, int amount) {
+        return currentMana > amount;
+    }
+    
     // ============================================================
     // TODO: ניסיון ורמות (Experience & Leveling)
     // ============================================================
@@ -297,19 +831,72 @@ public abstract class Character implements Attackable {
     /**
      * מוסיף ניסיון לדמות ומעלה רמה אם צריך.
      * כל EXPERIENCE_PER_LEVEL נקודות ניסיון מעלות רמה אחת.
-     * ניתן לעלות כמה רמות בבת אחת.
+     * ניתן לעלות כמה רמות בבת אחת - הרמה החדשה מחושבת ישירות מעקומת הניסיון,
+     * וכל הרמות מוחלות בקריאה אחת ל-onLevelUp(levels). O(1) בלי קשר לכמות.
      * 
      * @param amount כמות הניסיון
      */
     public void gainExperience(int amount) {
-        experience+=amount;
-
-        while (experience >= level*EXPERIENCE_PER_LEVEL)
-        {
-            experience-=level*EXPERIENCE_PER_LEVEL;
-            level++;
-            onLevelUp();
+        long total = cumulativeExperience(level) + experience + amount;
+        int newLevel = levelForExperience(total);
+        if (newLevel <= level) {
+            experience += amount;
+            return;
         }
+        int levels = newLevel - level;
+        level = newLevel;
+        experience = (int) (total - cumulativeExperience(newLevel));
+        onLevelUp(levels);
+        invalidateStats();
+    }
+    
+    /**
+     * מעלה את הדמות ישירות לרמה נתונה (למשל אויב שמותאם לרמת הסכנה של מקום).
+     * הניסיון שנצבר בתוך הרמה הנוכחית נשמר רק אם לא עולים רמה.
+     * 
+     * @param targetLevel הרמה הרצויה - אם היא לא גבוהה מהנוכחית לא קורה כלום
+     */
+    public void advanceToLevel(int targetLevel) {
+        if (targetLevel <= level) {
+            return;
+        }
+        long needed = cumulativeExperience(targetLevel) - cumulativeExperience(level) - experience;
+        if (needed > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Level too high: " + targetLevel);
+        }
+        gainExperience((int) needed);
+    }
+    
+    /**
+     * סך הניסיון שצריך מרמה 1 כדי להגיע לרמה: EXPERIENCE_PER_LEVEL * L(L-1)/2.
+     * 
+     * @param targetLevel הרמה
+     * @return הניסיון המצטבר
+     */
+    public static long cumulativeExperience(int targetLevel) {
+        if (targetLevel < CUMULATIVE_EXPERIENCE.length) {
+            return CUMULATIVE_EXPERIENCE[targetLevel];
+        }
+        return (long) EXPERIENCE_PER_LEVEL * targetLevel * (targetLevel - 1) / 2;
+    }
+    
+    /**
+     * הפעולה ההפוכה ל-cumulativeExperience: הרמה הגבוהה ביותר שהניסיון המצטבר מספיק לה.
+     * ההערכה היא מהנוסחה הסגורה (שורש), והטבלה מתקנת שגיאות עיגול.
+     * 
+     * @param totalExperience הניסיון המצטבר מרמה 1
+     * @return הרמה
+     */
+    public static int levelForExperience(long totalExperience) {
+        int estimate = (int) ((1 + Math.sqrt(1 + 8.0 * totalExperience / EXPERIENCE_PER_LEVEL)) / 2);
+        int result = Math.max(1, estimate);
+        while (cumulativeExperience(result + 1) <= totalExperience) {
+            result++;
+        }
+        while (result > 1 && cumulativeExperience(result) > totalExperience) {
+            result--;
+        }
+        return result;
     }
     
     /**
@@ -318,6 +905,19 @@ public abstract class Character implements Attackable {
      */
     protected abstract void onLevelUp();
     
+    /**
+     * נקראת פעם אחת כשהדמות עולה כמה רמות בבת אחת.
+     * ברירת המחדל קוראת ל-onLevelUp() לכל רמה; סוגי דמות שמחשבים את
+     * התוספת בצעד אחד דורסים אותה.
+     * 
+     * @param levels מספר הרמות שנוספו (1 ומעלה)
+     */
+    protected void onLevelUp(int levels) {
+        for (int i = 0; i < levels; i++) {
+            onLevelUp();
+        }
+    }
+    
     /**
      * מתודה אבסטרקטית לחישוב נזק התקפה.
      * כל סוג דמות מחשב נזק בצורה שונה.
@@ -335,6 +935,63 @@ public abstract class Character implements Attackable {
      */
     public abstract boolean useSpecialAbility(Character target);
     
+    /**
+     * @return true אם ההתקפה או היכולת המיוחדת האחרונה כללה פגיעה קריטית
+     */
+    public boolean wasLastAttackCritical() {
+        return lastAttackCritical;
+    }
+    
+    // ============================================================
+    // מספרים אקראיים
+    // ============================================================
+    
+    /**
+     * מגדיר מחולל מספרים אקראיים לדמות (למשל זרם עם seed כדי לשחזר קרב).
+     * 
+     * @param random המחולל, או null כדי לחזור למחולל של ה-thread הנוכחי
+     * @return המחולל שהיה מוגדר קודם (או null), כדי שאפשר יהיה להחזיר אותו
+     */
+    public RandomGenerator setRandom(RandomGenerator random) {
+        RandomGenerator previous = this.random;
+        this.random = random;
+        return previous;
+    }
+    
+    /**
+     * @return המחולל שכל ההגרלות של הדמות משתמשות בו
+     */
+    protected RandomGenerator getRandom() {
+        return random != null ? random : GameRandom.current();
+    }
+    
+    /**
+     * מגריל את נזק הנשק המצויד.
+     * 
+     * @return נזק הנשק, או 0 אם אין נשק
+     */
+    protected int rollWeaponDamage() {
+        ensureStats();
+        if (cachedWeaponSpan < 0) {
+            return 0;
+        }
+        return cachedWeaponMin + getRandom().nextInt(cachedWeaponSpan + 1);
+    }
+    
+    /**
+     * מגריל נזק פיזי בסיסי: baseStrength + נזק הנשק, מהנתונים השמורים.
+     * צורך מהמחולל בדיוק כמו Weapon.calculateDamage, כך שקרב עם seed נשאר זהה.
+     * 
+     * @return הנזק הבסיסי
+     */
+    protected int rollBaseAttack() {
+        ensureStats();
+        if (cachedWeaponSpan < 0) {
+            return cachedAttackBase;
+        }
+        return cachedAttackBase + getRandom().nextInt(cachedWeaponSpan + 1);
+    }
+    
     // ============================================================
     // Recently Used Items Stack
     // ============================================================
@@ -421,14 +1078,61 @@ public abstract class Character implements Attackable {
         return equippedWeapon;
     }
     
+    /**
+     * @return עותק של השריון המצויד (לשינוי חופשי). לקריאה בלבד עדיף getEquippedArmorView
+     */
     public HashMap<Armor.ArmorSlot, Armor> getEquippedArmor() {
         return new HashMap<>(equippedArmor);
     }
     
+    /**
+     * @return תצוגה חיה לקריאה בלבד של השריון המצויד, בלי העתקה
+     */
+    public Map<Armor.ArmorSlot, Armor> getEquippedArmorView() {
+        return Collections.unmodifiableMap(equippedArmor);
+    }
+    
+    /**
+     * @return עותק של המלאי (לשינוי חופשי). לקריאה בלבד עדיף getInventoryView או findItem
+     */
     public ArrayList<Item> getInventory() {
-        return new ArrayList<>(inventory);
+        return inventory.toList();
     }
     
+    /**
+     * @return תצוגה חיה לקריאה בלבד של המלאי, בלי העתקה - משקפת כל שינוי במלאי
+     */
+    public List<Item> getInventoryView() {
+        return inventory.asList();
+    }
+    
+    /**
+     * מחפש פריט במלאי לפי שם, בלי להעתיק את המלאי.
+     * 
+     * @param itemName שם הפריט
+     * @return הפריט הראשון עם השם הזה, או null אם אין
+     */
+    public Item findItem(String itemName) {
+        return inventory.findFirst(itemName);
+    }
+    
+    /**
+     * @return עותק של המלאי כערימות, עם הכמות של כל רשומה
+     */
+    public ArrayList<ItemStack> getInventoryStacks() {
+        return inventory.toStacks();
+    }
+    
+    /**
+     * @return כמה עותקים של הפריט יש במלאי
+     */
+    public int getItemCount(String itemName) {
+        return inventory.countByName(itemName);
+    }
+    
+    /**
+     * @return מספר הרשומות במלאי (ערימה תופסת רשומה אחת)
+     */
     public int getInventorySize() {
         return inventory.size();
     }
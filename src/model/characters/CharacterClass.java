@@ -0,0 +1,84 @@
+package model.characters;
+
+import model.items.Item.ItemRarity;
+import model.items.Weapon;
+import model.items.Weapon.WeaponType;
+
+/**
+ * enum המייצג את סוגי הדמויות במשחק.
+ * משמש ליצירת דמויות לפי סוג (למשל בסימולציות קרב) ולזיהוי סוג של דמות קיימת.
+ */
+public enum CharacterClass {
+    WARRIOR("Warrior"),
+    MAGE("Mage"),
+    ARCHER("Archer");
+
+    private final String displayName;
+
+    CharacterClass(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * יוצר דמות חדשה מהסוג הזה (ללא ציוד).
+     *
+     * @param name שם הדמות
+     * @return הדמות החדשה
+     */
+    public Character create(String name) {
+        switch (this) {
+            case MAGE: return new Mage(name);
+            case ARCHER: return new Archer(name);
+            default: return new Warrior(name);
+        }
+    }
+
+    /**
+     * יוצר דמות חדשה מהסוג הזה ברמה נתונה, בצעד אחד (בלי לעבור רמה-רמה).
+     *
+     * @param name שם הדמות
+     * @param level הרמה (1 ומעלה)
+     * @return הדמות החדשה
+     */
+    public Character create(String name, int level) {
+        Character character = create(name);
+        character.advanceToLevel(level);
+        return character;
+    }
+
+    /**
+     * יוצר את נשק ההתחלה של הסוג הזה (אותו נשק שהשחקן מקבל בתחילת המשחק).
+     *
+     * @return נשק ההתחלה
+     */
+    public Weapon createStartingWeapon() {
+        switch (this) {
+            case MAGE:
+                return new Weapon("Staff", "Wooden Staff", 3, 10, ItemRarity.COMMON, 2, 6, WeaponType.STAFF);
+            case ARCHER:
+                return new Weapon("Bow", "Short Bow", 4, 10, ItemRarity.COMMON, 4, 7, WeaponType.BOW);
+            default:
+                return new Weapon("Sword", "Basic Sword", 5, 10, ItemRarity.COMMON, 5, 8, WeaponType.SWORD);
+        }
+    }
+
+    /**
+     * מחזיר את הסוג של דמות קיימת.
+     *
+     * @param character הדמות
+     * @return הסוג שלה
+     */
+    public static CharacterClass of(Character character) {
+        if (character instanceof Mage) {
+            return MAGE;
+        }
+        if (character instanceof Archer) {
+            return ARCHER;
+        }
+        return WARRIOR;
+    }
+}
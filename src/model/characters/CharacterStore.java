@@ -0,0 +1,426 @@
+package model.characters;
+
+import java.util.Arrays;
+
+/**
+ * מאגר עמודות (struct-of-arrays) לאוכלוסיות גדולות של דמויות (למשל מאות אלפי NPC).
+ * כל נתון נשמר במערך פרימיטיבי משלו לפי מזהה, בלי HashMap לשריון, מלאי ו-Stack לכל דמות -
+ * בערך 45 בתים לדמות במקום כמה מאות.
+ *
+ * הגישה לדמות בודדת היא דרך View - סמן קל שמצביע על שורה ומממש Attackable,
+ * וכשצריך Character מלא (למשל לקרב עם BattleSystem) משתמשים ב-toCharacter ואחר כך ב-update.
+ * פעולות על כולם (למשל ריפוי) הן לולאה אחת על המערכים.
+ * לא thread-safe.
+ */
+public class CharacterStore {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final CharacterClass[] CLASSES = CharacterClass.values();
+
+    // הנתונים של דמות חדשה ברמה 1 לכל סוג, והתוספת לכל רמה (לפי onLevelUp)
+    private static final int[][] BASE_STATS = new int[CLASSES.length][];
+    private static final int[][] STATS_PER_LEVEL = new int[CLASSES.length][];
+
+    // סדר הנתונים ב-BASE_STATS וב-STATS_PER_LEVEL
+    private static final int MAX_HEALTH = 0;
+    private static final int MAX_MANA = 1;
+    private static final int STRENGTH = 2;
+    private static final int DEFENSE = 3;
+
+    static {
+        for (CharacterClass characterClass : CLASSES) {
+            Character prototype = characterClass.create("prototype");
+            int[] base = statsOf(prototype);
+            prototype.gainExperience(Character.EXPERIENCE_PER_LEVEL);
+            int[] next = statsOf(prototype);
+            int[] perLevel = new int[base.length];
+            for (int i = 0; i < base.length; i++) {
+                perLevel[i] = next[i] - base[i];
+            }
+            BASE_STATS[characterClass.ordinal()] = base;
+            STATS_PER_LEVEL[characterClass.ordinal()] = perLevel;
+        }
+    }
+
+    private String[] names;
+    private byte[] classIds;
+    private int[] level;
+    private int[] health;
+    private int[] maxHealth;
+    private int[] mana;
+    private int[] maxMana;
+    private int[] strength;
+    private int[] defense;
+    private int[] gold;
+    private int size;
+
+    public CharacterStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity מספר הדמויות שמקום עבורן מוקצה מראש
+     */
+    public CharacterStore(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be positive");
+        }
+        this.names = new String[initialCapacity];
+        this.classIds = new byte[initialCapacity];
+        this.level = new int[initialCapacity];
+        this.health = new int[initialCapacity];
+        this.maxHealth = new int[initialCapacity];
+        this.mana = new int[initialCapacity];
+        this.maxMana = new int[initialCapacity];
+        this.strength = new int[initialCapacity];
+        this.defense = new int[initialCapacity];
+        this.gold = new int[initialCapacity];
+        this.size = 0;
+    }
+
+    // ============================================================
+    // הוספה והסרה
+    // ============================================================
+
+    /**
+     * מוסיף דמות חדשה מסוג ורמה נתונים, עם חיים ומאנה מלאים.
+     * הנתונים זהים לדמות שנוצרה ועלתה לאותה רמה, בלי ליצור אותה.
+     *
+     * @param characterClass הסוג
+     * @param name השם (כדאי לשתף מחרוזת אחת בין הרבה דמויות)
+     * @param characterLevel הרמה (1 ומעלה)
+     * @return המזהה של הדמות
+     */
+    public int add(CharacterClass characterClass, String name, int characterLevel) {
+        if (characterLevel < 1) {
+            throw new IllegalArgumentException("level must be at least 1");
+        }
+        int[] base = BASE_STATS[characterClass.ordinal()];
+        int[] perLevel = STATS_PER_LEVEL[characterClass.ordinal()];
+        int levelsGained = characterLevel - 1;
+        int id = allocate();
+        names[id] = name;
+        classIds[id] = (byte) characterClass.ordinal();
+        level[id] = characterLevel;
+        maxHealth[id] = base[MAX_HEALTH] + perLevel[MAX_HEALTH] * levelsGained;
+        health[id] = maxHealth[id];
+        maxMana[id] = base[MAX_MANA] + perLevel[MAX_MANA] * levelsGained;
+        mana[id] = maxMana[id];
+        strength[id] = base[STRENGTH] + perLevel[STRENGTH] * levelsGained;
+        defense[id] = base[DEFENSE] + perLevel[DEFENSE] * levelsGained;
+        gold[id] = 0;
+        return id;
+    }
+
+    /**
+     * מעתיק דמות קיימת למאגר (בלי ציוד, מלאי ואפקטים).
+     *
+     * @param character הדמות
+     * @return המזהה של הדמות במאגר
+     */
+    public int add(Character character) {
+        int id = allocate();
+        update(id, character);
+        return id;
+    }
+
+    private int allocate() {
+        if (size == names.length) {
+            grow();
+        }
+        return size++;
+    }
+
+    private void grow() {
+        int capacity = names.length * 2;
+        names = Arrays.copyOf(names, capacity);
+        classIds = Arrays.copyOf(classIds, capacity);
+        level = Arrays.copyOf(level, capacity);
+        health = Arrays.copyOf(health, capacity);
+        maxHealth = Arrays.copyOf(maxHealth, capacity);
+        mana = Arrays.copyOf(mana, capacity);
+        maxMana = Arrays.copyOf(maxMana, capacity);
+        strength = Arrays.copyOf(strength, capacity);
+        defense = Arrays.copyOf(defense, capacity);
+        gold = Arrays.copyOf(gold, capacity);
+    }
+
+    /**
+     * מסיר את כל הדמויות המתות במעבר אחד ומצמצם את המאגר.
+     * הסדר של הדמויות החיות נשמר, אבל המזהים שלהן משתנים - Views קיימים כבר לא תקפים.
+     *
+     * @return מספר הדמויות שהוסרו
+     */
+    public int removeDead() {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (health[i] <= 0) {
+                continue;
+            }
+            if (kept != i) {
+                names[kept] = names[i];
+                classIds[kept] = classIds[i];
+                level[kept] = level[i];
+                health[kept] = health[i];
+                maxHealth[kept] = maxHealth[i];
+                mana[kept] = mana[i];
+                maxMana[kept] = maxMana[i];
+                strength[kept] = strength[i];
+                defense[kept] = defense[i];
+                gold[kept] = gold[i];
+            }
+            kept++;
+        }
+        int removed = size - kept;
+        Arrays.fill(names, kept, size, null);
+        size = kept;
+        return removed;
+    }
+
+    public void clear() {
+        Arrays.fill(names, 0, size, null);
+        size = 0;
+    }
+
+    // ============================================================
+    // פעולות על כל המאגר
+    // ============================================================
+
+    /**
+     * מרפא כל דמות חיה ב-amount, עד המקסימום שלה. לולאה אחת על העמודות.
+     *
+     * @param amount כמות הריפוי
+     */
+    public void regenerateHealth(int amount) {
+        for (int i = 0; i < size; i++) {
+            if (health[i] > 0) {
+                health[i] = Math.min(maxHealth[i], health[i] + amount);
+            }
+        }
+    }
+
+    /**
+     * משחזר מאנה לכל דמות חיה ב-amount, עד המקסימום שלה.
+     *
+     * @param amount כמות המאנה
+     */
+    public void regenerateMana(int amount) {
+        for (int i = 0; i < size; i++) {
+            if (health[i] > 0) {
+                mana[i] = Math.min(maxMana[i], mana[i] + amount);
+            }
+        }
+    }
+
+    /**
+     * @return מספר הדמויות החיות
+     */
+    public int countAlive() {
+        int alive = 0;
+        for (int i = 0; i < size; i++) {
+            if (health[i] > 0) {
+                alive++;
+            }
+        }
+        return alive;
+    }
+
+    /**
+     * @param characterClass הסוג
+     * @return מספר הדמויות החיות מהסוג הזה
+     */
+    public int countAlive(CharacterClass characterClass) {
+        byte classId = (byte) characterClass.ordinal();
+        int alive = 0;
+        for (int i = 0; i < size; i++) {
+            if (health[i] > 0 && classIds[i] == classId) {
+                alive++;
+            }
+        }
+        return alive;
+    }
+
+    // ============================================================
+    // מעבר ל-Character ובחזרה
+    // ============================================================
+
+    /**
+     * יוצר Character מלא מהשורה (בלי ציוד ומלאי), למשל כדי להכניס אותו ל-BattleSystem.
+     * השינויים בדמות לא משפיעים על המאגר עד שקוראים ל-update.
+     *
+     * @param id המזהה
+     * @return דמות חדשה עם הנתונים של השורה
+     */
+    public Character toCharacter(int id) {
+        checkId(id);
+        // יוצרים ברמה של השורה, כדי ששדות של המחלקה שתלויים ברמה (spellPower, criticalChance...)
+        // יגדלו כמו בדמות רגילה; העמודות של המאגר דורסות את הנתונים המשותפים
+        Character character = CLASSES[classIds[id]].create(names[id], level[id]);
+        character.maxHealth = maxHealth[id];
+        character.currentHealth = health[id];
+        character.maxMana = maxMana[id];
+        character.currentMana = mana[id];
+        character.baseStrength = strength[id];
+        character.baseDefense = defense[id];
+        character.gold = gold[id];
+        character.invalidateStats();
+        return character;
+    }
+
+    /**
+     * כותב את הנתונים של דמות לשורה קיימת (למשל אחרי קרב).
+     *
+     * @param id המזהה
+     * @param character הדמות
+     */
+    public void update(int id, Character character) {
+        checkId(id);
+        names[id] = character.getName();
+        classIds[id] = (byte) CharacterClass.of(character).ordinal();
+        level[id] = character.getLevel();
+        health[id] = character.getCurrentHealth();
+        maxHealth[id] = character.getMaxHealth();
+        mana[id] = character.getCurrentMana();
+        maxMana[id] = character.getMaxMana();
+        strength[id] = character.getBaseStrength();
+        defense[id] = character.getBaseDefense();
+        gold[id] = character.getGold();
+    }
+
+    /**
+     * @param id המזהה
+     * @return סמן חדש שמצביע על השורה
+     */
+    public View view(int id) {
+        checkId(id);
+        return new View(id);
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No character with id " + id);
+        }
+    }
+
+    private static int[] statsOf(Character character) {
+        int[] stats = new int[4];
+        stats[MAX_HEALTH] = character.getMaxHealth();
+        stats[MAX_MANA] = character.getMaxMana();
+        stats[STRENGTH] = character.getBaseStrength();
+        stats[DEFENSE] = character.getBaseDefense();
+        return stats;
+    }
+
+    // Getters
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return names.length;
+    }
+
+    // ============================================================
+    // View
+    // ============================================================
+
+    /**
+     * סמן (flyweight) לשורה אחת במאגר. לא מחזיק נתונים משלו - כל קריאה וכתיבה
+     * הולכת ישירות לעמודות. אפשר להזיז אותו עם moveTo כדי לעבור על הרבה
+     * דמויות עם אובייקט אחד.
+     */
+    public final class View implements Attackable {
+
+        private int id;
+
+        private View(int id) {
+            this.id = id;
+        }
+
+        /**
+         * מזיז את הסמן לשורה אחרת.
+         *
+         * @param newId המזהה החדש
+         * @return הסמן עצמו
+         */
+        public View moveTo(int newId) {
+            checkId(newId);
+            this.id = newId;
+            return this;
+        }
+
+        /**
+         * לדמויות במאגר אין שריון, ולכן הנזק יורד במלואו.
+         */
+        @Override
+        public void takeDamage(int damage) {
+            health[id] = Math.max(0, health[id] - damage);
+        }
+
+        @Override
+        public boolean isAlive() {
+            return health[id] > 0;
+        }
+
+        @Override
+        public int getCurrentHealth() {
+            return health[id];
+        }
+
+        @Override
+        public int getMaxHealth() {
+            return maxHealth[id];
+        }
+
+        public void heal(int amount) {
+            health[id] = Math.min(maxHealth[id], health[id] + amount);
+        }
+
+        public void addGold(int amount) {
+            gold[id] += amount;
+        }
+
+        // Getters
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return names[id];
+        }
+
+        public CharacterClass getCharacterClass() {
+            return CLASSES[classIds[id]];
+        }
+
+        public int getLevel() {
+            return level[id];
+        }
+
+        public int getCurrentMana() {
+            return mana[id];
+        }
+
+        public int getMaxMana() {
+            return maxMana[id];
+        }
+
+        public int getStrength() {
+            return strength[id];
+        }
+
+        public int getDefense() {
+            return defense[id];
+        }
+
+        public int getGold() {
+            return gold[id];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (Lv.%d %s) HP: %d/%d", names[id], level[id],
+                getCharacterClass().getDisplayName(), health[id], maxHealth[id]);
+        }
+    }
+}
@@ -8,7 +8,8 @@ package model.characters;
 public class Mage extends Character {
     
     private int spellPower;
-    private static final int FIREBALL_MANA_COST = 25;
+    public static final int FIREBALL_MANA_COST = 25;
+    public static final double FIREBALL_MULTIPLIER = 1.5;
     private static final int HEAL_MANA_COST = 30;
     
     public Mage(String name) {
@@ -17,12 +18,21 @@ public class Mage extends Character {
         this.spellPower = 20;
     }
     
+    protected Mage(Mage prototype) {
+        super(prototype);
+        this.spellPower = prototype.spellPower;
+    }
+    
+    @Override
+    public Mage copy() {
+        return new Mage(this);
+    }
+    
     // ============================================================
     // TODO: מימוש מתודות אבסטרקטיות
     // ============================================================
     
     /**
-     * TODO: מימוש onLevelUp
      * כאשר קוסם עולה רמה:
      * - maxHealth עולה ב-8
      * - maxMana עולה ב-25
@@ -33,12 +43,24 @@ public class Mage extends Character {
      */
     @Override
     protected void onLevelUp() {
-        // TODO: Implement this method
-        throw new UnsupportedOperationException("Not implemented yet");
+        onLevelUp(1);
+    }
+    
+    /**
+     * כמה רמות בבת אחת - כל התוספות מוכפלות במספר הרמות.
+     */
+    @Override
+    protected void onLevelUp(int levels) {
+        maxHealth += 8 * levels;
+        maxMana += 25 * levels;
+        baseStrength += levels;
+        baseDefense += levels;
+        spellPower += 5 * levels;
+        currentHealth = maxHealth;
+        currentMana = maxMana;
     }
     
     /**
-     * TODO: מימוש calculateAttackDamage
      * נזק קוסם בסיסי = baseStrength + נזק נשק (אם יש)
      * הקוסם מעדיף להשתמש בכישופים אז הנזק הפיזי שלו נמוך
      * 
@@ -46,12 +68,10 @@ public class Mage extends Character {
      */
     @Override
     public int calculateAttackDamage() {
-        // TODO: Implement this method
-        throw new UnsupportedOperationException("Not implemented yet");
+        return rollBaseAttack();
     }
     
     /**
-     * TODO: מימוש useSpecialAbility - Fireball
      * יכולת מיוחדת: כדור אש
      * - עולה FIREBALL_MANA_COST מאנה
      * - גורם נזק של spellPower * 1.5 (עגל כלפי מעלה)
@@ -62,8 +82,11 @@ public class Mage extends Character {
      */
     @Override
     public boolean useSpecialAbility(Character target) {
-        // TODO: Implement this method
-        throw new UnsupportedOperationException("Not implemented yet");
+        if (!useMana(FIREBALL_MANA_COST)) {
+            return false;
+        }
+        target.takeDamage(calculateSpellDamage(FIREBALL_MULTIPLIER));
+        return true;
     }
     
     // ============================================================
@@ -71,7 +94,6 @@ public class Mage extends Character {
     // ============================================================
     
     /**
-     * TODO: מימוש castHeal
      * כישוף ריפוי עצמי.
      * - עולה HEAL_MANA_COST מאנה
      * - מרפא כמות של spellPower נקודות
@@ -79,12 +101,14 @@ public class Mage extends Character {
      * @return true אם הכישוף הצליח
      */
     public boolean castHeal() {
-        // TODO: Implement this method
-        throw new UnsupportedOperationException("Not implemented yet");
+        if (!useMana(HEAL_MANA_COST)) {
+            return false;
+        }
+        heal(spellPower);
+        return true;
     }
     
     /**
-     * TODO: מימוש castManaShield
      * מגן מאנה - משתמש במאנה במקום בחיים לספיגת נזק.
      * כל נקודת מאנה סופגת 2 נקודות נזק.
      * 
@@ -92,15 +116,17 @@ public class Mage extends Character {
      * @return הנזק שנותר אחרי ספיגת המגן (אם המאנה לא הספיקה)
      */
     public int castManaShield(int incomingDamage) {
-        // TODO: Implement this method
-        // 1. חשב כמה מאנה צריך לספוג את כל הנזק
-        // 2. אם יש מספיק מאנה, ספוג הכל והחזר 0
-        // 3. אם אין מספיק, ספוג כמה שאפשר והחזר את השאר
-        throw new UnsupportedOperationException("Not implemented yet");
+        int manaNeeded = (int) Math.ceil(incomingDamage / 2.0);
+        if (currentMana >= manaNeeded) {
+            currentMana -= manaNeeded;
+            return 0;
+        }
+        int absorbed = currentMana * 2;
+        currentMana = 0;
+        return incomingDamage - absorbed;
     }
     
     /**
-     * TODO: מימוש calculateSpellDamage
      * מחשב נזק כישוף לפי מכפיל.
      * נזק = spellPower * multiplier
      * 
@@ -108,8 +134,14 @@ public class Mage extends Character {
      * @return נזק הכישוף (מספר שלם, עגל כלפי מעלה)
      */
     public int calculateSpellDamage(double multiplier) {
-        // TODO: Implement this method
-        throw new UnsupportedOperationException("Not implemented yet");
+        return spellDamage(spellPower, multiplier);
+    }
+    
+    /**
+     * @see #calculateSpellDamage(double)
+     */
+    public static int spellDamage(int spellPower, double multiplier) {
+        return (int) Math.ceil(spellPower * multiplier);
     }
     
     // Getters
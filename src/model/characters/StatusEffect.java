@@ -0,0 +1,60 @@
+package model.characters;
+
+/**
+ * אפקט זמני על דמות: בונוס לכוח או להגנה לכמה תורות של הדמות.
+ * אפקטים נערמים - כמה אפקטים מאותו סוג פשוט מתחברים.
+ * האפקט עצמו לא משתנה; הדמות מחזיקה אותו בתור עדיפויות לפי תור הפקיעה.
+ */
+public final class StatusEffect {
+
+    /**
+     * הנתון שהאפקט משפיע עליו.
+     */
+    public enum Stat {
+        STRENGTH,
+        DEFENSE
+    }
+
+    private final String source;
+    private final Stat stat;
+    private final int amount;
+    private final int duration;
+    private final long expiresAt;
+
+    /**
+     * @param expiresAt התור האחרון (בשעון האפקטים של הדמות) שבו האפקט עדיין פעיל
+     */
+    StatusEffect(String source, Stat stat, int amount, int duration, long expiresAt) {
+        this.source = source;
+        this.stat = stat;
+        this.amount = amount;
+        this.duration = duration;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters
+    public String getSource() {
+        return source;
+    }
+
+    public Stat getStat() {
+        return stat;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    long getExpiresAt() {
+        return expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %+d %s for %d turns", source, amount, stat, duration);
+    }
+}
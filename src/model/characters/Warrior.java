@@ -10,7 +10,8 @@ public class Warrior extends Character {
     private int rage;
     private static final int MAX_RAGE = 100;
     private static final int RAGE_PER_HIT = 10;
-    private static final int BERSERK_RAGE_COST = 50;
+    public static final int BERSERK_RAGE_COST = 50;
+    public static final int BERSERK_DAMAGE_MULTIPLIER = 2;
 
     public Warrior(String name) {
         // לוחם: הרבה חיים, מעט מאנה, כוח גבוה, הגנה גבוהה
@@ -18,6 +19,16 @@ public class Warrior extends Character {
         this.rage = 0;
     }
 
+    protected Warrior(Warrior prototype) {
+        super(prototype);
+        this.rage = prototype.rage;
+    }
+
+    @Override
+    public Warrior copy() {
+        return new Warrior(this);
+    }
+
     // ============================================================
     // TODO: מימוש מתודות אבסטרקטיות
     // ============================================================
@@ -32,10 +43,18 @@ public class Warrior extends Character {
      */
     @Override
     protected void onLevelUp() {
-        maxHealth += 20;
-        maxMana += 5;
-        baseStrength += 3;
-        baseDefense += 2;
+        onLevelUp(1);
+    }
+
+    /**
+     * כמה רמות בבת אחת - כל התוספות מוכפלות במספר הרמות.
+     */
+    @Override
+    protected void onLevelUp(int levels) {
+        maxHealth += 20 * levels;
+        maxMana += 5 * levels;
+        baseStrength += 3 * levels;
+        baseDefense += 2 * levels;
         currentHealth = maxHealth;
         currentMana = maxMana;
     }
@@ -49,10 +68,17 @@ public class Warrior extends Character {
      */
     @Override
     public int calculateAttackDamage() {
-        int armourDamage = (equippedWeapon != null) ? equippedWeapon.calculateDamage():0;
-        int totalDamage = baseStrength + armourDamage + rage/10;
+        int totalDamage = rollBaseAttack() + rageBonus(rage);
         return totalDamage;
     }
+    
+    /**
+     * @param rage הזעם הנוכחי
+     * @return בונוס הנזק מהזעם
+     */
+    public static int rageBonus(int rage) {
+        return rage / 10;
+    }
 
     /**
      * יכולת מיוחדת: זעם ברסרק
@@ -69,7 +95,7 @@ public class Warrior extends Character {
             return false;
         }
         rage -= BERSERK_RAGE_COST;
-        int damage = calculateAttackDamage() * 2;
+        int damage = calculateAttackDamage() * BERSERK_DAMAGE_MULTIPLIER;
         target.takeDamage(damage);
         return true;
     }
@@ -82,7 +108,16 @@ public class Warrior extends Character {
     @Override
     public void takeDamage(int damage) {
         super.takeDamage(damage);
-        rage = Math.min(MAX_RAGE, rage + RAGE_PER_HIT);
+        rage = rageAfterHit(rage, MAX_RAGE);
+    }
+    
+    /**
+     * @param rage הזעם לפני הפגיעה
+     * @param maxRage הזעם המקסימלי
+     * @return הזעם אחרי שהלוחם ספג פגיעה
+     */
+    public static int rageAfterHit(int rage, int maxRage) {
+        return Math.min(maxRage, rage + RAGE_PER_HIT);
     }
 
     // ============================================================
@@ -14,6 +14,15 @@ public class InventoryFullException extends Exception {
         this.maxCapacity = maxCapacity;
     }
     
+    /**
+     * לתתי-מחלקות עם הודעה משלהן (למשל חריגה ממשקל).
+     */
+    protected InventoryFullException(String message, String itemName, int maxCapacity) {
+        super(message);
+        this.itemName = itemName;
+        this.maxCapacity = maxCapacity;
+    }
+    
     public int getMaxCapacity() {
         return maxCapacity;
     }
@@ -0,0 +1,34 @@
+package model.exceptions;
+
+/**
+ * Exception המתרחש כאשר הוספת פריט תחרוג ממגבלת המשקל של הדמות.
+ * יורש מ-InventoryFullException, כך שקוד שכבר מטפל במלאי מלא מטפל גם בזה.
+ */
+public class OverweightException extends InventoryFullException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final int itemWeight;
+    private final int carriedWeight;
+    private final int maxWeight;
+    
+    public OverweightException(String itemName, int itemWeight, int carriedWeight, int maxWeight) {
+        super("Cannot add item '" + itemName + "' - too heavy (weight: " + itemWeight
+            + ", carrying: " + carriedWeight + ", max: " + maxWeight + ")", itemName, maxWeight);
+        this.itemWeight = itemWeight;
+        this.carriedWeight = carriedWeight;
+        this.maxWeight = maxWeight;
+    }
+    
+    public int getItemWeight() {
+        return itemWeight;
+    }
+    
+    public int getCarriedWeight() {
+        return carriedWeight;
+    }
+    
+    public int getMaxWeight() {
+        return maxWeight;
+    }
+}
@@ -0,0 +1,710 @@
+package model.items;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * מלאי פריטים עם אינדקסים: רשימה מסודרת לפי סדר ההוספה, ובנוסף דלי לכל שם,
+ * לכל מחלקה (Weapon, Armor, Potion...) ולכל ItemRarity. כל האינדקסים מתעדכנים
+ * בהוספה ובהסרה, כך שחיפוש, בדיקת קיום והסרה לפי שם הם O(1) גם במלאי של עשרות אלפי פריטים.
+ *
+ * עותקים זהים של פריט Stackable (לפי equals של Item - שם ונדירות) נערמים לרשומה אחת
+ * עם כמות, כך שהזיכרון והמעבר על המלאי תלויים במספר הפריטים השונים ולא במספר העותקים.
+ * size, get והמעבר הם לפי רשומות; countByName, countByRarity ו-getTotalQuantity סופרים עותקים.
+ * הפריט המייצג של ערימה לא אמור להשתנות - כדי לשנות עותק מפרידים אותו קודם (detachOne).
+ *
+ * הסרה לא מזיזה פריטים - היא משאירה "מצבה" (null) במקום הפריט. כשהמצבות
+ * מגיעות למספר הפריטים החיים, המערך מתכווץ והאינדקסים נבנים מחדש (O(1) בממוצע לכל הסרה).
+ * כיווץ קורה רק בפעולות שמשנות את המלאי (הסרה, או trim מפורש) - גישה לפי מיקום (get) לא
+ * מזיזה פריטים, כך שהיא לא שוברת מעבר (iterator) פתוח.
+ *
+ * מאזינים (InventoryListener) מקבלים אירוע על כל הוספה והסרה של עותקים. כיווץ לא משנה
+ * את התוכן ולא שולח אירועים.
+ *
+ * פריטים נחשבים זהים לפי equals של Item (שם ונדירות), כמו ב-ArrayList.
+ * לא thread-safe.
+ */
+public class Inventory implements Iterable<Item> {
+
+    private static final Item[] EMPTY = new Item[0];
+    private static final int MIN_COMPACT = 16;
+
+    /**
+     * המיקומים (במערך items) של כל הרשומות עם אותו מפתח, לפי סדר ההוספה.
+     * מיקומים של רשומות שהוסרו נשארים עד הכיווץ, ומדולגים בקריאה.
+     */
+    private static final class Bucket {
+        int[] positions = new int[2];
+        int head;      // כל מה שלפני head כבר הוסר
+        int end;
+        int live;
+        int quantity;  // סכום הכמויות של הרשומות החיות
+
+        void add(int position, int count) {
+            if (end == positions.length) {
+                positions = Arrays.copyOf(positions, positions.length * 2);
+            }
+            positions[end++] = position;
+            live++;
+            quantity += count;
+        }
+    }
+
+    private Item[] items;
+    private int[] counts;     // הכמות בכל רשומה, במקביל ל-items
+    private int end;          // מספר התאים בשימוש, כולל מצבות
+    private int size;         // מספר הרשומות החיות
+    private int quantity;     // מספר העותקים בכל הרשומות
+    private long totalWeight; // משקל כל העותקים
+    private int modCount;
+
+    // המיקום האחרון שנמצא ב-get כשיש מצבות, כדי שמעבר לפי הסדר (get(0), get(1)...) יהיה O(1) לכל צעד
+    private int cachedIndex = -1;
+    private int cachedPosition;
+    private int cachedModCount;
+
+    // האינדקסים נוצרים רק בהוספה הראשונה, כדי שמלאי ריק יהיה זול
+    private HashMap<String, Bucket> byName;
+    private HashMap<Class<?>, Bucket> byClass;
+    private EnumMap<Item.ItemRarity, Bucket> byRarity;
+
+    // נוצר רק כשנרשם המאזין הראשון
+    private ArrayList<InventoryListener> listeners;
+
+    public Inventory() {
+        this.items = EMPTY;
+        this.counts = new int[0];
+        this.end = 0;
+        this.size = 0;
+    }
+
+    // ============================================================
+    // הוספה והסרה
+    // ============================================================
+
+    /**
+     * מוסיף פריט למלאי. פריט שאפשר לערום מצטרף לערימה הקיימת שלו, ואחרת נוסף
+     * כרשומה חדשה בסוף. O(1) בממוצע.
+     *
+     * @param item הפריט
+     */
+    public void add(Item item) {
+        add(item, 1);
+    }
+
+    /**
+     * מוסיף את כל העותקים שבערימה.
+     *
+     * @param stack הערימה
+     */
+    public void add(ItemStack stack) {
+        add(stack.getItem(), stack.getCount());
+    }
+
+    /**
+     * מוסיף כמה עותקים של פריט.
+     *
+     * @param item הפריט (הופך לפריט המייצג אם נפתחת ערימה חדשה)
+     * @param count מספר העותקים (יותר מ-1 רק לפריט שאפשר לערום)
+     */
+    public void add(Item item, int count) {
+        if (item == null) {
+            throw new IllegalArgumentException("item must not be null");
+        }
+        if (count < 1 || (count > 1 && !ItemStack.isStackable(item))) {
+            throw new IllegalArgumentException("Invalid count " + count + " for " + item.getName());
+        }
+        if (byName == null) {
+            byName = new HashMap<>();
+            byClass = new HashMap<>();
+            byRarity = new EnumMap<>(Item.ItemRarity.class);
+        }
+        int stack = findStack(item);
+        if (stack >= 0) {
+            changeCount(stack, count);
+        } else {
+            append(item, count);
+        }
+    }
+
+    private void append(Item item, int count) {
+        if (end == items.length) {
+            int capacity = Math.max(4, items.length * 2);
+            items = Arrays.copyOf(items, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        int position = end++;
+        items[position] = item;
+        counts[position] = count;
+        size++;
+        quantity += count;
+        totalWeight += (long) item.getWeight() * count;
+        modCount++;
+        index(item, position);
+        fire(InventoryListener.Change.ADDED, item, count);
+    }
+
+    private void index(Item item, int position) {
+        bucket(byName, item.getName()).add(position, counts[position]);
+        bucket(byClass, item.getClass()).add(position, counts[position]);
+        Bucket rarity = byRarity.get(item.getRarity());
+        if (rarity == null) {
+            rarity = new Bucket();
+            byRarity.put(item.getRarity(), rarity);
+        }
+        rarity.add(position, counts[position]);
+    }
+
+    private static <K> Bucket bucket(HashMap<K, Bucket> map, K key) {
+        Bucket bucket = map.get(key);
+        if (bucket == null) {
+            bucket = new Bucket();
+            map.put(key, bucket);
+        }
+        return bucket;
+    }
+
+    /**
+     * משנה את הכמות של רשומה קיימת (בלי להגיע לאפס) ומעדכן את הסכומים בדליים.
+     */
+    private void changeCount(int position, int delta) {
+        Item item = items[position];
+        counts[position] += delta;
+        quantity += delta;
+        totalWeight += (long) item.getWeight() * delta;
+        modCount++;
+        byName.get(item.getName()).quantity += delta;
+        byClass.get(item.getClass()).quantity += delta;
+        byRarity.get(item.getRarity()).quantity += delta;
+        if (delta > 0) {
+            fire(InventoryListener.Change.ADDED, item, delta);
+        } else {
+            fire(InventoryListener.Change.REMOVED, item, -delta);
+        }
+    }
+
+    /**
+     * מסיר עותק אחד של הפריט הראשון עם השם הזה. O(1) בממוצע.
+     *
+     * @param name שם הפריט
+     * @return הפריט שהוסר (עותק חדש אם הוא נלקח מערימה), או null אם אין
+     */
+    public Item removeFirst(String name) {
+        int position = firstLive(byName == null ? null : byName.get(name));
+        return position < 0 ? null : takeOne(position);
+    }
+
+    /**
+     * מסיר עותק אחד של הפריט הראשון ששווה (equals) לפריט הנתון.
+     * עובר רק על הרשומות עם אותו שם.
+     *
+     * @param item הפריט
+     * @return הפריט שהוסר מהמלאי (יכול להיות מופע אחר ששווה לו), או null אם אין
+     */
+    public Item remove(Item item) {
+        int position = find(item);
+        return position < 0 ? null : takeOne(position);
+    }
+
+    /**
+     * מפצל עותקים מהרשומה הראשונה עם השם הזה ומוציא אותם מהמלאי.
+     *
+     * @param name שם הפריט
+     * @param amount מספר העותקים המבוקש (1 ומעלה)
+     * @return ערימה עם עד amount עותקים (פחות אם ברשומה יש פחות), או null אם אין
+     */
+    public ItemStack removeStack(String name, int amount) {
+        if (amount < 1) {
+            throw new IllegalArgumentException("amount must be at least 1");
+        }
+        int position = firstLive(byName == null ? null : byName.get(name));
+        if (position < 0) {
+            return null;
+        }
+        if (amount >= counts[position]) {
+            int count = counts[position];
+            return new ItemStack(removeAt(position), count);
+        }
+        changeCount(position, -amount);
+        return new ItemStack(((Stackable) items[position]).copy(), amount);
+    }
+
+    /**
+     * מפריד עותק אחד מהרשומה הראשונה עם השם הזה לרשומה משלו (בסוף המלאי), כדי שאפשר
+     * יהיה לשנות אותו בלי לשנות את שאר הערימה. רשומה עם עותק יחיד מוחזרת כמו שהיא.
+     *
+     * @param name שם הפריט
+     * @return הפריט שמותר לשנות, או null אם אין
+     */
+    public Item detachOne(String name) {
+        int position = firstLive(byName == null ? null : byName.get(name));
+        if (position < 0) {
+            return null;
+        }
+        if (counts[position] == 1) {
+            return items[position];
+        }
+        changeCount(position, -1);
+        Item copy = ((Stackable) items[position]).copy();
+        append(copy, 1);
+        return copy;
+    }
+
+    private Item takeOne(int position) {
+        if (counts[position] > 1) {
+            changeCount(position, -1);
+            return ((Stackable) items[position]).copy();
+        }
+        return removeAt(position);
+    }
+
+    private Item removeAt(int position) {
+        Item item = items[position];
+        int count = counts[position];
+        items[position] = null;
+        counts[position] = 0;
+        size--;
+        quantity -= count;
+        totalWeight -= (long) item.getWeight() * count;
+        modCount++;
+        release(byName, item.getName(), count);
+        release(byClass, item.getClass(), count);
+        Bucket rarity = byRarity.get(item.getRarity());
+        rarity.quantity -= count;
+        if (--rarity.live == 0) {
+            byRarity.remove(item.getRarity());
+        }
+        if (end - size >= Math.max(MIN_COMPACT, size)) {
+            compact();
+        }
+        fire(InventoryListener.Change.REMOVED, item, count);
+        return item;
+    }
+
+    private static <K> void release(HashMap<K, Bucket> map, K key, int count) {
+        Bucket bucket = map.get(key);
+        bucket.quantity -= count;
+        if (--bucket.live == 0) {
+            map.remove(key);
+        }
+    }
+
+    public void clear() {
+        if (listeners != null) {
+            for (int i = 0; i < end; i++) {
+                if (items[i] != null) {
+                    fire(InventoryListener.Change.REMOVED, items[i], counts[i]);
+                }
+            }
+        }
+        Arrays.fill(items, 0, end, null);
+        Arrays.fill(counts, 0, end, 0);
+        end = 0;
+        size = 0;
+        quantity = 0;
+        totalWeight = 0;
+        modCount++;
+        if (byName != null) {
+            byName.clear();
+            byClass.clear();
+            byRarity.clear();
+        }
+    }
+
+    /**
+     * מעביר את הרשומות החיות לתחילת המערך ובונה את האינדקסים מחדש. O(n).
+     */
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < end; i++) {
+            if (items[i] != null) {
+                items[kept] = items[i];
+                counts[kept++] = counts[i];
+            }
+        }
+        Arrays.fill(items, kept, end, null);
+        Arrays.fill(counts, kept, end, 0);
+        end = kept;
+        modCount++;
+        byName.clear();
+        byClass.clear();
+        byRarity.clear();
+        for (int i = 0; i < end; i++) {
+            index(items[i], i);
+        }
+    }
+
+    // ============================================================
+    // מאזינים
+    // ============================================================
+
+    public void addListener(InventoryListener listener) {
+        if (listeners == null) {
+            listeners = new ArrayList<>(1);
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(InventoryListener listener) {
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * מודיע למאזינים שהשתמשו בפריט מהמלאי. התוכן עצמו לא משתנה.
+     *
+     * @param item הפריט
+     */
+    public void itemUsed(Item item) {
+        fire(InventoryListener.Change.USED, item, 1);
+    }
+
+    private void fire(InventoryListener.Change change, Item item, int count) {
+        if (listeners == null) {
+            return;
+        }
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onInventoryChange(change, item, count);
+        }
+    }
+
+    // ============================================================
+    // חיפוש
+    // ============================================================
+
+    /**
+     * @param name שם הפריט
+     * @return הפריט הראשון עם השם הזה, או null אם אין. O(1) בממוצע
+     */
+    public Item findFirst(String name) {
+        int position = firstLive(byName == null ? null : byName.get(name));
+        return position < 0 ? null : items[position];
+    }
+
+    /**
+     * @return true אם יש במלאי פריט ששווה (equals) לפריט הנתון
+     */
+    public boolean contains(Item item) {
+        return find(item) >= 0;
+    }
+
+    public boolean containsName(String name) {
+        return byName != null && byName.containsKey(name);
+    }
+
+    /**
+     * @return true אם יש במלאי ערימה שהפריט יצטרף אליה, כלומר הוספה שלו לא תתפוס רשומה חדשה
+     */
+    public boolean hasStackFor(Item item) {
+        return findStack(item) >= 0;
+    }
+
+    /**
+     * @return כמה עותקים עם השם הזה יש במלאי. O(1)
+     */
+    public int countByName(String name) {
+        Bucket bucket = byName == null ? null : byName.get(name);
+        return bucket == null ? 0 : bucket.quantity;
+    }
+
+    /**
+     * @return כמה עותקים מהנדירות הזו יש במלאי. O(1)
+     */
+    public int countByRarity(Item.ItemRarity rarity) {
+        Bucket bucket = byRarity == null ? null : byRarity.get(rarity);
+        return bucket == null ? 0 : bucket.quantity;
+    }
+
+    /**
+     * @param rarity הנדירות
+     * @return רשימה חדשה של הפריטים מהנדירות הזו (פריט אחד לכל רשומה), לפי סדר ההוספה. O(k)
+     */
+    public ArrayList<Item> findByRarity(Item.ItemRarity rarity) {
+        ArrayList<Item> result = new ArrayList<>();
+        collect(byRarity == null ? null : byRarity.get(rarity), result);
+        return result;
+    }
+
+    /**
+     * מחזיר את כל הפריטים מסוג מסוים (כולל תת-מחלקות), פריט אחד לכל רשומה, לפי סדר ההוספה.
+     * עובר רק על הדליים של המחלקות המתאימות, ולא על כל המלאי.
+     *
+     * @param itemClass המחלקה (למשל Weapon.class)
+     * @return רשימה חדשה של הפריטים
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Item> ArrayList<T> findByType(Class<T> itemClass) {
+        ArrayList<T> result = new ArrayList<>();
+        if (byClass == null) {
+            return result;
+        }
+        Bucket exact = null;
+        int matching = 0;
+        for (Map.Entry<Class<?>, Bucket> entry : byClass.entrySet()) {
+            if (itemClass.isAssignableFrom(entry.getKey())) {
+                exact = entry.getValue();
+                matching++;
+            }
+        }
+        if (matching == 1) {
+            collect(exact, (ArrayList<Item>) result);
+        } else if (matching > 1) {
+            // כמה מחלקות מתאימות - שומרים על סדר ההוספה הכללי
+            for (int i = 0; i < end; i++) {
+                if (itemClass.isInstance(items[i])) {
+                    result.add((T) items[i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void collect(Bucket bucket, ArrayList<Item> result) {
+        if (bucket == null) {
+            return;
+        }
+        result.ensureCapacity(bucket.live);
+        for (int i = bucket.head; i < bucket.end; i++) {
+            Item item = items[bucket.positions[i]];
+            if (item != null) {
+                result.add(item);
+            }
+        }
+    }
+
+    /**
+     * @return המיקום של הרשומה החיה הראשונה בדלי, או -1. מקדם את head מעבר לרשומות שהוסרו
+     */
+    private int firstLive(Bucket bucket) {
+        if (bucket == null) {
+            return -1;
+        }
+        while (bucket.head < bucket.end) {
+            int position = bucket.positions[bucket.head];
+            if (items[position] != null) {
+                return position;
+            }
+            bucket.head++;
+        }
+        return -1;
+    }
+
+    private int find(Item item) {
+        Bucket bucket = byName == null ? null : byName.get(item.getName());
+        if (bucket == null) {
+            return -1;
+        }
+        for (int i = bucket.head; i < bucket.end; i++) {
+            int position = bucket.positions[i];
+            if (items[position] != null && items[position].equals(item)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return המיקום של הערימה שהפריט יכול להצטרף אליה, או -1
+     */
+    private int findStack(Item item) {
+        if (!ItemStack.isStackable(item)) {
+            return -1;
+        }
+        Bucket bucket = byName == null ? null : byName.get(item.getName());
+        if (bucket == null) {
+            return -1;
+        }
+        for (int i = bucket.head; i < bucket.end; i++) {
+            Item candidate = items[bucket.positions[i]];
+            if (candidate != null && ItemStack.stacksTogether(candidate, item)) {
+                return bucket.positions[i];
+            }
+        }
+        return -1;
+    }
+
+    // ============================================================
+    // גישה לפי מיקום ומעבר
+    // ============================================================
+
+    /**
+     * @param index מיקום בין 0 ל-size()-1, לפי סדר ההוספה
+     * @return הפריט (המייצג, אם זו ערימה)
+     */
+    public Item get(int index) {
+        return items[positionOf(index)];
+    }
+
+    /**
+     * @param index מיקום בין 0 ל-size()-1
+     * @return מספר העותקים ברשומה
+     */
+    public int getCount(int index) {
+        return counts[positionOf(index)];
+    }
+
+    /**
+     * מתרגם מיקום לוגי למקום במערך, בלי לכווץ. בלי מצבות זה O(1); עם מצבות - O(1) לצעד
+     * כשעוברים לפי הסדר (ממשיכים מהמיקום הקודם), ו-O(n) בגישה אקראית.
+     */
+    private int positionOf(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        if (end == size) {
+            return index;
+        }
+        int live = 0;
+        int position = skipRemoved(0);
+        if (cachedIndex >= 0 && cachedModCount == modCount && cachedIndex <= index) {
+            live = cachedIndex;
+            position = cachedPosition;
+        }
+        while (live < index) {
+            position = skipRemoved(position + 1);
+            live++;
+        }
+        cachedIndex = index;
+        cachedPosition = position;
+        cachedModCount = modCount;
+        return position;
+    }
+
+    /**
+     * מכווץ את המערך עכשיו (מסיר את כל המצבות). משנה את המלאי מבחינת מעבר פתוח.
+     */
+    public void trim() {
+        if (end != size) {
+            compact();
+        }
+    }
+
+    /**
+     * @return מספר הרשומות (ערימות ופריטים בודדים)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return מספר העותקים בכל המלאי
+     */
+    public int getTotalQuantity() {
+        return quantity;
+    }
+
+    /**
+     * @return המשקל של כל העותקים במלאי. O(1) - מתעדכן בכל הוספה והסרה
+     */
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return עותק של המלאי כרשימה רגילה, פריט אחד לכל רשומה
+     */
+    public ArrayList<Item> toList() {
+        ArrayList<Item> list = new ArrayList<>(size);
+        for (int i = 0; i < end; i++) {
+            if (items[i] != null) {
+                list.add(items[i]);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return רשימה חדשה של הרשומות כערימות, לפי הסדר. הפריטים בהן הם הפריטים המייצגים
+     */
+    public ArrayList<ItemStack> toStacks() {
+        ArrayList<ItemStack> stacks = new ArrayList<>(size);
+        for (int i = 0; i < end; i++) {
+            if (items[i] != null) {
+                stacks.add(new ItemStack(items[i], counts[i]));
+            }
+        }
+        return stacks;
+    }
+
+    /**
+     * @return תצוגה חיה לקריאה בלבד של המלאי כרשימה, פריט אחד לכל רשומה
+     */
+    public List<Item> asList() {
+        return new AbstractList<Item>() {
+            @Override
+            public Item get(int index) {
+                return Inventory.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Item && Inventory.this.contains((Item) o);
+            }
+
+            @Override
+            public Iterator<Item> iterator() {
+                return Inventory.this.iterator();
+            }
+        };
+    }
+
+    /**
+     * עובר על הרשומות לפי סדר ההוספה, בלי לכווץ. שינוי המלאי בזמן המעבר זורק
+     * ConcurrentModificationException.
+     */
+    @Override
+    public Iterator<Item> iterator() {
+        return new Iterator<Item>() {
+            private int next = skipRemoved(0);
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public Item next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                Item item = items[next];
+                next = skipRemoved(next + 1);
+                return item;
+            }
+        };
+    }
+
+    private int skipRemoved(int from) {
+        while (from < end && items[from] == null) {
+            from++;
+        }
+        return from;
+    }
+
+    @Override
+    public String toString() {
+        return toStacks().toString();
+    }
+}
@@ -0,0 +1,27 @@
+package model.items;
+
+/**
+ * מאזין לשינויים במלאי - פריטים שנוספו, הוסרו או שהשתמשו בהם.
+ * נרשמים דרך Character.addInventoryListener או Shop.addInventoryListener.
+ * מאפשר לשמור סכומים (משקל, ערך, ספירות) שמתעדכנים בכל שינוי, במקום לעבור על כל המלאי.
+ */
+public interface InventoryListener {
+
+    /**
+     * סוג השינוי במלאי.
+     */
+    enum Change {
+        ADDED,
+        REMOVED,
+        USED
+    }
+
+    /**
+     * נקרא אחרי כל שינוי במלאי.
+     *
+     * @param change סוג השינוי
+     * @param item הפריט (המייצג, אם זו ערימה)
+     * @param count מספר העותקים שהשתנו (1 לשימוש)
+     */
+    void onInventoryChange(Change change, Item item, int count);
+}
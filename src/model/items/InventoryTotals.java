@@ -0,0 +1,109 @@
+package model.items;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * סכומים רצים על מלאי: מספר עותקים, משקל, ערך קנייה ומכירה, ספירה לפי נדירות ולפי סוג.
+ * מתעדכן מאירועי InventoryListener ב-O(1) לכל שינוי, וכל קריאה היא O(1)
+ * (ספירה לפי סוג - לפי מספר המחלקות השונות במלאי, כלומר קבוע קטן).
+ *
+ * הערכים נספרים לפי המחיר של הפריט בזמן האירוע - פריטים לא משנים מחיר אחרי שנוצרו.
+ * לא thread-safe.
+ */
+public class InventoryTotals implements InventoryListener {
+
+    private long itemCount;
+    private long totalWeight;
+    private long totalBuyValue;
+    private long totalSellValue;
+    private long usedCount;
+    private final long[] byRarity;
+    private final HashMap<Class<?>, long[]> byType;
+
+    public InventoryTotals() {
+        this.byRarity = new long[Item.ItemRarity.values().length];
+        this.byType = new HashMap<>();
+    }
+
+    /**
+     * בונה סכומים התחלתיים מהמלאי הקיים (O(n) פעם אחת). כדי שיישארו מעודכנים
+     * צריך לרשום אותם כמאזין לאותו מלאי.
+     *
+     * @param inventory המלאי
+     */
+    public InventoryTotals(Inventory inventory) {
+        this();
+        for (ItemStack stack : inventory.toStacks()) {
+            onInventoryChange(Change.ADDED, stack.getItem(), stack.getCount());
+        }
+    }
+
+    @Override
+    public void onInventoryChange(Change change, Item item, int count) {
+        if (change == Change.USED) {
+            usedCount += count;
+            return;
+        }
+        long delta = change == Change.ADDED ? count : -count;
+        itemCount += delta;
+        totalWeight += item.getWeight() * delta;
+        totalBuyValue += item.getBuyPrice() * delta;
+        totalSellValue += item.getSellPrice() * delta;
+        byRarity[item.getRarity().ordinal()] += delta;
+        long[] typeCount = byType.get(item.getClass());
+        if (typeCount == null) {
+            typeCount = new long[1];
+            byType.put(item.getClass(), typeCount);
+        }
+        typeCount[0] += delta;
+    }
+
+    // Getters
+    public long getItemCount() {
+        return itemCount;
+    }
+
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    public long getTotalBuyValue() {
+        return totalBuyValue;
+    }
+
+    public long getTotalSellValue() {
+        return totalSellValue;
+    }
+
+    /**
+     * @return כמה פעמים השתמשו בפריטים מהמלאי
+     */
+    public long getUsedCount() {
+        return usedCount;
+    }
+
+    public long getCount(Item.ItemRarity rarity) {
+        return byRarity[rarity.ordinal()];
+    }
+
+    /**
+     * @param type סוג הפריט (כולל תתי-מחלקות, למשל Item.class לכל המלאי)
+     * @return מספר העותקים מהסוג הזה
+     */
+    public long getCount(Class<? extends Item> type) {
+        long count = 0;
+        for (Map.Entry<Class<?>, long[]> entry : byType.entrySet()) {
+            if (type.isAssignableFrom(entry.getKey())) {
+                count += entry.getValue()[0];
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Items: %d | Weight: %d | Value: %d (sell %d)",
+            itemCount, totalWeight, totalBuyValue, totalSellValue);
+    }
+}
@@ -0,0 +1,111 @@
+package model.items;
+
+/**
+ * ערימה של עותקים זהים של פריט: פריט אחד שמייצג את כולם, וכמות.
+ * ערימה של יותר מעותק אחד אפשרית רק לפריט Stackable שאפשר לערום (canStack).
+ *
+ * הפריט המייצג לא משתנה כל עוד הוא בערימה - מי שרוצה לשנות עותק (למשל להשתמש בשיקוי)
+ * מפצל אותו קודם לערימה משלו (split), שמקבלת עותק חדש של הפריט.
+ */
+public class ItemStack {
+
+    private final Item item;
+    private int count;
+
+    /**
+     * @param item הפריט המייצג
+     * @param count הכמות (1 ומעלה)
+     */
+    public ItemStack(Item item, int count) {
+        if (item == null) {
+            throw new IllegalArgumentException("item must not be null");
+        }
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be at least 1");
+        }
+        if (count > 1 && !isStackable(item)) {
+            throw new IllegalArgumentException(item.getName() + " cannot be stacked");
+        }
+        this.item = item;
+        this.count = count;
+    }
+
+    public ItemStack(Item item) {
+        this(item, 1);
+    }
+
+    /**
+     * @return true אם הפריט Stackable ואפשר לערום אותו כרגע
+     */
+    public static boolean isStackable(Item item) {
+        return item instanceof Stackable && ((Stackable) item).canStack();
+    }
+
+    // ============================================================
+    // פיצול ומיזוג
+    // ============================================================
+
+    /**
+     * @return true אם שני הפריטים ניתנים לערימה כרגע וזהים לפי Stackable.stacksWith
+     */
+    public static boolean stacksTogether(Item a, Item b) {
+        return isStackable(a) && isStackable(b) && ((Stackable) a).stacksWith(b);
+    }
+
+    /**
+     * בודק אם אפשר למזג את הפריט לערימה הזו: שני הצדדים ניתנים לערימה וזהים (stacksWith).
+     *
+     * @param other הפריט לבדיקה
+     * @return true אם אפשר למזג
+     */
+    public boolean canMerge(Item other) {
+        return stacksTogether(item, other);
+    }
+
+    /**
+     * מעביר את כל העותקים מהערימה השנייה לערימה הזו.
+     *
+     * @param other הערימה למיזוג. הכמות שלה מתאפסת
+     * @throws IllegalArgumentException אם הפריטים לא ניתנים למיזוג
+     */
+    public void merge(ItemStack other) {
+        if (other == this || !canMerge(other.item)) {
+            throw new IllegalArgumentException("Cannot merge " + other.item.getName() + " into " + item.getName());
+        }
+        count += other.count;
+        other.count = 0;
+    }
+
+    /**
+     * מפצל עותקים מהערימה לערימה חדשה, עם עותק חדש של הפריט.
+     *
+     * @param amount מספר העותקים (בין 1 ל-getCount()-1)
+     * @return הערימה החדשה
+     * @throws IllegalArgumentException אם הכמות לא חוקית
+     */
+    public ItemStack split(int amount) {
+        if (amount < 1 || amount >= count) {
+            throw new IllegalArgumentException("amount must be between 1 and " + (count - 1));
+        }
+        count -= amount;
+        return new ItemStack(((Stackable) item).copy(), amount);
+    }
+
+    // Getters
+    public Item getItem() {
+        return item;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getTotalWeight() {
+        return item.getWeight() * count;
+    }
+
+    @Override
+    public String toString() {
+        return count == 1 ? item.toString() : item.toString() + " x" + count;
+    }
+}
@@ -1,18 +1,24 @@
 package model.items;
 
 import model.characters.Character;
+import model.characters.StatusEffect;
+
+import java.util.Objects;
 
 /**
  * מחלקה המייצגת שיקוי במשחק.
- * יורשת מ-Item וגם מממשת את Usable.
+ * יורשת מ-Item וגם מממשת את Usable ו-Stackable (שיקויים מלאים זהים נערמים).
  */
-public class Potion extends Item implements Usable {
+public class Potion extends Item implements Usable, Stackable {
     
     private PotionType potionType;
     private int potency;
     private int remainingUses;
     private final int maxUses;
     
+    // כמה תורות של הדמות נמשך האפקט של שיקוי כוח או הגנה
+    public static final int EFFECT_DURATION = 3;
+    
     /**
      * סוגי שיקויים במשחק
      */
@@ -51,6 +57,7 @@ public class Potion extends Item implements Usable {
      * - אם אין שימושים נותרים או שלא ניתן להשתמש, מחזיר false
      * - אם הסוג הוא HEALTH, מרפא את הדמות בכמות potency
      * - אם הסוג הוא MANA, משחזר מאנה בכמות potency
+     * - אם הסוג הוא STRENGTH או DEFENSE, מוסיף אפקט זמני של potency ל-EFFECT_DURATION תורות
      * - מפחית שימוש אחד מ-remainingUses
      * 
      * @param target הדמות עליה משתמשים בשיקוי
@@ -70,6 +77,14 @@ public class Potion extends Item implements Usable {
                 target.restoreMana(potency);
                 break;
             }
+            case STRENGTH -> {
+                target.addStatusEffect(getName(), StatusEffect.Stat.STRENGTH, potency, EFFECT_DURATION);
+                break;
+            }
+            case DEFENSE -> {
+                target.addStatusEffect(getName(), StatusEffect.Stat.DEFENSE, potency, EFFECT_DURATION);
+                break;
+            }
         }
         remainingUses--;
         return true;
@@ -115,6 +130,39 @@ public class Potion extends Item implements Usable {
         return remainingUses == maxUses;
     }
     
+    // ============================================================
+    // מימוש ממשק Stackable
+    // ============================================================
+    
+    /**
+     * רק שיקוי שלא השתמשו בו נערם - כך כל העותקים בערימה באמת זהים.
+     */
+    @Override
+    public boolean canStack() {
+        return remainingUses == maxUses;
+    }
+    
+    /**
+     * שיקויים נערמים רק אם הם זהים בכל מה שמשפיע על השימוש והמחיר, ולא רק בשם ובנדירות.
+     */
+    @Override
+    public boolean stacksWith(Item other) {
+        if (!equals(other)) {
+            return false;
+        }
+        Potion potion = (Potion) other;
+        return potionType == potion.potionType && potency == potion.potency
+            && maxUses == potion.maxUses && basePrice == potion.basePrice
+            && Objects.equals(description, potion.description);
+    }
+    
+    @Override
+    public Potion copy() {
+        Potion copy = new Potion(name, description, basePrice, rarity, potionType, potency, maxUses);
+        copy.remainingUses = remainingUses;
+        return copy;
+    }
+    
     // Getters
     public PotionType getPotionType() {
         return potionType;
@@ -0,0 +1,32 @@
+package model.items;
+
+/**
+ * ממשק המייצג פריט שעותקים זהים שלו נערמים לרשומה אחת עם כמות.
+ * עותקים "זהים" לפי stacksWith (ולא לפי equals של Item, שמשווה רק שם ונדירות),
+ * כל עוד canStack מחזיר true בשני הצדדים.
+ * פריטים כמו שיקויים מממשים ממשק זה.
+ */
+public interface Stackable {
+    
+    /**
+     * בודק אם הפריט יכול להיות כרגע חלק מערימה.
+     * למשל, שיקוי שכבר השתמשו בו לא נערם עם שיקויים מלאים.
+     * @return true אם ניתן לערום
+     */
+    boolean canStack();
+    
+    /**
+     * בודק אם הפריט השני הוא עותק זהה שיכול להיכנס לאותה ערימה.
+     * ערימה שומרת פריט מייצג אחד, ולכן כל מה שמבדיל בין העותקים (עוצמה, מחיר וכו') חייב להיות שווה.
+     * @param other הפריט להשוואה
+     * @return true אם שני הפריטים זהים לצורך ערימה
+     */
+    boolean stacksWith(Item other);
+    
+    /**
+     * יוצר עותק חדש ובלתי תלוי של הפריט, במצב הנוכחי שלו.
+     * משמש כשמוציאים עותק אחד מערימה כדי לשנות אותו.
+     * @return עותק חדש
+     */
+    Item copy();
+}
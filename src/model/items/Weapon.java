@@ -1,5 +1,9 @@
 package model.items;
 
+import utils.GameRandom;
+
+import java.util.random.RandomGenerator;
+
 /**
  * מחלקה המייצגת נשק במשחק.
  * יורשת מ-Item ומוסיפה מאפייני נזק.
@@ -52,12 +56,22 @@ public class Weapon extends Item {
     /**
      * TODO: מימוש calculateDamage
      * מחשב נזק אקראי בין minDamage ל-maxDamage (כולל).
-     * השתמש ב-Math.random()
+     * משתמש במחולל של ה-thread הנוכחי.
      * 
      * @return נזק אקראי
      */
     public int calculateDamage() {
-        return minDamage + (int)(Math.random() * (maxDamage - minDamage + 1));
+        return calculateDamage(GameRandom.current());
+    }
+    
+    /**
+     * מחשב נזק אקראי בין minDamage ל-maxDamage (כולל) בעזרת מחולל נתון.
+     * 
+     * @param random המחולל
+     * @return נזק אקראי
+     */
+    public int calculateDamage(RandomGenerator random) {
+        return minDamage + random.nextInt(maxDamage - minDamage + 1);
     }
     
     /**
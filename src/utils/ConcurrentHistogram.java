@@ -0,0 +1,80 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * היסטוגרמה עם דליים ברוחב קבוע שאפשר לרשום אליה מכמה threads במקביל בלי נעילה.
+ * הקריאה (snapshot) מחזירה Histogram רגיל. צילום שנלקח תוך כדי רישום
+ * יכול לפספס ערכים שנרשמו באותו רגע, אבל לא סופר ערך פעמיים.
+ */
+public class ConcurrentHistogram {
+
+    private final int bucketWidth;
+    private final AtomicLongArray buckets;
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final AtomicLong min;
+    private final AtomicLong max;
+
+    /**
+     * @param bucketWidth רוחב כל דלי
+     * @param bucketCount מספר הדליים
+     */
+    public ConcurrentHistogram(int bucketWidth, int bucketCount) {
+        if (bucketWidth <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("bucketWidth and bucketCount must be positive");
+        }
+        this.bucketWidth = bucketWidth;
+        this.buckets = new AtomicLongArray(bucketCount);
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.min = new AtomicLong(Long.MAX_VALUE);
+        this.max = new AtomicLong(Long.MIN_VALUE);
+    }
+
+    /**
+     * רושם ערך אחד (ערכים שליליים נספרים בדלי הראשון, ערכים גדולים - באחרון).
+     *
+     * @param value הערך
+     */
+    public void record(long value) {
+        // קודם min/max ורק אז הדלי, כך שכל ערך שנראה בצילום כבר נכלל בהם
+        long current = min.get();
+        while (value < current && !min.compareAndSet(current, value)) {
+            current = min.get();
+        }
+        current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+
+        int index = (int) Math.min(Math.max(value, 0) / bucketWidth, buckets.length() - 1);
+        sum.add(value);
+        count.increment();
+        buckets.incrementAndGet(index);
+    }
+
+    /**
+     * @return צילום של המצב הנוכחי כהיסטוגרמה רגילה
+     */
+    public Histogram snapshot() {
+        long[] copy = new long[buckets.length()];
+        long total = 0;
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = buckets.get(i);
+            total += copy[i];
+        }
+        // count נגזר מהדליים שהועתקו, כדי שהאחוזונים יהיו עקביים עם הצילום
+        return new Histogram(bucketWidth, copy, total, sum.sum(), min.get(), max.get());
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public int getBucketWidth() {
+        return bucketWidth;
+    }
+}
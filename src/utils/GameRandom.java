@@ -0,0 +1,56 @@
+package utils;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * נקודה אחת לכל המספרים האקראיים במשחק.
+ * ברירת המחדל היא מחולל נפרד לכל thread (בלי נעילות ובלי תחרות בין threads),
+ * וכשצריך לשחזר קרב בדיוק - יוצרים מחולל עם seed ומפצלים ממנו זרמים (split).
+ */
+public final class GameRandom {
+
+    private GameRandom() {
+    }
+
+    /**
+     * @return המחולל של ה-thread הנוכחי (אסור לשמור אותו ולהעביר ל-thread אחר)
+     */
+    public static RandomGenerator current() {
+        return ThreadLocalRandom.current();
+    }
+
+    /**
+     * יוצר מחולל שניתן לפצל עם seed קבוע.
+     *
+     * @param seed ה-seed
+     * @return מחולל חדש
+     */
+    public static RandomGenerator.SplittableGenerator seeded(long seed) {
+        return new SplittableRandom(seed);
+    }
+
+    /**
+     * יוצר את הזרם ה-index מתוך seed אחד.
+     * כל index מקבל זרם דטרמיניסטי משלו, שתלוי רק ב-seed וב-index ולא בסדר או ב-thread
+     * שבו הוא נוצר - כך שסימולציה מקבילית נותנת אותן תוצאות בלי קשר לחלוקה ל-threads.
+     * (אין הבטחה שהזרמים לא חופפים; ה-seed של כל זרם רק מעורבב היטב.)
+     *
+     * @param seed ה-seed של כל הריצה
+     * @param index מספר הזרם (למשל מספר הקרב)
+     * @return מחולל חדש לזרם הזה
+     */
+    public static RandomGenerator.SplittableGenerator stream(long seed, long index) {
+        return new SplittableRandom(mix64(seed + mix64(index)));
+    }
+
+    /**
+     * ערבוב ביטים (Stafford variant 13) - ממפה seeds קרובים לערכים רחוקים.
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -225,6 +225,7 @@ public class GameUtils {
 
     /**
      * מחשב את המשקל הכולל של כל הפריטים ברשימה.
+     * למשקל שדמות נושאת עדיף Character.getCarriedWeight, שמתעדכן בלי מעבר על המלאי.
      * * @param items רשימת הפריטים
      * @return המשקל הכולל
      */
@@ -238,6 +239,7 @@ public class GameUtils {
 
     /**
      * מחשב את הערך הכולל של כל הפריטים (לפי מחיר מכירה).
+     * לערך של מלאי שנקרא שוב ושוב עדיף Character.getInventoryTotals, שמתעדכן בכל שינוי.
      * * @param items רשימת הפריטים
      * @return הערך הכולל
      */
@@ -0,0 +1,128 @@
+package utils;
+
+/**
+ * היסטוגרמה עם דליים (buckets) ברוחב קבוע.
+ * ערכים מעל הדלי האחרון נספרים בדלי האחרון.
+ * לא thread-safe - כל thread ממלא היסטוגרמה משלו ואז מאחדים עם merge.
+ */
+public class Histogram {
+
+    private final int bucketWidth;
+    private final long[] buckets;
+    private long count;
+    private long sum;
+    private long min;
+    private long max;
+
+    /**
+     * @param bucketWidth רוחב כל דלי
+     * @param bucketCount מספר הדליים
+     */
+    public Histogram(int bucketWidth, int bucketCount) {
+        if (bucketWidth <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("bucketWidth and bucketCount must be positive");
+        }
+        this.bucketWidth = bucketWidth;
+        this.buckets = new long[bucketCount];
+        this.count = 0;
+        this.sum = 0;
+        this.min = Long.MAX_VALUE;
+        this.max = Long.MIN_VALUE;
+    }
+
+    /**
+     * בונה היסטוגרמה מנתונים קיימים (למשל צילום של ConcurrentHistogram).
+     */
+    Histogram(int bucketWidth, long[] buckets, long count, long sum, long min, long max) {
+        this.bucketWidth = bucketWidth;
+        this.buckets = buckets;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * רושם ערך אחד בהיסטוגרמה.
+     * ערכים שליליים נספרים בדלי הראשון.
+     *
+     * @param value הערך
+     */
+    public void record(long value) {
+        int index = (int) Math.min(Math.max(value, 0) / bucketWidth, buckets.length - 1);
+        buckets[index]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * מוסיף את כל הערכים של היסטוגרמה אחרת (עם אותה חלוקה לדליים).
+     *
+     * @param other ההיסטוגרמה לאיחוד
+     */
+    public void merge(Histogram other) {
+        if (other.bucketWidth != bucketWidth || other.buckets.length != buckets.length) {
+            throw new IllegalArgumentException("Cannot merge histograms with different buckets");
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] += other.buckets[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * מחזיר הערכה של האחוזון המבוקש (הגבול העליון של הדלי שבו הוא נופל).
+     *
+     * @param percentile אחוזון בין 0.0 ל-1.0
+     * @return הערך המשוער, או 0 אם ההיסטוגרמה ריקה
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(percentile * count);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= threshold && seen > 0) {
+                return Math.min((long) (i + 1) * bucketWidth - 1, max);
+            }
+        }
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    public int getBucketWidth() {
+        return bucketWidth;
+    }
+
+    public long[] getBuckets() {
+        return buckets.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("mean %.1f, min %d, p50 %d, p90 %d, max %d",
+            getMean(), getMin(), getPercentile(0.5), getPercentile(0.9), getMax());
+    }
+}
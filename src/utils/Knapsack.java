@@ -0,0 +1,129 @@
+package utils;
+
+/**
+ * פותר בעיית תרמיל (knapsack) חסומה: לכל סוג פריט יש משקל, ערך ומספר עותקים,
+ * ובוחרים כמה עותקים לקחת מכל סוג כך שהערך מקסימלי והמשקל לא עובר את הקיבולת.
+ *
+ * כמה עותקים מאותו סוג מפוצלים לחבילות של 1, 2, 4... עותקים (פיצול בינארי), כך שערימה
+ * של c עותקים היא log(c) פריטים ב-0/1 knapsack ולא c. המשקלים והקיבולת מחולקים קודם
+ * במחלק המשותף הגדול של המשקלים, כדי לכווץ את טבלת התכנון הדינמי.
+ *
+ * זמן O(חבילות * קיבולת). הערך הטוב לכל קיבולת נשמר במערך אחד, וההחלטות (נלקח או לא)
+ * נשמרות כ-bitset - ביט אחד לכל חבילה וקיבולת - לשחזור הבחירה בסוף.
+ */
+public class Knapsack {
+
+    private Knapsack() {
+    }
+
+    /**
+     * @param weights המשקל של עותק אחד מכל סוג (0 ומעלה)
+     * @param values הערך של עותק אחד מכל סוג
+     * @param counts מספר העותקים מכל סוג
+     * @param capacity המשקל המקסימלי
+     * @return כמה עותקים לקחת מכל סוג. פריטים בלי משקל ועם ערך לא שלילי תמיד נלקחים
+     */
+    public static int[] solve(int[] weights, long[] values, int[] counts, int capacity) {
+        int n = weights.length;
+        if (values.length != n || counts.length != n) {
+            throw new IllegalArgumentException("weights, values and counts must have the same length");
+        }
+        int[] kept = new int[n];
+        if (capacity < 0) {
+            return kept;
+        }
+
+        // פריטים בלי משקל לא תופסים קיבולת; פריטים בלי ערך לא שווים קיבולת
+        int gcd = 0;
+        long totalWeight = 0;
+        int packs = 0;
+        for (int i = 0; i < n; i++) {
+            if (weights[i] < 0 || counts[i] < 0) {
+                throw new IllegalArgumentException("weights and counts must not be negative");
+            }
+            if (weights[i] == 0) {
+                kept[i] = values[i] >= 0 ? counts[i] : 0;
+            } else if (values[i] > 0 && counts[i] > 0 && weights[i] <= capacity) {
+                gcd = gcd(gcd, weights[i]);
+                totalWeight += (long) weights[i] * counts[i];
+                packs += 32 - Integer.numberOfLeadingZeros(counts[i]);
+            }
+        }
+        if (gcd == 0) {
+            return kept;
+        }
+        if (totalWeight <= capacity) {
+            // הכול נכנס - אין מה לבחור
+            for (int i = 0; i < n; i++) {
+                if (weights[i] > 0 && values[i] > 0 && weights[i] <= capacity) {
+                    kept[i] = counts[i];
+                }
+            }
+            return kept;
+        }
+        int cap = capacity / gcd;
+
+        // פיצול בינארי של כל ערימה לחבילות
+        int[] packItem = new int[packs];
+        int[] packCount = new int[packs];
+        int[] packWeight = new int[packs];
+        long[] packValue = new long[packs];
+        int p = 0;
+        for (int i = 0; i < n; i++) {
+            if (weights[i] == 0 || values[i] <= 0 || counts[i] <= 0 || weights[i] > capacity) {
+                continue;
+            }
+            int unit = weights[i] / gcd;
+            int remaining = counts[i];
+            for (int size = 1; remaining > 0; size <<= 1) {
+                int take = Math.min(size, remaining);
+                remaining -= take;
+                long weight = (long) unit * take;
+                if (weight > cap) {
+                    // חבילה שלא נכנסת לבד - החבילות הבאות רק גדולות יותר
+                    break;
+                }
+                packItem[p] = i;
+                packCount[p] = take;
+                packWeight[p] = (int) weight;
+                packValue[p] = values[i] * take;
+                p++;
+            }
+        }
+        packs = p;
+
+        int words = (cap >>> 6) + 1;
+        long[] best = new long[cap + 1];
+        long[] taken = new long[packs * words];
+        for (int k = 0; k < packs; k++) {
+            int w = packWeight[k];
+            long v = packValue[k];
+            int row = k * words;
+            for (int c = cap; c >= w; c--) {
+                long candidate = best[c - w] + v;
+                if (candidate > best[c]) {
+                    best[c] = candidate;
+                    taken[row + (c >>> 6)] |= 1L << c;
+                }
+            }
+        }
+
+        int c = cap;
+        for (int k = packs - 1; k >= 0; k--) {
+            if ((taken[k * words + (c >>> 6)] & (1L << c)) != 0) {
+                kept[packItem[k]] += packCount[k];
+                c -= packWeight[k];
+            }
+        }
+        return kept;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}